@@ -0,0 +1,25 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Message used by all benchmarks, padded to the payload size being measured
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenchmarkMessage {
+    private String id;
+    private long createdAt;
+    private String payload;
+
+    public static BenchmarkMessage ofSize(final int payloadSize) {
+        final char[] payload = new char[payloadSize];
+        Arrays.fill(payload, 'x');
+        return new BenchmarkMessage("benchmark", System.currentTimeMillis(), new String(payload));
+    }
+}
@@ -0,0 +1,56 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Records the version of the library that was benchmarked in the JMH results, so results files can be compared
+ * without knowing how each run was built
+ */
+@UtilityClass
+public class BenchmarkReport {
+    private static final String LIBRARY_POM_PROPERTIES
+            = "/META-INF/maven/io.appform.dropwizard.actors/dropwizard-rabbitmq-actors/pom.properties";
+    private static final String LIBRARY_VERSION_FIELD = "libraryVersion";
+
+    /**
+     * @return Version of the library on the classpath, as resolved by the build, unknown if it cannot be found
+     */
+    public String libraryVersion() {
+        try (InputStream stream = BenchmarkReport.class.getResourceAsStream(LIBRARY_POM_PROPERTIES)) {
+            if (null == stream) {
+                return "unknown";
+            }
+            final Properties properties = new Properties();
+            properties.load(stream);
+            return properties.getProperty("version", "unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Adds the library version to every result in a JMH JSON results file. The file stays a JMH results array, so
+     * the usual tools can still read it.
+     */
+    public void addLibraryVersion(final File resultFile, final String version) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode results = mapper.readTree(resultFile);
+        if (null == results || !results.isArray()) {
+            return;
+        }
+        for (JsonNode result : results) {
+            if (result.isObject()) {
+                ((ObjectNode) result).put(LIBRARY_VERSION_FIELD, version);
+            }
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(resultFile, results);
+    }
+}
@@ -0,0 +1,44 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes the results as JSON, so runs against different versions can
+ * be compared.
+ * <pre>
+ *     java -jar benchmarks.jar [results file] [benchmark regex ...] [jmh options ...]
+ * </pre>
+ * Results go to {@code benchmarks.json} by default, with the benchmarked library version added to every result.
+ * Without a regex, the broker free publish and consume benchmarks are run.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        final String resultFile = args.length > 0 && !args[0].startsWith("-") ? args[0] : "benchmarks.json";
+        final String[] remaining = args.length > 0 && !args[0].startsWith("-")
+                                   ? Arrays.copyOfRange(args, 1, args.length)
+                                   : args;
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(remaining);
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include(PublishBenchmark.class.getSimpleName())
+                    .include(HandleDeliveryBenchmark.class.getSimpleName());
+        }
+        final String libraryVersion = BenchmarkReport.libraryVersion();
+        System.out.println("Benchmarking dropwizard-rabbitmq-actors " + libraryVersion);
+        new Runner(options.build()).run();
+        BenchmarkReport.addLibraryVersion(new File(resultFile), libraryVersion);
+    }
+}
@@ -0,0 +1,88 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Envelope;
+import io.appform.dropwizard.actors.base.Handler;
+import io.appform.dropwizard.actors.exceptionhandler.config.SidelineConfig;
+import io.appform.dropwizard.actors.exceptionhandler.handlers.MessageSidelineHandler;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.retry.config.CountLimitedFixedWaitRetryConfig;
+import io.appform.dropwizard.actors.retry.config.NoRetryConfig;
+import io.appform.dropwizard.actors.retry.impl.CountLimitedFixedWaitRetryStrategy;
+import io.appform.dropwizard.actors.retry.impl.NoRetryStrategy;
+import io.appform.dropwizard.actors.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.appform.dropwizard.actors.common.Constants.MESSAGE_EXPIRY_TEXT;
+import static io.appform.dropwizard.actors.common.Constants.MESSAGE_PUBLISHED_TEXT;
+
+/**
+ * {@link Handler#handleDelivery}: delivery count and expiry checks, JSON deserialization, the retry wrapper and the
+ * ack, with the broker replaced by a stub channel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class HandleDeliveryBenchmark {
+
+    @Param({"128", "4096"})
+    private int payloadSize;
+
+    @Param({"false", "true"})
+    private boolean retried;
+
+    private final LongAdder operations = new LongAdder();
+    private Handler<BenchmarkMessage> handler;
+    private Envelope envelope;
+    private AMQP.BasicProperties properties;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        handler = new Handler<>(StubChannels.channel(operations), mapper, BenchmarkMessage.class, 1,
+                                t -> false,
+                                retried
+                                ? new CountLimitedFixedWaitRetryStrategy(new CountLimitedFixedWaitRetryConfig())
+                                : new NoRetryStrategy(new NoRetryConfig()),
+                                new MessageSidelineHandler(new SidelineConfig()),
+                                (message, metadata) -> true,
+                                (message, metadata) -> true,
+                                0,
+                                new ActorMetrics(new MetricRegistry(), "benchmark.HANDLE", 0),
+                                -1,
+                                Tracer.disabled());
+        envelope = new Envelope(1, false, "benchmark.exchange", "benchmark.HANDLE");
+        properties = new AMQP.BasicProperties.Builder()
+                .deliveryMode(2)
+                .headers(ImmutableMap.of(MESSAGE_PUBLISHED_TEXT, System.currentTimeMillis(),
+                                         MESSAGE_EXPIRY_TEXT, Long.MAX_VALUE))
+                .build();
+        body = mapper.writeValueAsBytes(BenchmarkMessage.ofSize(payloadSize));
+    }
+
+    @Benchmark
+    public long handleDelivery() throws Exception {
+        handler.handleDelivery("benchmark", envelope, properties, body);
+        return operations.sum();
+    }
+}
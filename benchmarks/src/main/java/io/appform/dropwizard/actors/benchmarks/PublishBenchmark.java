@@ -0,0 +1,60 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link UnmanagedPublisher#publish(Object)}: shard routing, property enrichment and JSON serialization, with the
+ * broker replaced by a stub channel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class PublishBenchmark {
+
+    @Param({"128", "4096"})
+    private int payloadSize;
+
+    @Param({"0", "8"})
+    private int shardCount;
+
+    private final LongAdder operations = new LongAdder();
+    private UnmanagedPublisher<BenchmarkMessage> publisher;
+    private BenchmarkMessage message;
+
+    @Setup
+    public void setup() {
+        final ActorConfig config = ActorConfig.builder()
+                .exchange("benchmark.exchange")
+                .prefix("benchmark")
+                .shardCount(shardCount == 0 ? null : shardCount)
+                .build();
+        publisher = new UnmanagedPublisher<>("PUBLISH", config, new StubConnection(StubChannels.channel(operations)),
+                                             new ObjectMapper());
+        message = BenchmarkMessage.ofSize(payloadSize);
+    }
+
+    @Benchmark
+    public long publish() throws Exception {
+        publisher.publish(message);
+        return operations.sum();
+    }
+}
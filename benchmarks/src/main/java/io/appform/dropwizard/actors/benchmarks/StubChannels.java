@@ -0,0 +1,43 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.rabbitmq.client.Channel;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Channels that accept everything the publish and consume paths do and talk to no broker
+ */
+@UtilityClass
+public class StubChannels {
+
+    /**
+     * @param operations Incremented for every publish, ack and reject, so the work cannot be optimized away
+     * @return A channel with no broker behind it
+     */
+    public Channel channel(final LongAdder operations) {
+        return (Channel) Proxy.newProxyInstance(
+                Channel.class.getClassLoader(), new Class[]{Channel.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "basicPublish":
+                        case "basicAck":
+                        case "basicReject":
+                            operations.increment();
+                            return null;
+                        case "isOpen":
+                            return true;
+                        case "getChannelNumber":
+                            return 1;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "StubChannel";
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
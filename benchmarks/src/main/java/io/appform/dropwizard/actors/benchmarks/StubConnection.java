@@ -0,0 +1,36 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.rabbitmq.client.Channel;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.ChannelPool;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+
+/**
+ * A connection that hands out a single stub channel and is never started
+ */
+public class StubConnection extends RMQConnection {
+    private final Channel channel;
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    public StubConnection(final Channel channel) {
+        super("benchmark", new RMQConfig(), null, null, TtlConfig.builder().build());
+        this.channel = channel;
+    }
+
+    @Override
+    public <T> T withChannel(ChannelPool.ChannelFunction<T> function) throws Exception {
+        return function.apply(channel);
+    }
+
+    @Override
+    public Channel newChannel() {
+        return channel;
+    }
+
+    @Override
+    public MetricRegistry metrics() {
+        return metricRegistry;
+    }
+}
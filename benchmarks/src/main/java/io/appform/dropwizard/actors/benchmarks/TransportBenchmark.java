@@ -0,0 +1,97 @@
+package io.appform.dropwizard.actors.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.MessageProperties;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.config.Broker;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.config.TransportConfig;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.dropwizard.setup.Environment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing through the channel pool over the blocking and NIO transports. Needs a broker, so it is not part of
+ * the default run:
+ * <pre>
+ *     java -jar benchmarks.jar results.json TransportBenchmark -p host=localhost
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class TransportBenchmark {
+    private static final String QUEUE = "benchmark.transport";
+
+    @Param("localhost")
+    private String host;
+
+    @Param("5672")
+    private int port;
+
+    @Param({"false", "true"})
+    private boolean nio;
+
+    @Param({"128", "4096"})
+    private int payloadSize;
+
+    private ExecutorService executorService;
+    private RMQConnection connection;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        final RMQConfig config = RMQConfig.builder()
+                .brokers(Collections.singletonList(new Broker(host, port)))
+                .userName("guest")
+                .password("guest")
+                .virtualHost("/")
+                .threadPoolSize(1)
+                .transport(TransportConfig.builder()
+                                   .nio(nio)
+                                   .build())
+                .build();
+        executorService = Executors.newFixedThreadPool(1);
+        connection = new RMQConnection("benchmark", config, executorService, new Environment("benchmarks"),
+                                       TtlConfig.builder().build());
+        connection.start();
+        connection.withChannel(channel -> channel.queueDeclare(QUEUE, false, false, true,
+                                                               ImmutableMap.of("x-max-length", 10_000)));
+        body = new byte[payloadSize];
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.stop();
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public void publish() throws Exception {
+        connection.withChannel(channel -> {
+            channel.basicPublish("", QUEUE, MessageProperties.MINIMAL_BASIC, body);
+            return null;
+        });
+    }
+}
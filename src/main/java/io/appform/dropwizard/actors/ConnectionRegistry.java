@@ -3,8 +3,10 @@ package io.appform.dropwizard.actors;
 import io.appform.dropwizard.actors.common.Constants;
 import io.appform.dropwizard.actors.common.RabbitmqActorException;
 import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.ChannelDistribution;
 import io.appform.dropwizard.actors.connectivity.ConnectionConfig;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.metrics.LatencyTracker;
 import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Environment;
 import lombok.Data;
@@ -12,9 +14,12 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Data
@@ -43,14 +48,29 @@ public class ConnectionRegistry implements Managed {
     }
 
     public RMQConnection createOrGet(String connectionName, int threadPoolSize) {
-        return connections.computeIfAbsent(connectionName, connection -> {
-            log.info(String.format("Creating new RMQ connection with name [%s] having [%d] threads", connection,
-                    threadPoolSize));
+        val configuredConnection = configuredConnection(connectionName);
+        return createOrGet(ConnectionConfig.builder()
+                                   .name(connectionName)
+                                   .threadPoolSize(threadPoolSize)
+                                   .connectionPoolSize(configuredConnection
+                                                               .map(ConnectionConfig::getConnectionPoolSize)
+                                                               .orElse(1))
+                                   .channelDistribution(configuredConnection
+                                                                .map(ConnectionConfig::getChannelDistribution)
+                                                                .orElse(ChannelDistribution.LEAST_CHANNELS))
+                                   .build());
+    }
+
+    public RMQConnection createOrGet(ConnectionConfig connectionConfig) {
+        return connections.computeIfAbsent(connectionConfig.getName(), connection -> {
+            log.info(String.format(
+                    "Creating new RMQ connection with name [%s] having [%d] threads and [%d] pooled connections",
+                    connection, connectionConfig.getThreadPoolSize(), connectionConfig.getConnectionPoolSize()));
             val rmqConnection = new RMQConnection(
-                    connection,
+                    connectionConfig,
                     rmqConfig,
                     executorServiceProvider.newFixedThreadPool(String.format("rmqconnection-%s", connection),
-                            threadPoolSize),
+                            connectionConfig.getThreadPoolSize()),
                     environment, ttlConfig);
             try {
                 rmqConnection.start();
@@ -62,25 +82,49 @@ public class ConnectionRegistry implements Managed {
         });
     }
 
+    /**
+     * @return Latency trackers of the actors on all connections
+     */
+    public List<LatencyTracker> latencyTrackers() {
+        return connections.values()
+                .stream()
+                .flatMap(connection -> connection.latencyTrackers().all().stream())
+                .collect(Collectors.toList());
+    }
+
     private int determineThreadPoolSize(String connectionName) {
         if (Objects.equals(connectionName, Constants.DEFAULT_CONNECTION_NAME)) {
             return rmqConfig.getThreadPoolSize();
         }
 
+        return configuredConnection(connectionName)
+                .map(ConnectionConfig::getThreadPoolSize)
+                .orElse(Constants.DEFAULT_THREADS_PER_CONNECTION);
+    }
+
+    private Optional<ConnectionConfig> configuredConnection(String connectionName) {
         if (rmqConfig.getConnections() == null) {
-            return Constants.DEFAULT_THREADS_PER_CONNECTION;
+            return Optional.empty();
         }
-
         return rmqConfig.getConnections().stream()
                 .filter(x -> Objects.equals(x.getName(), connectionName))
-                .findAny()
-                .map(ConnectionConfig::getThreadPoolSize)
-                .orElse(Constants.DEFAULT_THREADS_PER_CONNECTION);
+                .findAny();
     }
 
+    /*
+        Actors are created before the registry starts, so their planned topologies are declared in one batch here.
+        A failed batch is not fatal, each actor declares its own topology when it starts and reports its own errors.
+     */
     @Override
     public void start() {
-
+        connections.forEach((name, connection) -> {
+            try {
+                connection.declarePlanned();
+            } catch (Exception e) {
+                log.warn("Could not declare planned topology on connection [{}], actors will declare their own: {}",
+                         name, e.getMessage());
+            }
+        });
     }
 
     @Override
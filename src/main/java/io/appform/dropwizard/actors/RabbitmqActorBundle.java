@@ -17,9 +17,12 @@
 package io.appform.dropwizard.actors;
 
 import com.google.common.base.Preconditions;
+import io.appform.dropwizard.actors.bench.RabbitmqBenchmarkCommand;
 import io.appform.dropwizard.actors.common.Constants;
 import io.appform.dropwizard.actors.config.RMQConfig;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.metrics.InFlightTask;
+import io.appform.dropwizard.actors.metrics.LatencyReportTask;
 import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.setup.Bootstrap;
@@ -54,13 +57,15 @@ public abstract class RabbitmqActorBundle<T extends Configuration> implements Co
         this.connectionRegistry = new ConnectionRegistry(environment, executorServiceProvider, rmqConfig,
                 ttlConfig == null ? TtlConfig.builder().build(): ttlConfig);
         environment.lifecycle().manage(connectionRegistry);
+        environment.admin().addTask(new LatencyReportTask(connectionRegistry::latencyTrackers));
+        environment.admin().addTask(new InFlightTask());
     }
 
     protected abstract TtlConfig ttlConfig();
 
     @Override
     public void initialize(Bootstrap<?> bootstrap) {
-
+        bootstrap.addCommand(new RabbitmqBenchmarkCommand<>(this, this::getConfig));
     }
 
     public RMQConnection getConnection() {
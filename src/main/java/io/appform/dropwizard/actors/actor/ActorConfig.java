@@ -17,9 +17,11 @@
 package io.appform.dropwizard.actors.actor;
 
 import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.dedup.DeduplicationConfig;
 import io.appform.dropwizard.actors.exceptionhandler.config.ExceptionHandlerConfig;
 import io.appform.dropwizard.actors.retry.config.NoRetryConfig;
 import io.appform.dropwizard.actors.retry.config.RetryConfig;
+import io.dropwizard.util.Duration;
 import io.dropwizard.validation.ValidationMethod;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -58,9 +60,51 @@ public class ActorConfig {
     @Builder.Default
     private int maxPriority = 10;
 
+    /**
+     * Type of the main, shard, sideline and TTL queues. Streams get no sideline queue. The type of an existing queue
+     * cannot be changed, it has to be deleted or the actor moved to a new prefix.
+     */
+    @NotNull
+    @Builder.Default
+    private QueueType queueType = QueueType.CLASSIC;
+
+    /**
+     * Keeps messages of classic queues on disk instead of in memory, keeping broker memory flat under large
+     * backlogs. Ignored from RabbitMQ 3.12 on, where classic queues always behave this way.
+     */
+    @Builder.Default
+    private boolean lazy = false;
+
+    /**
+     * Storage version of classic queues, 2 for the more efficient CQv2 storage. Broker default if not set.
+     */
+    @Min(1)
+    @Max(2)
+    private Integer classicQueueVersion;
+
+    /**
+     * Quorum queues drop or dead letter messages returned to them more than this many times. Unlimited if not set.
+     */
+    @Min(1)
+    private Integer quorumDeliveryLimit;
+
+    /**
+     * Number of replicas of new quorum queues. All cluster nodes if not set.
+     */
+    @Min(1)
+    private Integer quorumInitialGroupSize;
+
     @Builder.Default
     private DelayType delayType = DelayType.DELAYED;
 
+    /**
+     * Splits TTL based delays over TTL queues with fixed delays. All delays share a single TTL queue with per message
+     * expiry if not set, where messages wait for all longer delayed messages published before them. Not supported for
+     * sharded actors, as buckets dead letter to a single routing key.
+     */
+    @Valid
+    private DelayBucketsConfig delayBuckets;
+
     @NotNull
     @NotEmpty
     @Builder.Default
@@ -96,10 +140,82 @@ public class ActorConfig {
     @Max(32)
     private Integer shardCount;
 
+    /**
+     * Messages delivered more than this many times are sent to the sideline queue without being handled.
+     * Classic queues only report whether a message was redelivered, exact counts need quorum queues or
+     * messages that were dead-lettered and moved back.
+     */
+    @Min(1)
+    private Integer maxDeliveries;
+
+    /**
+     * Queue depths are sampled in the background at this interval and pending message counts are served from the
+     * last sample. Pending message counts query the broker on every call if not set.
+     */
+    @Valid
+    private Duration queueDepthSamplingInterval;
+
+    /**
+     * High resolution latency tracking with SLO thresholds. Disabled if not set.
+     */
+    @Valid
+    private LatencyTrackingConfig latencyTracking;
+
+    /**
+     * Hands messages straight to the consumer of this actor when it runs in the same process. Disabled if not set.
+     */
+    @Valid
+    private LocalDeliveryConfig localDelivery;
+
+    /**
+     * Acks redelivered and republished messages that were already processed without handling them. Disabled if
+     * not set.
+     */
+    @Valid
+    private DeduplicationConfig deduplication;
+
     public boolean isSharded() {
         return Objects.nonNull(shardCount);
     }
 
+    public boolean isDeliveryLimited() {
+        return Objects.nonNull(maxDeliveries);
+    }
+
+    public boolean isDeduplicated() {
+        return Objects.nonNull(deduplication);
+    }
+
+    public boolean isLocalDeliveryEnabled() {
+        return Objects.nonNull(localDelivery);
+    }
+
+    public boolean isQueueDepthSampled() {
+        return Objects.nonNull(queueDepthSamplingInterval);
+    }
+
+    @ValidationMethod(message = "Priorities, lazy mode and queue versions are only supported by classic queues.")
+    public boolean isValidClassicQueueOptions() {
+        return queueType == QueueType.CLASSIC
+                || (!priorityQueue && !lazy && Objects.isNull(classicQueueVersion));
+    }
+
+    @ValidationMethod(message = "Delivery limit and initial group size are only supported by quorum queues.")
+    public boolean isValidQuorumQueueOptions() {
+        return queueType == QueueType.QUORUM
+                || (Objects.isNull(quorumDeliveryLimit) && Objects.isNull(quorumInitialGroupSize));
+    }
+
+    @ValidationMethod(message = "Stream queues do not support TTL based delays.")
+    public boolean isValidStreamQueueOptions() {
+        return queueType != QueueType.STREAM || delayType != DelayType.TTL;
+    }
+
+    @ValidationMethod(message = "Delay buckets are not supported for sharded queues.")
+    public boolean isValidDelayBuckets() {
+        return !isSharded() || Objects.isNull(delayBuckets);
+    }
+
     @ValidationMethod(message = "Concurrency should be multiple of shard count for sharded queue.")
     public boolean isValidSharding() {
         return !isSharded() || getConcurrency() % getShardCount() == 0;
@@ -23,18 +23,20 @@ import io.appform.dropwizard.actors.base.UnmanagedConsumer;
 import io.appform.dropwizard.actors.base.UnmanagedPublisher;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
 import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.metrics.QueueDepth;
 import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.ExceptionClassifier;
 import io.dropwizard.lifecycle.Managed;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.apache.commons.lang3.ClassUtils;
 
 import java.util.Collections;
 import java.util.Date;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This is a managed wrapper for {@link UnmanagedBaseActor} this is managed and therefore started by D/W.
@@ -47,6 +49,7 @@ public abstract class BaseActor<Message> implements Managed {
 
     private final UnmanagedBaseActor<Message> actorImpl;
     private final Set<Class<?>> droppedExceptionTypes;
+    private final ExceptionClassifier droppedExceptionClassifier;
 
     protected BaseActor(UnmanagedPublisher<Message> publishActor, Set<Class<?>> droppedExceptionTypes) {
         this(publishActor, null, droppedExceptionTypes);
@@ -61,6 +64,7 @@ public abstract class BaseActor<Message> implements Managed {
                         Set<Class<?>> droppedExceptionTypes) {
         actorImpl = new UnmanagedBaseActor<>(produceActor, consumeActor);
         this.droppedExceptionTypes = droppedExceptionTypes;
+        this.droppedExceptionClassifier = ExceptionClassifier.byType(droppedExceptionTypes);
     }
 
     @Deprecated
@@ -76,6 +80,7 @@ public abstract class BaseActor<Message> implements Managed {
         this.droppedExceptionTypes
                 = null == droppedExceptionTypes
                 ? Collections.emptySet() : droppedExceptionTypes;
+        this.droppedExceptionClassifier = ExceptionClassifier.byType(this.droppedExceptionTypes);
         actorImpl = new UnmanagedBaseActor<>(name, config, connection, mapper, retryStrategyFactory,
                 exceptionHandlingFactory, clazz,
                 this::handle,
@@ -95,6 +100,7 @@ public abstract class BaseActor<Message> implements Managed {
         this.droppedExceptionTypes
                 = null == droppedExceptionTypes
                 ? Collections.emptySet() : droppedExceptionTypes;
+        this.droppedExceptionClassifier = ExceptionClassifier.byType(this.droppedExceptionTypes);
         actorImpl = new UnmanagedBaseActor<>(name, config, connectionRegistry, mapper, retryStrategyFactory,
                 exceptionHandlingFactory, clazz,
                 this::handle,
@@ -124,10 +130,11 @@ public abstract class BaseActor<Message> implements Managed {
         throw new UnsupportedOperationException("Either implement this method, or implement the handle(message, messageMetadata) method");
     }
 
+    /*
+        Exceptions are dropped if they, or any exception in their cause chain, are of a dropped type.
+     */
     protected boolean isExceptionIgnorable(Throwable t) {
-        return droppedExceptionTypes
-                .stream()
-                .anyMatch(exceptionType -> ClassUtils.isAssignable(t.getClass(), exceptionType));
+        return droppedExceptionClassifier.matches(t);
     }
 
     public final void publishWithDelay(final Message message, final long delayMilliseconds) throws Exception {
@@ -139,6 +146,9 @@ public abstract class BaseActor<Message> implements Managed {
     }
 
     public final void publish(final Message message) throws Exception {
+        if (actorImpl.deliverLocally(message)) {
+            return;
+        }
         val properties = new AMQP.BasicProperties.Builder()
                 .deliveryMode(2)
                 .timestamp(new Date())
@@ -150,6 +160,12 @@ public abstract class BaseActor<Message> implements Managed {
         actorImpl.publish(message, properties);
     }
 
+    public final <Reply> CompletableFuture<Reply> ask(final Message message,
+                                                      final Class<Reply> replyClass,
+                                                      final long timeoutMs) throws Exception {
+        return actorImpl.ask(message, replyClass, timeoutMs);
+    }
+
     public final long pendingMessagesCount() {
         return actorImpl.pendingMessagesCount();
     }
@@ -158,6 +174,10 @@ public abstract class BaseActor<Message> implements Managed {
         return actorImpl.pendingSidelineMessagesCount();
     }
 
+    public final QueueDepth queueDepth() {
+        return actorImpl.queueDepth();
+    }
+
     @Override
     public void start() throws Exception {
         actorImpl.start();
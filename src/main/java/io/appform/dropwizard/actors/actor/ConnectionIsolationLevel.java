@@ -14,6 +14,13 @@ public enum ConnectionIsolationLevel {
         public <T> T accept(ConnectionIsolationVisitor<T> visitor) {
             return visitor.visitShared();
         }
+    },
+
+    DEDICATED {
+        @Override
+        public <T> T accept(ConnectionIsolationVisitor<T> visitor) {
+            return visitor.visitDedicated();
+        }
     };
 
     public abstract <T> T accept(ConnectionIsolationVisitor<T> visitor);
@@ -23,6 +30,8 @@ public enum ConnectionIsolationLevel {
         T visitShared();
 
         T visitDefault();
+
+        T visitDedicated();
     }
 
 }
@@ -0,0 +1,48 @@
+package io.appform.dropwizard.actors.actor;
+
+import io.dropwizard.util.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Delay buckets for {@link DelayType#TTL}. Every bucket is a TTL queue with a fixed queue level TTL, so messages in a
+ * bucket expire in the order they were published and a short delay never waits behind a long one. Buckets are powers
+ * of two from {@link #minDelay} up to {@link #maxDelay} unless {@link #tiers} are configured.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DelayBucketsConfig {
+
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration minDelay = Duration.seconds(1);
+
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration maxDelay = Duration.hours(1);
+
+    /**
+     * Explicit bucket delays, replacing the powers of two
+     */
+    @Valid
+    private List<Duration> tiers;
+
+    /**
+     * Messages due within this time are delivered instead of being delayed further, and delays are rounded up to a
+     * bucket this much longer
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration tolerance = Duration.milliseconds(100);
+}
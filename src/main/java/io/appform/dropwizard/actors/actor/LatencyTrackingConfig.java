@@ -0,0 +1,59 @@
+package io.appform.dropwizard.actors.actor;
+
+import io.dropwizard.util.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * High resolution latency tracking for an actor. Latencies are recorded into HdrHistograms that are rotated every
+ * {@link #interval}. An SLO is breached if the {@link #percentile} of the last interval reaches its threshold.
+ * Thresholds that are not set are not checked.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LatencyTrackingConfig {
+
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration interval = Duration.minutes(1);
+
+    @Min(1)
+    @Max(5)
+    @Builder.Default
+    private int significantDigits = 2;
+
+    @DecimalMin("50.0")
+    @DecimalMax("100.0")
+    @Builder.Default
+    private double percentile = 99.0;
+
+    /**
+     * Threshold for the time taken by the handler, including retries
+     */
+    @Valid
+    private Duration handlerLatency;
+
+    /**
+     * Threshold for the time between publish and delivery
+     */
+    @Valid
+    private Duration queueDwellTime;
+
+    /**
+     * Threshold for the time taken to publish
+     */
+    @Valid
+    private Duration publishLatency;
+}
@@ -0,0 +1,40 @@
+package io.appform.dropwizard.actors.actor;
+
+import io.dropwizard.util.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * In-process delivery for actors published and consumed in the same JVM. Messages published without properties are
+ * handed to the local consumer without going through the broker while it is running and its queue has room, and are
+ * published to the broker otherwise. Locally delivered messages are held in memory only, so delivery is at most once:
+ * they are lost if the process dies and are dropped instead of being sidelined if handling fails. Local and broker
+ * deliveries share the concurrency of the actor.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocalDeliveryConfig {
+
+    /**
+     * Messages waiting for a local handler. Publishes go to the broker while the queue is full.
+     */
+    @Min(1)
+    @Builder.Default
+    private int queueSize = 1024;
+
+    /**
+     * Time allowed for queued messages to be handled when the consumer is stopped
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration drainTimeout = Duration.seconds(10);
+}
@@ -1,5 +1,6 @@
 package io.appform.dropwizard.actors.actor;
 
+import io.appform.dropwizard.actors.tracing.TraceContext;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -10,4 +11,31 @@ public final class MessageMetadata {
     private boolean redelivered;
     private long delayInMs;
 
+    /**
+     * Number of times this message has been delivered, including the current delivery
+     */
+    private long deliveryCount;
+
+    /**
+     * Trace context of the handling of this message, null if the message is not traced
+     */
+    private TraceContext traceContext;
+
+    /**
+     * Offset of this message in the stream it was consumed from, -1 for messages consumed from queues
+     */
+    private long streamOffset;
+
+    public MessageMetadata(boolean redelivered, long delayInMs) {
+        this(redelivered, delayInMs, redelivered ? 2 : 1);
+    }
+
+    public MessageMetadata(boolean redelivered, long delayInMs, long deliveryCount) {
+        this(redelivered, delayInMs, deliveryCount, null);
+    }
+
+    public MessageMetadata(boolean redelivered, long delayInMs, long deliveryCount, TraceContext traceContext) {
+        this(redelivered, delayInMs, deliveryCount, traceContext, -1);
+    }
+
 }
@@ -0,0 +1,32 @@
+package io.appform.dropwizard.actors.actor;
+
+import lombok.Getter;
+
+/**
+ * Type of the queues declared for an actor, set through the {@code x-queue-type} argument
+ */
+public enum QueueType {
+    /**
+     * Single node queues, optionally {@link ActorConfig#lazy lazy} or on a specific
+     * {@link ActorConfig#classicQueueVersion version}
+     */
+    CLASSIC("classic"),
+    /**
+     * Raft replicated queues. They track delivery counts and do not support priorities or lazy mode.
+     */
+    QUORUM("quorum"),
+    /**
+     * Replicated append only logs. Messages are not removed on ack and cannot be dead lettered, so streams do not
+     * support sidelining, TTL based delays, priorities or queue expiry. No sideline exchange or queue is declared
+     * for them. They are consumed with a {@link io.appform.dropwizard.actors.base.StreamConsumer}, not an actor's
+     * own consumer.
+     */
+    STREAM("stream");
+
+    @Getter
+    private final String argument;
+
+    QueueType(String argument) {
+        this.argument = argument;
+    }
+}
@@ -21,13 +21,17 @@ import com.rabbitmq.client.AMQP;
 import io.appform.dropwizard.actors.ConnectionRegistry;
 import io.appform.dropwizard.actors.base.UnmanagedConsumer;
 import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
 import io.appform.dropwizard.actors.common.Constants;
+import io.appform.dropwizard.actors.connectivity.ConnectionConfig;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
 import io.appform.dropwizard.actors.connectivity.strategy.ConnectionIsolationStrategy;
 import io.appform.dropwizard.actors.connectivity.strategy.ConnectionIsolationStrategyVisitor;
+import io.appform.dropwizard.actors.connectivity.strategy.DedicatedConnectionStrategy;
 import io.appform.dropwizard.actors.connectivity.strategy.DefaultConnectionStrategy;
 import io.appform.dropwizard.actors.connectivity.strategy.SharedConnectionStrategy;
 import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.metrics.QueueDepth;
 import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -36,6 +40,7 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.NotImplementedException;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static java.util.Objects.isNull;
@@ -88,8 +93,8 @@ public class UnmanagedBaseActor<Message> {
             MessageHandlingFunction<Message, Boolean> handlerFunction,
             MessageHandlingFunction<Message, Boolean> expiredMessageHandlingFunction,
             Function<Throwable, Boolean> errorCheckFunction) {
-        val consumerConnection = connectionRegistry.createOrGet(consumerConnectionName(config.getConsumer()));
-        val producerConnection = connectionRegistry.createOrGet(producerConnectionName(config.getProducer()));
+        val consumerConnection = consumerConnection(name, config.getConsumer(), connectionRegistry);
+        val producerConnection = producerConnection(name, config.getProducer(), connectionRegistry);
         this.publishActor = new UnmanagedPublisher<>(name, config, producerConnection, mapper);
         this.consumeActor = new UnmanagedConsumer<>(
                 name, config, consumerConnection, mapper, retryStrategyFactory, exceptionHandlingFactory, clazz,
@@ -123,13 +128,31 @@ public class UnmanagedBaseActor<Message> {
     }
 
     public final void publish(final Message message) throws Exception {
+        if (deliverLocally(message)) {
+            return;
+        }
         publishActor().publish(message);
     }
 
+    /**
+     * Hands the message straight to the consumer of this actor if local delivery is enabled in its config
+     *
+     * @return false if the message still has to be published to the broker
+     */
+    public final boolean deliverLocally(final Message message) {
+        return nonNull(consumeActor) && consumeActor.deliverLocally(message);
+    }
+
     public final void publish(final Message message, final AMQP.BasicProperties properties) throws Exception {
         publishActor().publish(message, properties);
     }
 
+    public final <Reply> CompletableFuture<Reply> ask(final Message message,
+                                                      final Class<Reply> replyClass,
+                                                      final long timeoutMs) throws Exception {
+        return publishActor().ask(message, replyClass, timeoutMs);
+    }
+
     public final long pendingMessagesCount() {
         return publishActor().pendingMessagesCount();
     }
@@ -138,6 +161,10 @@ public class UnmanagedBaseActor<Message> {
         return publishActor().pendingSidelineMessagesCount();
     }
 
+    public final QueueDepth queueDepth() {
+        return publishActor().queueDepth();
+    }
+
     private UnmanagedPublisher<Message> publishActor() {
         if (isNull(publishActor)) {
             throw new NotImplementedException("PublishActor is not initialized");
@@ -145,38 +172,58 @@ public class UnmanagedBaseActor<Message> {
         return publishActor;
     }
 
-    private String producerConnectionName(ProducerConfig producerConfig) {
+    private RMQConnection producerConnection(String name,
+                                             ProducerConfig producerConfig,
+                                             ConnectionRegistry connectionRegistry) {
         if (producerConfig == null) {
-            return Constants.DEFAULT_CONNECTION_NAME;
+            return connectionRegistry.createOrGet(Constants.DEFAULT_CONNECTION_NAME);
         }
-        return deriveConnectionName(producerConfig.getConnectionIsolationStrategy());
+        return resolveConnection(connectionRegistry, producerConfig.getConnectionIsolationStrategy(),
+                dedicatedConnectionName(name, "producer"));
     }
 
-    private String consumerConnectionName(ConsumerConfig consumerConfig) {
+    private RMQConnection consumerConnection(String name,
+                                             ConsumerConfig consumerConfig,
+                                             ConnectionRegistry connectionRegistry) {
         if (consumerConfig == null) {
-            return Constants.DEFAULT_CONNECTION_NAME;
+            return connectionRegistry.createOrGet(Constants.DEFAULT_CONNECTION_NAME);
         }
-
-        return deriveConnectionName(consumerConfig.getConnectionIsolationStrategy());
+        return resolveConnection(connectionRegistry, consumerConfig.getConnectionIsolationStrategy(),
+                dedicatedConnectionName(name, "consumer"));
     }
 
-    private String deriveConnectionName(ConnectionIsolationStrategy isolationStrategy) {
+    private RMQConnection resolveConnection(ConnectionRegistry connectionRegistry,
+                                            ConnectionIsolationStrategy isolationStrategy,
+                                            String dedicatedConnectionName) {
         if (isolationStrategy == null) {
-            return Constants.DEFAULT_CONNECTION_NAME;
+            return connectionRegistry.createOrGet(Constants.DEFAULT_CONNECTION_NAME);
         }
 
-        return isolationStrategy.accept(new ConnectionIsolationStrategyVisitor<String>() {
+        return isolationStrategy.accept(new ConnectionIsolationStrategyVisitor<RMQConnection>() {
+
+            @Override
+            public RMQConnection visit(SharedConnectionStrategy strategy) {
+                return connectionRegistry.createOrGet(strategy.getName());
+            }
 
             @Override
-            public String visit(SharedConnectionStrategy strategy) {
-                return strategy.getName();
+            public RMQConnection visit(DefaultConnectionStrategy strategy) {
+                return connectionRegistry.createOrGet(Constants.DEFAULT_CONNECTION_NAME);
             }
 
             @Override
-            public String visit(DefaultConnectionStrategy strategy) {
-                return Constants.DEFAULT_CONNECTION_NAME;
+            public RMQConnection visit(DedicatedConnectionStrategy strategy) {
+                return connectionRegistry.createOrGet(ConnectionConfig.builder()
+                                                              .name(dedicatedConnectionName)
+                                                              .threadPoolSize(strategy.getThreadPoolSize())
+                                                              .connectionPoolSize(strategy.getConnectionPoolSize())
+                                                              .build());
             }
 
         });
     }
+
+    private static String dedicatedConnectionName(String name, String role) {
+        return String.format("dedicated-%s-%s", NamingUtils.prefixWithNamespace(name), role);
+    }
 }
@@ -0,0 +1,114 @@
+package io.appform.dropwizard.actors.base;
+
+import com.google.common.base.Preconditions;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.DelayBucketsConfig;
+import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.dropwizard.util.Duration;
+import lombok.Getter;
+import lombok.Value;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Routes TTL delayed messages of an actor through its delay buckets. A message is published with its due time to the
+ * longest bucket that does not overshoot it. Once the bucket expires it, the message is dead lettered to the actor
+ * queue, and the consumer routes it to the next bucket until it is due. Delays shorter than the shortest bucket wait
+ * in the shortest bucket with a per message expiry, which is the only place a message can wait behind another.
+ * <p>
+ * The due time is absolute and taken from the clock of the publisher, while consumers compare it with their own
+ * clock. Clock skew between them moves delivery earlier or later by the same amount.
+ */
+public class DelayBuckets {
+
+    /**
+     * Bucket a message waits in next
+     */
+    @Value
+    public static class Route {
+        String routingKey;
+        /**
+         * Per message expiry in milliseconds, null if the message waits for the whole bucket
+         */
+        String expiration;
+    }
+
+    @Getter
+    private final String exchange;
+    private final String queueName;
+    @Getter
+    private final List<Long> tiers;
+    private final long toleranceMs;
+
+    private DelayBuckets(String exchange, String queueName, List<Long> tiers, long toleranceMs) {
+        this.exchange = exchange;
+        this.queueName = queueName;
+        this.tiers = tiers;
+        this.toleranceMs = toleranceMs;
+    }
+
+    /**
+     * @return Buckets of the actor, null if it does not use TTL delays with buckets
+     * @throws IllegalArgumentException if the actor is sharded
+     */
+    public static DelayBuckets forActor(final String queueName, final ActorConfig config) {
+        if (config.getDelayType() != DelayType.TTL || null == config.getDelayBuckets()) {
+            return null;
+        }
+        Preconditions.checkArgument(config.isValidDelayBuckets(),
+                                    "Delay buckets are not supported for sharded actor %s", queueName);
+        val bucketsConfig = config.getDelayBuckets();
+        return new DelayBuckets(NamingUtils.getTtl(config.getExchange()), queueName, tiers(bucketsConfig),
+                                bucketsConfig.getTolerance().toMilliseconds());
+    }
+
+    /**
+     * Name of the queue of the bucket, also its routing key on the TTL exchange
+     */
+    public String bucketQueue(final long tierMs) {
+        return String.format("%s_%d", NamingUtils.getTtl(queueName), tierMs);
+    }
+
+    /**
+     * @param remainingMs Time until the message is due
+     * @return Bucket to wait in, null if the message is due
+     */
+    public Route route(final long remainingMs) {
+        if (remainingMs <= toleranceMs) {
+            return null;
+        }
+        for (int i = tiers.size() - 1; i >= 0; i--) {
+            val tier = tiers.get(i);
+            if (tier <= remainingMs + toleranceMs) {
+                return new Route(bucketQueue(tier), null);
+            }
+        }
+        return new Route(bucketQueue(tiers.get(0)), String.valueOf(remainingMs));
+    }
+
+    private static List<Long> tiers(final DelayBucketsConfig config) {
+        if (null != config.getTiers() && !config.getTiers().isEmpty()) {
+            return config.getTiers().stream()
+                    .filter(Objects::nonNull)
+                    .map(Duration::toMilliseconds)
+                    .filter(tier -> tier > 0)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        val maxDelayMs = config.getMaxDelay().toMilliseconds();
+        val tiers = new ArrayList<Long>();
+        for (long tier = Math.max(1, config.getMinDelay().toMilliseconds()); tier <= maxDelayMs; tier *= 2) {
+            tiers.add(tier);
+        }
+        if (tiers.isEmpty()) {
+            tiers.add(Math.max(1, config.getMinDelay().toMilliseconds()));
+        }
+        return tiers;
+    }
+}
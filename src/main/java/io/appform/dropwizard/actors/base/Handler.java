@@ -2,14 +2,27 @@ package io.appform.dropwizard.actors.base;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
 import io.appform.dropwizard.actors.actor.MessageMetadata;
+import io.appform.dropwizard.actors.base.utils.DeliveryCountUtils;
+import io.appform.dropwizard.actors.dedup.Deduplicator;
 import io.appform.dropwizard.actors.exceptionhandler.handlers.ExceptionHandler;
+import io.appform.dropwizard.actors.jfr.AcknowledgementEvent;
+import io.appform.dropwizard.actors.jfr.ActorEvents;
+import io.appform.dropwizard.actors.jfr.DeliveryEvent;
+import io.appform.dropwizard.actors.jfr.HandlerAttemptEvent;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.metrics.InFlightSlot;
 import io.appform.dropwizard.actors.retry.RetryStrategy;
+import io.appform.dropwizard.actors.tracing.ConsumerSpan;
+import io.appform.dropwizard.actors.tracing.TraceContext;
+import io.appform.dropwizard.actors.tracing.TraceScope;
+import io.appform.dropwizard.actors.tracing.Tracer;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -17,11 +30,16 @@ import lombok.val;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import static io.appform.dropwizard.actors.common.Constants.MESSAGE_DUE_TEXT;
 import static io.appform.dropwizard.actors.common.Constants.MESSAGE_EXPIRY_TEXT;
 import static io.appform.dropwizard.actors.common.Constants.MESSAGE_PUBLISHED_TEXT;
+import static io.appform.dropwizard.actors.common.Constants.REPLY_ERROR_HEADER;
 
 @Slf4j
 public class Handler<Message> extends DefaultConsumer {
@@ -33,6 +51,18 @@ public class Handler<Message> extends DefaultConsumer {
     private final ExceptionHandler exceptionHandler;
     private final MessageHandlingFunction<Message, Boolean> messageHandlingFunction;
     private final MessageHandlingFunction<Message, Boolean> expiredMessageHandlingFunction;
+    private final long maxDeliveries;
+    private final ActorMetrics metrics;
+    private final int shardId;
+    private final Tracer tracer;
+    /*
+        Deliveries on a channel are handled one at a time, so per delivery state can live in fields
+     */
+    private int attempt;
+    private long queueWaitMs;
+    private Object reply;
+    private boolean replyReady;
+    private String deduplicationKey;
 
     @Getter
     private volatile boolean running;
@@ -41,6 +71,38 @@ public class Handler<Message> extends DefaultConsumer {
     @Setter
     private String tag;
 
+    @Getter
+    @Setter
+    private InFlightSlot inFlightSlot;
+
+    /**
+     * Set for consumers answering requests. Its result is published to the reply-to address of the request before
+     * the request is acked.
+     */
+    @Setter
+    private MessageHandlingFunction<Message, ?> replyFunction;
+
+    /**
+     * Set for consumers with deduplication. Duplicates are acked without being deserialized or handled. Duplicate
+     * requests get an error reply, as the reply to the original is not kept.
+     */
+    @Setter
+    private Deduplicator deduplicator;
+
+    /**
+     * Set for actors with TTL delay buckets. Messages dead lettered by a bucket before they are due are moved to the
+     * next bucket instead of being handled.
+     */
+    @Setter
+    private DelayBuckets delayBuckets;
+
+    /**
+     * Set for consumers with local delivery. Shared with the local workers, so broker and local deliveries together
+     * are handled by at most as many threads as the consumer has channels.
+     */
+    @Setter
+    private Semaphore handlingPermits;
+
     public Handler(final Channel channel,
                    final ObjectMapper mapper,
                    final Class<? extends Message> clazz,
@@ -49,7 +111,11 @@ public class Handler<Message> extends DefaultConsumer {
                    final RetryStrategy retryStrategy,
                    final ExceptionHandler exceptionHandler,
                    final MessageHandlingFunction<Message, Boolean> messageHandlingFunction,
-                   final MessageHandlingFunction<Message, Boolean> expiredMessageHandlingFunction) throws Exception {
+                   final MessageHandlingFunction<Message, Boolean> expiredMessageHandlingFunction,
+                   final long maxDeliveries,
+                   final ActorMetrics metrics,
+                   final int shardId,
+                   final Tracer tracer) throws Exception {
         super(channel);
         this.mapper = mapper;
         this.clazz = clazz;
@@ -59,16 +125,40 @@ public class Handler<Message> extends DefaultConsumer {
         this.exceptionHandler = exceptionHandler;
         this.messageHandlingFunction = messageHandlingFunction;
         this.expiredMessageHandlingFunction = expiredMessageHandlingFunction;
+        this.maxDeliveries = maxDeliveries;
+        this.metrics = metrics;
+        this.shardId = shardId;
+        this.tracer = tracer;
     }
 
     private boolean handle(final Message message, final MessageMetadata messageMetadata, final boolean expired) throws Exception {
         running = true;
-        try {
-            return expired
-                    ? expiredMessageHandlingFunction.apply(message, messageMetadata)
-                    : messageHandlingFunction.apply(message, messageMetadata);
+        val event = new HandlerAttemptEvent();
+        event.begin();
+        String outcome = ActorEvents.EXCEPTION;
+        try (TraceScope ignored = TraceScope.open(messageMetadata.getTraceContext())) {
+            final boolean handled;
+            if (expired) {
+                handled = expiredMessageHandlingFunction.apply(message, messageMetadata);
+            } else if (null != replyFunction) {
+                reply = replyFunction.apply(message, messageMetadata);
+                replyReady = true;
+                handled = true;
+            } else {
+                handled = messageHandlingFunction.apply(message, messageMetadata);
+            }
+            outcome = handled ? ActorEvents.SUCCEEDED : ActorEvents.FAILED;
+            return handled;
         } finally {
             running = false;
+            attempt++;
+            if (event.shouldCommit()) {
+                event.actor = metrics.getQueueName();
+                event.shard = shardId;
+                event.attempt = attempt;
+                event.outcome = outcome;
+                event.commit();
+            }
         }
     }
 
@@ -77,35 +167,235 @@ public class Handler<Message> extends DefaultConsumer {
                                final Envelope envelope,
                                final AMQP.BasicProperties properties,
                                final byte[] body) throws IOException {
+        if (null != handlingPermits) {
+            try {
+                handlingPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting to handle delivery " + envelope.getDeliveryTag(), e);
+            }
+        }
+        if (null != inFlightSlot) {
+            inFlightSlot.started(envelope.getDeliveryTag());
+        }
         try {
-            val handleCallable = getHandleCallable(envelope, properties, body);
+            handleDelivery(envelope, properties, body);
+        } finally {
+            if (null != inFlightSlot) {
+                inFlightSlot.finished();
+            }
+            if (null != handlingPermits) {
+                handlingPermits.release();
+            }
+        }
+    }
+
+    private void handleDelivery(final Envelope envelope,
+                                final AMQP.BasicProperties properties,
+                                final byte[] body) throws IOException {
+        val event = new DeliveryEvent();
+        event.begin();
+        val deliveryCount = DeliveryCountUtils.deliveryCount(envelope, properties);
+        if (defer(properties, body)) {
+            ack(envelope, ActorEvents.DEFERRED);
+            commit(event, body, deliveryCount, -1, ActorEvents.DEFERRED);
+            return;
+        }
+        deduplicationKey = null == deduplicator ? null : deduplicator.key(properties);
+        if (null != deduplicationKey && deduplicator.isDuplicate(deduplicationKey)) {
+            log.debug("Acking duplicate message with delivery tag {} and key {}", envelope.getDeliveryTag(),
+                      deduplicationKey);
+            replyError(properties, "Duplicate of an already handled request");
+            ack(envelope, ActorEvents.DUPLICATE);
+            commit(event, body, deliveryCount, -1, ActorEvents.DUPLICATE);
+            return;
+        }
+        if (maxDeliveries > 0 && deliveryCount > maxDeliveries) {
+            log.warn("Sidelining message with delivery tag {} delivered {} times, max allowed deliveries are {}",
+                    envelope.getDeliveryTag(), deliveryCount, maxDeliveries);
+            replyError(properties, "Delivery limit exceeded");
+            reject(envelope, ActorEvents.SIDELINED);
+            metrics.consumed(shardId, -1);
+            metrics.sidelined();
+            commit(event, body, deliveryCount, -1, ActorEvents.SIDELINED);
+            return;
+        }
+        val span = tracer.incoming(properties.getHeaders());
+        val start = System.nanoTime();
+        attempt = 0;
+        queueWaitMs = -1;
+        reply = null;
+        replyReady = false;
+        String outcome = ActorEvents.REJECTED;
+        try {
+            val handleCallable = getHandleCallable(envelope, properties, body, deliveryCount, span);
 
             if (retryStrategy.execute(handleCallable)) {
-                getChannel().basicAck(envelope.getDeliveryTag(), false);
+                reply(properties);
+                outcome = ack(envelope);
             } else {
-                getChannel().basicReject(envelope.getDeliveryTag(), false);
+                replyError(properties, "Request was rejected");
+                outcome = reject(envelope, ActorEvents.REJECTED);
             }
         } catch (Throwable t) {
             log.error("Error processing message...", t);
+            replyError(properties, String.valueOf(Throwables.getRootCause(t).getMessage()));
             if (errorCheckFunction.apply(t)) {
                 log.warn("Acked message due to exception: ", t);
-                getChannel().basicAck(envelope.getDeliveryTag(), false);
+                outcome = ack(envelope);
             } else if (exceptionHandler.handle()) {
                 log.warn("Acked message due to exception handling strategy: ", t);
-                getChannel().basicAck(envelope.getDeliveryTag(), false);
+                outcome = ack(envelope);
             } else {
-                getChannel().basicReject(envelope.getDeliveryTag(), false);
+                outcome = reject(envelope, ActorEvents.REJECTED);
+            }
+        } finally {
+            val elapsedNanos = System.nanoTime() - start;
+            metrics.handled(elapsedNanos);
+            commit(event, body, deliveryCount, queueWaitMs, outcome);
+            if (null != span) {
+                span.setHandlingNanos(elapsedNanos);
+                metrics.traced(span);
+                log.debug("Trace {} span {} parent {}: queue wait {} ms, deserialization {} us, handling {} us",
+                          span.getContext().getTraceId(), span.getContext().getSpanId(),
+                          span.getContext().getParentSpanId(), span.getQueueWaitMs(),
+                          TimeUnit.NANOSECONDS.toMicros(span.getDeserializationNanos()),
+                          TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
             }
         }
     }
 
+    /*
+        Republishes a message that is not due yet to its next bucket. Published on the consuming channel before the
+        ack, so a failure leaves the message unacked and it is redelivered.
+     */
+    private boolean defer(final AMQP.BasicProperties properties, final byte[] body) throws IOException {
+        if (null == delayBuckets || null == properties.getHeaders()) {
+            return false;
+        }
+        val dueAt = properties.getHeaders().get(MESSAGE_DUE_TEXT);
+        if (!(dueAt instanceof Number)) {
+            return false;
+        }
+        val route = delayBuckets.route(((Number) dueAt).longValue() - Instant.now().toEpochMilli());
+        if (null == route) {
+            return false;
+        }
+        getChannel().basicPublish(delayBuckets.getExchange(), route.getRoutingKey(), properties.builder()
+                .expiration(route.getExpiration())
+                .build(), body);
+        return true;
+    }
+
+    private void reply(final AMQP.BasicProperties properties) throws IOException {
+        if (null == replyFunction || null == properties.getReplyTo()) {
+            return;
+        }
+        if (!replyReady) {
+            replyError(properties, "Request expired before it was handled");
+            return;
+        }
+        getChannel().basicPublish("", properties.getReplyTo(), new AMQP.BasicProperties.Builder()
+                .correlationId(properties.getCorrelationId())
+                .build(), mapper.writeValueAsBytes(reply));
+    }
+
+    /*
+        Failing a request is best effort, the requester times out if the error reply is lost
+     */
+    private void replyError(final AMQP.BasicProperties properties, final String error) {
+        if (null == replyFunction || null == properties.getReplyTo()) {
+            return;
+        }
+        try {
+            getChannel().basicPublish("", properties.getReplyTo(), new AMQP.BasicProperties.Builder()
+                    .correlationId(properties.getCorrelationId())
+                    .headers(Collections.singletonMap(REPLY_ERROR_HEADER, error))
+                    .build(), new byte[0]);
+        } catch (Exception e) {
+            log.warn("Could not send error reply for request {}: {}", properties.getCorrelationId(),
+                     e.getMessage());
+        }
+    }
+
+    private String ack(final Envelope envelope) throws IOException {
+        if (null != deduplicationKey) {
+            deduplicator.processed(deduplicationKey);
+        }
+        val outcome = ack(envelope, ActorEvents.ACKED);
+        metrics.acked();
+        return outcome;
+    }
+
+    private String ack(final Envelope envelope, final String outcome) throws IOException {
+        val event = new AcknowledgementEvent();
+        event.begin();
+        getChannel().basicAck(envelope.getDeliveryTag(), false);
+        if (null != inFlightSlot) {
+            inFlightSlot.settled();
+        }
+        commit(event, envelope, outcome);
+        return outcome;
+    }
+
+    private String reject(final Envelope envelope, final String outcome) throws IOException {
+        val event = new AcknowledgementEvent();
+        event.begin();
+        getChannel().basicReject(envelope.getDeliveryTag(), false);
+        if (null != inFlightSlot) {
+            inFlightSlot.settled();
+        }
+        if (!ActorEvents.SIDELINED.equals(outcome)) {
+            metrics.rejected();
+        }
+        commit(event, envelope, outcome);
+        return outcome;
+    }
+
+    private void commit(final AcknowledgementEvent event, final Envelope envelope, final String outcome) {
+        if (event.shouldCommit()) {
+            event.actor = metrics.getQueueName();
+            event.shard = shardId;
+            event.deliveryTag = envelope.getDeliveryTag();
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private void commit(final DeliveryEvent event,
+                        final byte[] body,
+                        final long deliveryCount,
+                        final long queueWaitMs,
+                        final String outcome) {
+        if (event.shouldCommit()) {
+            event.actor = metrics.getQueueName();
+            event.shard = shardId;
+            event.payloadSize = body.length;
+            event.deliveryCount = deliveryCount;
+            event.queueWait = queueWaitMs;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
     private Callable<Boolean> getHandleCallable(final Envelope envelope,
                                                 final AMQP.BasicProperties properties,
-                                                final byte[] body) throws IOException {
+                                                final byte[] body,
+                                                final long deliveryCount,
+                                                final ConsumerSpan span) throws IOException {
         val delayInMs = getDelayInMs(properties);
+        queueWaitMs = delayInMs;
+        metrics.consumed(shardId, delayInMs);
         val expired = isExpired(properties);
+        val deserializationStart = System.nanoTime();
         val message = mapper.readValue(body, clazz);
-        return () -> handle(message, messageProperties(envelope, delayInMs), expired);
+        if (null != span) {
+            span.setQueueWaitMs(delayInMs);
+            span.setDeserializationNanos(System.nanoTime() - deserializationStart);
+        }
+        val messageMetadata = messageProperties(envelope, delayInMs, deliveryCount,
+                                                null == span ? null : span.getContext());
+        return () -> handle(message, messageMetadata, expired);
     }
 
     private long getDelayInMs(final AMQP.BasicProperties properties) {
@@ -127,7 +417,10 @@ public class Handler<Message> extends DefaultConsumer {
         return false;
     }
 
-    private MessageMetadata messageProperties(final Envelope envelope, final long messageDelay) {
-        return new MessageMetadata(envelope.isRedeliver(), messageDelay);
+    private MessageMetadata messageProperties(final Envelope envelope,
+                                              final long messageDelay,
+                                              final long deliveryCount,
+                                              final TraceContext traceContext) {
+        return new MessageMetadata(envelope.isRedeliver(), messageDelay, deliveryCount, traceContext);
     }
 }
\ No newline at end of file
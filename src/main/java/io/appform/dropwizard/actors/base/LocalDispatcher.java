@@ -0,0 +1,197 @@
+package io.appform.dropwizard.actors.base;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.appform.dropwizard.actors.actor.LocalDeliveryConfig;
+import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
+import io.appform.dropwizard.actors.actor.MessageMetadata;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.exceptionhandler.handlers.ExceptionHandler;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.retry.RetryStrategy;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hands messages published in the same process straight to the handler of a consumer. Messages wait in a bounded
+ * queue that is drained by as many workers as the consumer has channels. Workers share handling permits with the
+ * broker consumers, so the consumer never handles more messages at a time than its concurrency. Messages are passed
+ * by reference and are neither serialized nor acknowledged.
+ */
+@Slf4j
+class LocalDispatcher<Message> {
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final String queueName;
+    private final int workers;
+    private final Semaphore permits;
+    private final long drainTimeoutMs;
+    private final BlockingQueue<LocalMessage<Message>> queue;
+    private final RetryStrategy retryStrategy;
+    private final ExceptionHandler exceptionHandler;
+    private final Function<Throwable, Boolean> errorCheckFunction;
+    private final MessageHandlingFunction<Message, Boolean> handlerFunction;
+    private final ActorMetrics metrics;
+    private volatile boolean running;
+    private ExecutorService executorService;
+
+    LocalDispatcher(final String queueName,
+                    final LocalDeliveryConfig config,
+                    final int workers,
+                    final Semaphore permits,
+                    final RetryStrategy retryStrategy,
+                    final ExceptionHandler exceptionHandler,
+                    final Function<Throwable, Boolean> errorCheckFunction,
+                    final MessageHandlingFunction<Message, Boolean> handlerFunction,
+                    final ActorMetrics metrics,
+                    final MetricRegistry metricRegistry) {
+        this.queueName = queueName;
+        this.workers = workers;
+        this.permits = permits;
+        this.drainTimeoutMs = config.getDrainTimeout().toMilliseconds();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueSize());
+        this.retryStrategy = retryStrategy;
+        this.exceptionHandler = exceptionHandler;
+        this.errorCheckFunction = errorCheckFunction;
+        this.handlerFunction = handlerFunction;
+        this.metrics = metrics;
+        val pendingMetric = MetricRegistry.name("rmqactor", NamingUtils.sanitizeMetricName(queueName), "local",
+                                                "pending");
+        metricRegistry.remove(pendingMetric);
+        metricRegistry.register(pendingMetric, (Gauge<Integer>) queue::size);
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        executorService = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+                .setNameFormat(String.format("rmq-local-%s-%%d", queueName))
+                .setDaemon(true)
+                .build());
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executorService.submit(this::work);
+        }
+    }
+
+    /**
+     * @return false if the message has to be published to the broker as the dispatcher is stopped or saturated
+     */
+    boolean offer(final Message message) {
+        if (!running) {
+            metrics.localFallback();
+            return false;
+        }
+        val localMessage = new LocalMessage<>(message, System.currentTimeMillis());
+        if (!queue.offer(localMessage)) {
+            metrics.localFallback();
+            return false;
+        }
+        /*
+            Stop may have drained the queue between the check and the offer. Taking the message back decides
+            who owns it, the broker or a worker that is still draining.
+         */
+        if (!running && queue.remove(localMessage)) {
+            metrics.localFallback();
+            return false;
+        }
+        metrics.deliveredLocally();
+        return true;
+    }
+
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(drainTimeoutMs, TimeUnit.MILLISECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        val dropped = queue.size();
+        queue.clear();
+        if (dropped > 0) {
+            log.warn("Dropped {} locally delivered messages for [{}] that were not handled in {} ms",
+                     dropped, queueName, drainTimeoutMs);
+            metrics.droppedLocally(dropped);
+        }
+    }
+
+    private void work() {
+        try {
+            while (running || !queue.isEmpty()) {
+                val localMessage = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (null == localMessage) {
+                    continue;
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    dropped("the consumer was stopped");
+                    throw e;
+                }
+                try {
+                    handle(localMessage);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(final LocalMessage<Message> localMessage) {
+        val delayInMs = Math.max(System.currentTimeMillis() - localMessage.enqueuedAt, 0);
+        metrics.consumed(-1, delayInMs);
+        val metadata = new MessageMetadata(false, delayInMs);
+        val start = System.nanoTime();
+        try {
+            if (retryStrategy.execute(() -> handlerFunction.apply(localMessage.message, metadata))) {
+                metrics.acked();
+            } else {
+                dropped("it was rejected");
+            }
+        } catch (Throwable t) {
+            log.error("Error processing locally delivered message...", t);
+            if (errorCheckFunction.apply(t) || exceptionHandler.handle()) {
+                metrics.acked();
+            } else {
+                dropped("handling failed");
+            }
+        } finally {
+            metrics.handled(System.nanoTime() - start);
+        }
+    }
+
+    private void dropped(final String reason) {
+        log.warn("Dropped locally delivered message for [{}] as {}", queueName, reason);
+        metrics.rejected();
+        metrics.droppedLocally(1);
+    }
+
+    private static final class LocalMessage<Message> {
+        private final Message message;
+        private final long enqueuedAt;
+
+        private LocalMessage(Message message, long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.appform.dropwizard.actors.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
+import io.appform.dropwizard.actors.actor.QueueType;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.exceptionhandler.handlers.ExceptionHandler;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.retry.RetryStrategy;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.stream.BrokerOffsetStore;
+import io.appform.dropwizard.actors.stream.OffsetStore;
+import io.appform.dropwizard.actors.stream.StreamConsumerConfig;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static io.appform.dropwizard.actors.common.Constants.X_STREAM_OFFSET_HEADER;
+
+/**
+ * Consumes the stream queues of an actor declared with {@link QueueType#STREAM}. Sharded actors have one stream per
+ * shard, each consumed on its own channel so that the messages of a stream are handled in order. Publishers pick a
+ * shard at random, so there is no ordering across streams. Consumption starts after the offset stored for the
+ * consumer group, or where the config says if none is stored. Offsets are stored periodically and when the consumer
+ * is stopped.
+ * <p>
+ * Each running consumer of a group reads every stream, so a group should be consumed by a single instance.
+ */
+@Slf4j
+public class StreamConsumer<Message> {
+
+    private final String name;
+    private final ActorConfig config;
+    private final StreamConsumerConfig streamConfig;
+    private final RMQConnection connection;
+    private final ObjectMapper mapper;
+    private final Class<? extends Message> clazz;
+    private final MessageHandlingFunction<Message, Boolean> handlerFunction;
+    private final Function<Throwable, Boolean> errorCheckFunction;
+    private final String queueName;
+    private final RetryStrategy retryStrategy;
+    private final ExceptionHandler exceptionHandler;
+    private final OffsetStore offsetStore;
+    private final ActorMetrics metrics;
+
+    private final List<StreamHandler<Message>> handlers = new ArrayList<>();
+    private ScheduledExecutorService committer;
+
+    public StreamConsumer(final String name,
+                          final ActorConfig config,
+                          final StreamConsumerConfig streamConfig,
+                          final RMQConnection connection,
+                          final ObjectMapper mapper,
+                          final RetryStrategyFactory retryStrategyFactory,
+                          final ExceptionHandlingFactory exceptionHandlingFactory,
+                          final Class<? extends Message> clazz,
+                          final MessageHandlingFunction<Message, Boolean> handlerFunction,
+                          final Function<Throwable, Boolean> errorCheckFunction) {
+        this(name, config, streamConfig, connection, mapper, retryStrategyFactory, exceptionHandlingFactory, clazz,
+             handlerFunction, errorCheckFunction, new BrokerOffsetStore(connection));
+    }
+
+    public StreamConsumer(final String name,
+                          final ActorConfig config,
+                          final StreamConsumerConfig streamConfig,
+                          final RMQConnection connection,
+                          final ObjectMapper mapper,
+                          final RetryStrategyFactory retryStrategyFactory,
+                          final ExceptionHandlingFactory exceptionHandlingFactory,
+                          final Class<? extends Message> clazz,
+                          final MessageHandlingFunction<Message, Boolean> handlerFunction,
+                          final Function<Throwable, Boolean> errorCheckFunction,
+                          final OffsetStore offsetStore) {
+        Preconditions.checkArgument(config.getQueueType() == QueueType.STREAM,
+                                    "Stream consumers need actors with stream queues");
+        this.name = NamingUtils.prefixWithNamespace(name);
+        this.config = config;
+        this.streamConfig = streamConfig;
+        this.connection = connection;
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.handlerFunction = handlerFunction;
+        this.errorCheckFunction = errorCheckFunction;
+        this.queueName = NamingUtils.queueName(config.getPrefix(), name);
+        this.retryStrategy = retryStrategyFactory.create(config.getRetryConfig());
+        this.exceptionHandler = exceptionHandlingFactory.create(config.getExceptionHandlerConfig());
+        this.offsetStore = offsetStore;
+        this.metrics = new ActorMetrics(connection.metrics(), queueName,
+                                        config.isSharded() ? config.getShardCount() : 0);
+    }
+
+    public void start() throws Exception {
+        val streams = config.isSharded() ? config.getShardCount() : 1;
+        for (int shard = 0; shard < streams; shard++) {
+            val stream = config.isSharded() ? NamingUtils.getShardedQueueName(queueName, shard) : queueName;
+            val channel = connection.newChannel();
+            val handler = new StreamHandler<>(channel, stream, mapper, clazz, config.getPrefetchCount(),
+                                              retryStrategy, exceptionHandler, errorCheckFunction, handlerFunction,
+                                              metrics, config.isSharded() ? shard : -1);
+            val storedOffset = offsetStore.load(reference(stream));
+            storedOffset.ifPresent(handler::setCommittedOffset);
+            val startOffset = storedOffset.isPresent()
+                              ? (Object) (storedOffset.getAsLong() + 1)
+                              : startOffset();
+            val tag = channel.basicConsume(stream, false, "", false, false,
+                                           Collections.singletonMap(X_STREAM_OFFSET_HEADER, startOffset), handler);
+            handler.setTag(tag);
+            handlers.add(handler);
+            log.info("Started stream consumer of type {} on {} for group {} from {}", name, stream,
+                     streamConfig.getConsumerGroup(), startOffset);
+        }
+        val commitIntervalMs = streamConfig.getCommitInterval().toMilliseconds();
+        committer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat(String.format("rmq-stream-offsets-%s-%%d", queueName))
+                .setDaemon(true)
+                .build());
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (null != committer) {
+            committer.shutdownNow();
+            committer = null;
+        }
+        handlers.forEach(handler -> {
+            try {
+                val channel = handler.getChannel();
+                if (channel.isOpen()) {
+                    channel.basicCancel(handler.getTag());
+                    while (handler.isRunning()) ;
+                    channel.close();
+                    log.info("Stream consumer channel closed for [{}] on {}", name, handler.getStream());
+                }
+            } catch (Exception e) {
+                log.error(String.format("Error closing stream consumer channel [%s] for [%s]", handler.getTag(),
+                                        name), e);
+            }
+        });
+        commit();
+        handlers.clear();
+    }
+
+    /**
+     * Stores offsets of streams with messages handled since the last commit
+     */
+    public synchronized void commit() {
+        for (StreamHandler<Message> handler : handlers) {
+            val handledOffset = handler.getHandledOffset();
+            if (handledOffset <= handler.getCommittedOffset()) {
+                continue;
+            }
+            try {
+                offsetStore.store(reference(handler.getStream()), handledOffset);
+                handler.setCommittedOffset(handledOffset);
+            } catch (Exception e) {
+                log.warn("Could not store offset {} of stream {} for group {}: {}", handledOffset,
+                         handler.getStream(), streamConfig.getConsumerGroup(), e.getMessage());
+            }
+        }
+    }
+
+    private Object startOffset() {
+        switch (streamConfig.getStartFrom()) {
+            case LAST:
+                return "last";
+            case NEXT:
+                return "next";
+            case OFFSET:
+                return streamConfig.getOffset();
+            case TIMESTAMP:
+                return streamConfig.getTimestamp();
+            case FIRST:
+            default:
+                return "first";
+        }
+    }
+
+    private String reference(String stream) {
+        return String.format("%s.%s", streamConfig.getConsumerGroup(), stream);
+    }
+}
@@ -0,0 +1,135 @@
+package io.appform.dropwizard.actors.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
+import io.appform.dropwizard.actors.actor.MessageMetadata;
+import io.appform.dropwizard.actors.exceptionhandler.handlers.ExceptionHandler;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.retry.RetryStrategy;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.function.Function;
+
+import static io.appform.dropwizard.actors.common.Constants.MESSAGE_PUBLISHED_TEXT;
+import static io.appform.dropwizard.actors.common.Constants.X_STREAM_OFFSET_HEADER;
+
+/**
+ * Handles the messages of one stream. Messages cannot be rejected from a stream, so messages that fail handling are
+ * logged and skipped. Every delivery is acked to keep credit flowing and the offset of the last handled message is
+ * kept for the periodic commit.
+ */
+@Slf4j
+class StreamHandler<Message> extends DefaultConsumer {
+    @Getter
+    private final String stream;
+    private final ObjectMapper mapper;
+    private final Class<? extends Message> clazz;
+    private final RetryStrategy retryStrategy;
+    private final ExceptionHandler exceptionHandler;
+    private final Function<Throwable, Boolean> errorCheckFunction;
+    private final MessageHandlingFunction<Message, Boolean> handlerFunction;
+    private final ActorMetrics metrics;
+    private final int shardId;
+
+    @Getter
+    private volatile boolean running;
+
+    @Getter
+    private volatile long handledOffset = -1;
+
+    /**
+     * Offset last stored for the consumer group, -1 if none was stored
+     */
+    @Getter
+    @Setter
+    private volatile long committedOffset = -1;
+
+    @Getter
+    @Setter
+    private String tag;
+
+    StreamHandler(final Channel channel,
+                  final String stream,
+                  final ObjectMapper mapper,
+                  final Class<? extends Message> clazz,
+                  final int prefetchCount,
+                  final RetryStrategy retryStrategy,
+                  final ExceptionHandler exceptionHandler,
+                  final Function<Throwable, Boolean> errorCheckFunction,
+                  final MessageHandlingFunction<Message, Boolean> handlerFunction,
+                  final ActorMetrics metrics,
+                  final int shardId) throws IOException {
+        super(channel);
+        this.stream = stream;
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.retryStrategy = retryStrategy;
+        this.exceptionHandler = exceptionHandler;
+        this.errorCheckFunction = errorCheckFunction;
+        this.handlerFunction = handlerFunction;
+        this.metrics = metrics;
+        this.shardId = shardId;
+        getChannel().basicQos(prefetchCount);
+    }
+
+    @Override
+    public void handleDelivery(final String consumerTag,
+                               final Envelope envelope,
+                               final AMQP.BasicProperties properties,
+                               final byte[] body) throws IOException {
+        running = true;
+        val offset = offset(properties);
+        val delayInMs = delayInMs(properties);
+        metrics.consumed(shardId, delayInMs);
+        val start = System.nanoTime();
+        try {
+            val message = mapper.readValue(body, clazz);
+            val metadata = new MessageMetadata(false, delayInMs, 1, null, offset);
+            if (retryStrategy.execute(() -> handlerFunction.apply(message, metadata))) {
+                metrics.acked();
+            } else {
+                skipped(offset, "it was rejected");
+            }
+        } catch (Throwable t) {
+            log.error("Error processing message at offset {} of stream {}", offset, stream, t);
+            if (errorCheckFunction.apply(t) || exceptionHandler.handle()) {
+                metrics.acked();
+            } else {
+                skipped(offset, "handling failed");
+            }
+        } finally {
+            metrics.handled(System.nanoTime() - start);
+            getChannel().basicAck(envelope.getDeliveryTag(), false);
+            if (offset >= 0) {
+                handledOffset = offset;
+            }
+            running = false;
+        }
+    }
+
+    private void skipped(final long offset, final String reason) {
+        log.warn("Skipped message at offset {} of stream {} as {}", offset, stream, reason);
+        metrics.rejected();
+    }
+
+    private static long offset(final AMQP.BasicProperties properties) {
+        val offset = null == properties.getHeaders() ? null : properties.getHeaders().get(X_STREAM_OFFSET_HEADER);
+        return offset instanceof Number ? ((Number) offset).longValue() : -1;
+    }
+
+    private static long delayInMs(final AMQP.BasicProperties properties) {
+        val publishedAt = null == properties.getHeaders() ? null : properties.getHeaders().get(MESSAGE_PUBLISHED_TEXT);
+        return publishedAt instanceof Number
+               ? Math.max(Instant.now().toEpochMilli() - ((Number) publishedAt).longValue(), 0)
+               : -1;
+    }
+}
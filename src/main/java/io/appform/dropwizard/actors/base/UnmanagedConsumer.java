@@ -1,21 +1,27 @@
 package io.appform.dropwizard.actors.base;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.rabbitmq.client.Channel;
 import io.appform.dropwizard.actors.actor.ActorConfig;
 import io.appform.dropwizard.actors.actor.ConsumerConfig;
 import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
+import io.appform.dropwizard.actors.actor.QueueType;
 import io.appform.dropwizard.actors.base.utils.NamingUtils;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.dedup.Deduplicator;
 import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
 import io.appform.dropwizard.actors.exceptionhandler.handlers.ExceptionHandler;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.metrics.InFlightRegistry;
 import io.appform.dropwizard.actors.retry.RetryStrategy;
 import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 
@@ -34,8 +40,15 @@ public class UnmanagedConsumer<Message> {
     private final String queueName;
     private final RetryStrategy retryStrategy;
     private final ExceptionHandler exceptionHandler;
+    private final long maxDeliveries;
+    private final ActorMetrics metrics;
+    private final LocalDispatcher<Message> localDispatcher;
+    private final Semaphore handlingPermits;
+    private final Deduplicator deduplicator;
+    private final DelayBuckets delayBuckets;
 
     private final List<Handler<Message>> handlers = Lists.newArrayList();
+    private MessageHandlingFunction<Message, ?> replyFunction;
 
     public UnmanagedConsumer(final String name,
                              final ActorConfig config,
@@ -47,6 +60,8 @@ public class UnmanagedConsumer<Message> {
                              final MessageHandlingFunction<Message, Boolean> handlerFunction,
                              final MessageHandlingFunction<Message, Boolean> expiredMessageHandlingFunction,
                              final Function<Throwable, Boolean> errorCheckFunction) {
+        Preconditions.checkArgument(config.getQueueType() != QueueType.STREAM,
+                                    "Actors with stream queues are consumed with a StreamConsumer");
         this.name = NamingUtils.prefixWithNamespace(name);
         this.config = config;
         this.connection = connection;
@@ -59,17 +74,67 @@ public class UnmanagedConsumer<Message> {
         this.queueName = NamingUtils.queueName(config.getPrefix(), name);
         this.retryStrategy = retryStrategyFactory.create(config.getRetryConfig());
         this.exceptionHandler = exceptionHandlingFactory.create(config.getExceptionHandlerConfig());
+        this.maxDeliveries = config.isDeliveryLimited() ? config.getMaxDeliveries() : 0;
+        this.metrics = new ActorMetrics(connection.metrics(), queueName,
+                                        config.isSharded() ? config.getShardCount() : 0,
+                                        null == config.getLatencyTracking()
+                                        ? null
+                                        : connection.latencyTrackers()
+                                                .forActor(queueName, config.getLatencyTracking()));
+        this.handlingPermits = config.isLocalDeliveryEnabled() ? new Semaphore(config.getConcurrency()) : null;
+        this.localDispatcher = config.isLocalDeliveryEnabled()
+                               ? new LocalDispatcher<>(queueName, config.getLocalDelivery(), config.getConcurrency(),
+                                                       handlingPermits, retryStrategy, exceptionHandler,
+                                                       errorCheckFunction, handlerFunction, metrics,
+                                                       connection.metrics())
+                               : null;
+        this.deduplicator = config.isDeduplicated()
+                            ? new Deduplicator(queueName, config.getDeduplication(), connection.metrics())
+                            : null;
+        this.delayBuckets = DelayBuckets.forActor(queueName, config);
+    }
+
+    /**
+     * Creates a consumer answering requests sent with {@link UnmanagedPublisher#ask}. The value returned by the reply
+     * function is sent back to the requester before the request is acked. Requests that fail, are rejected or
+     * expire are answered with an error.
+     */
+    public static <Message, Reply> UnmanagedConsumer<Message> replying(
+            final String name,
+            final ActorConfig config,
+            final RMQConnection connection,
+            final ObjectMapper mapper,
+            final RetryStrategyFactory retryStrategyFactory,
+            final ExceptionHandlingFactory exceptionHandlingFactory,
+            final Class<? extends Message> clazz,
+            final MessageHandlingFunction<Message, Reply> replyFunction,
+            final Function<Throwable, Boolean> errorCheckFunction) {
+        final UnmanagedConsumer<Message> consumer = new UnmanagedConsumer<>(
+                name, config, connection, mapper, retryStrategyFactory, exceptionHandlingFactory, clazz,
+                (message, messageMetadata) -> true, (message, messageMetadata) -> true, errorCheckFunction);
+        consumer.replyFunction = replyFunction;
+        return consumer;
     }
 
     public void start() throws Exception {
         for (int i = 1; i <= config.getConcurrency(); i++) {
             Channel consumeChannel = connection.newChannel();
+            final int shardId = config.isSharded() ? i % config.getShardCount() : -1;
             final Handler<Message> handler =
                     new Handler<>(consumeChannel, mapper, clazz, prefetchCount, errorCheckFunction, retryStrategy,
-                                  exceptionHandler, handlerFunction, expiredMessageHandlingFunction);
+                                  exceptionHandler, handlerFunction, expiredMessageHandlingFunction, maxDeliveries,
+                                  metrics, shardId, connection.tracer());
+            handler.setReplyFunction(replyFunction);
+            handler.setDeduplicator(deduplicator);
+            handler.setDelayBuckets(delayBuckets);
+            handler.setHandlingPermits(handlingPermits);
+            handler.setInFlightSlot(InFlightRegistry.register(queueName, shardId, prefetchCount, consumeChannel,
+                                                              handler::getTag,
+                                                              () -> connection.isBlocked(
+                                                                      consumeChannel.getConnection())));
             String queueNameForConsumption;
             if (config.isSharded()) {
-                queueNameForConsumption = NamingUtils.getShardedQueueName(queueName, i % config.getShardCount());
+                queueNameForConsumption = NamingUtils.getShardedQueueName(queueName, shardId);
             } else {
                 queueNameForConsumption = queueName;
             }
@@ -79,9 +144,25 @@ public class UnmanagedConsumer<Message> {
             handlers.add(handler);
             log.info("Started consumer {} of type {} with tag {}", i, name, tag);
         }
+        if (null != localDispatcher && null == replyFunction) {
+            localDispatcher.start();
+            log.info("Started local delivery for {}", name);
+        }
+    }
+
+    /**
+     * Hands the message to this consumer without going through the broker if local delivery is enabled
+     *
+     * @return false if the message has to be published as local delivery is disabled, stopped or saturated
+     */
+    public boolean deliverLocally(final Message message) {
+        return null != localDispatcher && localDispatcher.offer(message);
     }
 
     public void stop() {
+        if (null != localDispatcher) {
+            localDispatcher.stop();
+        }
         handlers.forEach(handler -> {
             try {
                 final Channel channel = handler.getChannel();
@@ -97,8 +178,13 @@ public class UnmanagedConsumer<Message> {
                 }
             } catch (Exception e) {
                 log.error(String.format("Error closing consumer channel [%s] for [%s] with prefix [%s]", handler.getTag(), name, config.getPrefix()), e);
+            } finally {
+                InFlightRegistry.deregister(handler.getInFlightSlot());
             }
         });
+        if (null != deduplicator) {
+            deduplicator.close();
+        }
     }
 
     private String getConsumerTag(int consumerIndex) {
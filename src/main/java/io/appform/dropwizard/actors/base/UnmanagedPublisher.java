@@ -3,21 +3,34 @@ package io.appform.dropwizard.actors.base;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import com.rabbitmq.client.AMQP;
-import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.MessageProperties;
 import io.appform.dropwizard.actors.actor.ActorConfig;
 import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.actor.QueueType;
 import io.appform.dropwizard.actors.base.utils.NamingUtils;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.dedup.MessageIds;
+import io.appform.dropwizard.actors.jfr.ActorEvents;
+import io.appform.dropwizard.actors.jfr.PublishEvent;
+import io.appform.dropwizard.actors.metrics.ActorMetrics;
+import io.appform.dropwizard.actors.metrics.LagEstimator;
+import io.appform.dropwizard.actors.metrics.QueueDepth;
+import io.appform.dropwizard.actors.metrics.QueueDepthSampler;
+import io.appform.dropwizard.actors.topology.Topology;
+import io.appform.dropwizard.actors.topology.TopologyFingerprint;
+import io.appform.dropwizard.actors.topology.TopologyPlanner;
+import io.appform.dropwizard.actors.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.RandomUtils;
 
-import java.io.IOException;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import static io.appform.dropwizard.actors.common.Constants.MESSAGE_DUE_TEXT;
 import static io.appform.dropwizard.actors.common.Constants.MESSAGE_EXPIRY_TEXT;
 import static io.appform.dropwizard.actors.common.Constants.MESSAGE_PUBLISHED_TEXT;
 
@@ -29,8 +42,12 @@ public class UnmanagedPublisher<Message> {
     private final RMQConnection connection;
     private final ObjectMapper mapper;
     private final String queueName;
-
-    private Channel publishChannel;
+    private final ActorMetrics metrics;
+    private final QueueDepthSampler queueDepthSampler;
+    private final Tracer tracer;
+    private final DelayBuckets delayBuckets;
+    private final Topology topology;
+    private String topologyFingerprint;
 
     public UnmanagedPublisher(
             String name,
@@ -42,6 +59,19 @@ public class UnmanagedPublisher<Message> {
         this.connection = connection;
         this.mapper = mapper;
         this.queueName = NamingUtils.queueName(config.getPrefix(), name);
+        this.metrics = new ActorMetrics(connection.metrics(), queueName,
+                                        config.isSharded() ? config.getShardCount() : 0,
+                                        null == config.getLatencyTracking()
+                                        ? null
+                                        : connection.latencyTrackers()
+                                                .forActor(queueName, config.getLatencyTracking()));
+        this.tracer = connection.tracer();
+        this.delayBuckets = DelayBuckets.forActor(queueName, config);
+        this.topology = TopologyPlanner.plan(connection, queueName, config);
+        connection.plan(queueName, topology);
+        this.queueDepthSampler = config.isQueueDepthSampled()
+                                 ? new QueueDepthSampler(connection, queueName, config, connection.metrics())
+                                 : null;
     }
 
     public final void publishWithDelay(final Message message, final long delayMilliseconds) throws Exception {
@@ -50,14 +80,15 @@ public class UnmanagedPublisher<Message> {
             log.warn("Publishing delayed message to non-delayed queue queue:{}", queueName);
         }
 
-        if (config.getDelayType() == DelayType.TTL) {
-            publishChannel.basicPublish(ttlExchange(config),
-                    queueName,
-                    new AMQP.BasicProperties.Builder()
-                            .expiration(String.valueOf(delayMilliseconds))
-                            .deliveryMode(2)
-                            .build(),
-                    mapper().writeValueAsBytes(message));
+        if (null != delayBuckets) {
+            publishToBucket(message, delayMilliseconds);
+        } else if (config.getDelayType() == DelayType.TTL) {
+            val body = mapper().writeValueAsBytes(message);
+            val properties = new AMQP.BasicProperties.Builder()
+                    .expiration(String.valueOf(delayMilliseconds))
+                    .deliveryMode(2)
+                    .build();
+            publish(ttlExchange(config), queueName, -1, properties, body);
         } else {
             publish(message, new AMQP.BasicProperties.Builder()
                     .headers(Collections.singletonMap("x-delay", delayMilliseconds))
@@ -66,6 +97,27 @@ public class UnmanagedPublisher<Message> {
         }
     }
 
+    /*
+        The due time travels with the message so that consumers can move it on to the next bucket
+     */
+    private void publishToBucket(final Message message, final long delayMilliseconds) throws Exception {
+        val properties = new AMQP.BasicProperties.Builder()
+                .headers(Collections.singletonMap(MESSAGE_DUE_TEXT,
+                                                  Instant.now().toEpochMilli() + delayMilliseconds))
+                .deliveryMode(2)
+                .build();
+        val route = delayBuckets.route(delayMilliseconds);
+        if (null == route) {
+            publish(message, properties);
+            return;
+        }
+        val enrichedProperties = getEnrichedProperties(properties).builder()
+                .expiration(route.getExpiration())
+                .build();
+        publish(delayBuckets.getExchange(), route.getRoutingKey(), -1, enrichedProperties,
+                mapper().writeValueAsBytes(message));
+    }
+
     public final void publishWithExpiry(final Message message, final long expiryInMs) throws Exception {
         AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
                 .deliveryMode(2)
@@ -84,14 +136,73 @@ public class UnmanagedPublisher<Message> {
     }
 
     public final void publish(final Message message, final AMQP.BasicProperties properties) throws Exception {
-        String routingKey;
-        if (config.isSharded()) {
-            routingKey = NamingUtils.getShardedQueueName(queueName, getShardId());
-        } else {
-            routingKey = queueName;
-        }
+        val shardId = config.isSharded() ? getShardId() : -1;
         val enrichedProperties = getEnrichedProperties(properties);
-        publishChannel.basicPublish(config.getExchange(), routingKey, enrichedProperties, mapper().writeValueAsBytes(message));
+        val body = mapper().writeValueAsBytes(message);
+        publish(config.getExchange(), routingKey(shardId), shardId, enrichedProperties, body);
+    }
+
+    /**
+     * Publishes a request and completes with the reply sent back through direct reply-to by a consumer created with
+     * {@link UnmanagedConsumer#replying}. The future fails with a {@link java.util.concurrent.TimeoutException} if no
+     * reply arrives in time, and with a {@link io.appform.dropwizard.actors.common.RabbitmqActorException} if the
+     * consumer could not produce one. Requests are not persisted.
+     */
+    public final <Reply> CompletableFuture<Reply> ask(final Message message,
+                                                      final Class<Reply> replyClass,
+                                                      final long timeoutMs) throws Exception {
+        val shardId = config.isSharded() ? getShardId() : -1;
+        val properties = getEnrichedProperties(MessageProperties.MINIMAL_BASIC);
+        val body = mapper().writeValueAsBytes(message);
+        val start = System.nanoTime();
+        val reply = connection.replyClient().request(config.getExchange(), routingKey(shardId), properties, body,
+                                                     replyBody -> mapper().readValue(replyBody, replyClass),
+                                                     timeoutMs, TimeUnit.MILLISECONDS);
+        metrics.published(shardId, System.nanoTime() - start, body.length);
+        return reply;
+    }
+
+    private String routingKey(final int shardId) {
+        return shardId < 0 ? queueName : NamingUtils.getShardedQueueName(queueName, shardId);
+    }
+
+    private void publish(final String exchange,
+                         final String routingKey,
+                         final int shardId,
+                         final AMQP.BasicProperties properties,
+                         final byte[] body) throws Exception {
+        val event = new PublishEvent();
+        event.begin();
+        val start = System.nanoTime();
+        try {
+            connection.withChannel(channel -> {
+                channel.basicPublish(exchange, routingKey, properties, body);
+                return null;
+            });
+        } catch (Exception e) {
+            metrics.publishFailed();
+            commit(event, exchange, routingKey, shardId, body.length, ActorEvents.FAILED);
+            throw e;
+        }
+        metrics.published(shardId, System.nanoTime() - start, body.length);
+        commit(event, exchange, routingKey, shardId, body.length, ActorEvents.PUBLISHED);
+    }
+
+    private void commit(final PublishEvent event,
+                        final String exchange,
+                        final String routingKey,
+                        final int shardId,
+                        final int payloadSize,
+                        final String outcome) {
+        if (event.shouldCommit()) {
+            event.actor = queueName;
+            event.exchange = exchange;
+            event.routingKey = routingKey;
+            event.shard = shardId;
+            event.payloadSize = payloadSize;
+            event.outcome = outcome;
+            event.commit();
+        }
     }
 
     private AMQP.BasicProperties getEnrichedProperties(AMQP.BasicProperties properties) {
@@ -100,9 +211,17 @@ public class UnmanagedPublisher<Message> {
             enrichedHeaders.putAll(properties.getHeaders());
         }
         enrichedHeaders.put(MESSAGE_PUBLISHED_TEXT, Instant.now().toEpochMilli());
-        return properties.builder()
-                .headers(Collections.unmodifiableMap(enrichedHeaders))
-                .build();
+        val traceContext = tracer.outgoing();
+        if (null != traceContext) {
+            enrichedHeaders.put(Tracer.TRACEPARENT_HEADER, traceContext.traceparent());
+        }
+        val builder = properties.builder()
+                .headers(Collections.unmodifiableMap(enrichedHeaders));
+        if (null == properties.getMessageId()
+                && config.isDeduplicated() && config.getDeduplication().isAssignMessageIds()) {
+            builder.messageId(MessageIds.next());
+        }
+        return builder.build();
     }
 
     private int getShardId() {
@@ -110,116 +229,86 @@ public class UnmanagedPublisher<Message> {
     }
 
     public final long pendingMessagesCount() {
+        if (null != queueDepthSampler) {
+            val depth = queueDepthSampler.depth();
+            return null == depth ? Long.MAX_VALUE : depth.getMessages();
+        }
         try {
             if (config.isSharded()) {
                 long messageCount  = 0 ;
                 for (int i = 0; i < config.getShardCount(); i++) {
                     String shardedQueueName = NamingUtils.getShardedQueueName(queueName, i);
-                    messageCount += publishChannel.messageCount(shardedQueueName);
+                    messageCount += connection.messageCount(shardedQueueName);
                 }
                 return messageCount;
             }
             else {
-                return publishChannel.messageCount(queueName);
+                return connection.messageCount(queueName);
             }
-        } catch (IOException e) {
+        } catch (Exception e) {
             log.error("Issue getting message count. Will return max", e);
         }
         return Long.MAX_VALUE;
     }
 
     public final long pendingSidelineMessagesCount() {
+        if (null != queueDepthSampler) {
+            val depth = queueDepthSampler.depth();
+            return null == depth ? Long.MAX_VALUE : depth.getSidelineMessages();
+        }
+        if (config.getQueueType() == QueueType.STREAM) {
+            return 0;
+        }
         try {
-            return publishChannel.messageCount(NamingUtils.getSideline(queueName));
-        } catch (IOException e) {
+            return connection.messageCount(NamingUtils.getSideline(queueName));
+        } catch (Exception e) {
             log.error("Issue getting message count. Will return max", e);
         }
         return Long.MAX_VALUE;
     }
 
     public void start() throws Exception {
-        final String exchange = config.getExchange();
-        final String dlx = NamingUtils.getSideline(config.getExchange());
-        if (config.isDelayed()) {
-            ensureDelayedExchange(exchange);
-        } else {
-            ensureExchange(exchange);
-        }
-        ensureExchange(dlx);
-
-        this.publishChannel = connection.newChannel();
-        String sidelineQueueName = NamingUtils.getSideline(queueName);
-        connection.ensure(sidelineQueueName, queueName, dlx, connection.rmqOpts(config));
-        if (config.isSharded()) {
-            int bound = config.getShardCount();
-            for (int shardId = 0; shardId < bound; shardId++) {
-                String shardedQueueName = NamingUtils.getShardedQueueName(queueName, shardId);
-                connection.ensure(shardedQueueName, config.getExchange(), connection.rmqOpts(dlx, config));
-                connection.addBinding(sidelineQueueName, dlx, shardedQueueName);
-            }
-        } else {
-            connection.ensure(queueName, config.getExchange(), connection.rmqOpts(dlx, config));
-        }
-
-        if (config.getDelayType() == DelayType.TTL) {
-            connection.ensure(ttlQueue(queueName),
-                    queueName,
-                    ttlExchange(config),
-                    connection.rmqOpts(exchange, config));
+        this.topologyFingerprint = TopologyFingerprint.of(topology);
+        connection.declare(topology, queueName, topologyFingerprint);
+        log.info("Topology fingerprint for [{}] is [{}]", queueName, topologyFingerprint);
+        if (null != queueDepthSampler) {
+            queueDepthSampler.start();
         }
     }
 
-    private void ensureExchange(String exchange) throws IOException {
-        connection.channel().exchangeDeclare(
-                exchange,
-                "direct",
-                true,
-                false,
-                ImmutableMap.<String, Object>builder()
-                        .put("x-ha-policy", "all")
-                        .put("ha-mode", "all")
-                        .build());
-        log.info("Created exchange: {}", exchange);
+    /**
+     * Last sampled queue depths, including when they were sampled. Null if sampling is not configured for the actor
+     * or no sample has succeeded yet.
+     */
+    public final QueueDepth queueDepth() {
+        return null == queueDepthSampler ? null : queueDepthSampler.depth();
     }
 
-    private void ensureDelayedExchange(String exchange) throws IOException {
-        if (config.getDelayType() == DelayType.TTL) {
-            ensureExchange(ttlExchange(config));
-        } else {
-            connection.channel().exchangeDeclare(
-                    exchange,
-                    "x-delayed-message",
-                    true,
-                    false,
-                    ImmutableMap.<String, Object>builder()
-                            .put("x-ha-policy", "all")
-                            .put("ha-mode", "all")
-                            .put("x-delayed-type", "direct")
-                            .build());
-            log.info("Created delayed exchange: {}", exchange);
-        }
+    /**
+     * Net growth rate and time to drain of the backlog, estimated from queue depth samples. Null if queue depth
+     * sampling is not configured for the actor.
+     */
+    public final LagEstimator lagEstimator() {
+        return null == queueDepthSampler ? null : queueDepthSampler.lagEstimator();
     }
 
-    private String ttlExchange(ActorConfig actorConfig) {
-        return String.format("%s_TTL", actorConfig.getExchange());
+    /**
+     * Fingerprint of the exchanges, queues and bindings of this actor, available once the publisher is started
+     */
+    public final String topologyFingerprint() {
+        return topologyFingerprint;
     }
 
-    private String ttlQueue(String queueName) {
-        return String.format("%s_TTL", queueName);
+    private String ttlExchange(ActorConfig actorConfig) {
+        return NamingUtils.getTtl(actorConfig.getExchange());
     }
 
     public void stop() throws Exception {
-        try {
-            if(publishChannel.isOpen()) {
-                publishChannel.close();
-                log.info("Publisher channel closed for [{}] with prefix [{}]", name, config.getPrefix());
-            } else {
-                log.warn("Publisher channel already closed for [{}] with prefix [{}]", name, config.getPrefix());
-            }
-        } catch (Exception e) {
-            log.error(String.format("Error closing publisher channel for [%s] with prefix [%s]", name, config.getPrefix()), e);
-            throw e;
+        if (null != queueDepthSampler) {
+            queueDepthSampler.stop();
         }
+        //Publishing channels belong to the connection's channel pool and are closed along with the connection
+        log.info("Publisher stopped for [{}] with prefix [{}]", name, config.getPrefix());
     }
 
     protected final RMQConnection connection() {
@@ -0,0 +1,59 @@
+package io.appform.dropwizard.actors.base.utils;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Envelope;
+import lombok.experimental.UtilityClass;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.appform.dropwizard.actors.common.Constants.X_DEATH_HEADER;
+import static io.appform.dropwizard.actors.common.Constants.X_DELIVERY_COUNT_HEADER;
+
+@UtilityClass
+public class DeliveryCountUtils {
+    private static final String X_DEATH_COUNT = "count";
+    private static final String X_DEATH_REASON = "reason";
+    private static final String X_DEATH_REASON_EXPIRED = "expired";
+
+    /**
+     * Derives the number of times a message has been delivered, including the current delivery, from the
+     * redelivered flag, the quorum queue delivery count and the dead letter history of the message.
+     * Dead lettering due to expiry is ignored as that is how TTL based delays are implemented.
+     */
+    public long deliveryCount(final Envelope envelope, final AMQP.BasicProperties properties) {
+        long deliveryCount = envelope.isRedeliver() ? 2 : 1;
+        final Map<String, Object> headers = properties.getHeaders();
+        if (headers == null) {
+            return deliveryCount;
+        }
+        final Object quorumDeliveryCount = headers.get(X_DELIVERY_COUNT_HEADER);
+        if (quorumDeliveryCount instanceof Number) {
+            deliveryCount = Math.max(deliveryCount, ((Number) quorumDeliveryCount).longValue() + 1);
+        }
+        final Object deaths = headers.get(X_DEATH_HEADER);
+        if (deaths instanceof List) {
+            deliveryCount = Math.max(deliveryCount, rejections((List<?>) deaths) + 1);
+        }
+        return deliveryCount;
+    }
+
+    private long rejections(final List<?> deaths) {
+        long rejections = 0;
+        for (Object death : deaths) {
+            if (!(death instanceof Map)) {
+                continue;
+            }
+            final Map<?, ?> deathEntry = (Map<?, ?>) death;
+            final Object reason = deathEntry.get(X_DEATH_REASON);
+            final Object count = deathEntry.get(X_DEATH_COUNT);
+            if (reason != null && X_DEATH_REASON_EXPIRED.equals(reason.toString())) {
+                continue;
+            }
+            if (count instanceof Number) {
+                rejections += ((Number) count).longValue();
+            }
+        }
+        return rejections;
+    }
+}
@@ -35,4 +35,8 @@ public class NamingUtils {
     public String getSideline(String queueName) {
         return String.format("%s_%s", queueName, "SIDELINE");
     }
+
+    public String getTtl(String name) {
+        return String.format("%s_%s", name, "TTL");
+    }
 }
@@ -0,0 +1,41 @@
+package io.appform.dropwizard.actors.bench;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an {@link RabbitmqBenchmarkCommand} run. Rates are per second over the measured period, latencies are
+ * end to end from publish to handling, in microseconds.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenchmarkReport {
+    private String brokers;
+    private int actors;
+    private int publishersPerActor;
+    private int payloadSize;
+    private int concurrency;
+    private int prefetchCount;
+    private int shardCount;
+    private int targetRate;
+    private long warmupSeconds;
+    private long measuredSeconds;
+
+    private long published;
+    private long publishFailures;
+    private long consumed;
+    private long undelivered;
+    private double publishRate;
+    private double consumeRate;
+
+    private long latencyCount;
+    private long latencyP50Micros;
+    private long latencyP90Micros;
+    private long latencyP99Micros;
+    private long latencyP999Micros;
+    private long latencyMaxMicros;
+}
@@ -0,0 +1,358 @@
+package io.appform.dropwizard.actors.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.appform.dropwizard.actors.RabbitmqActorBundle;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.base.UnmanagedConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.config.Broker;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.topology.ExchangeSpec;
+import io.appform.dropwizard.actors.topology.QueueSpec;
+import io.appform.dropwizard.actors.topology.TopologyPlanner;
+import io.dropwizard.Configuration;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.configuration.ConfigurationValidationException;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Generics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.HdrHistogram.Recorder;
+
+import javax.validation.Validator;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Load generator for capacity planning. Starts synthetic actors modelled on an {@link ActorConfig} template, publishes
+ * to them at a target rate or as fast as possible and writes a JSON {@link BenchmarkReport} with throughput and end
+ * to end latency percentiles.
+ * <pre>
+ *     java -jar app.jar rmq-bench --actors 4 --rate 20000 --payload-size 2048 --shards 4 --concurrency 4 config.yml
+ * </pre>
+ * The broker comes from the application config and can be overridden with {@code --broker}, for example to point at
+ * a locally started embedded AMQP 0-9-1 broker, or replaced with the in memory broker using {@code --in-memory}.
+ * The resulting actor config is validated like the application config, so for example concurrency has to be a
+ * multiple of the shard count. Queues and exchanges created for the run are deleted at the end.
+ */
+@Slf4j
+public class RabbitmqBenchmarkCommand<T extends Configuration> extends ConfiguredCommand<T> {
+    private static final String ACTOR_PREFIX = "rmqbench";
+
+    private final RabbitmqActorBundle<T> bundle;
+    private final Function<T, RMQConfig> configProvider;
+
+    public RabbitmqBenchmarkCommand(RabbitmqActorBundle<T> bundle, Function<T, RMQConfig> configProvider) {
+        super("rmq-bench", "Measures actor throughput and end to end latency against a broker");
+        this.bundle = bundle;
+        this.configProvider = configProvider;
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--actors").type(Integer.class).setDefault(1)
+                .help("Number of synthetic actors");
+        subparser.addArgument("--publishers").type(Integer.class).setDefault(1)
+                .help("Publishing threads per actor");
+        subparser.addArgument("--rate").type(Integer.class).setDefault(0)
+                .help("Target messages per second over all actors, 0 to publish as fast as possible");
+        subparser.addArgument("--duration").type(Integer.class).setDefault(30)
+                .help("Measured seconds");
+        subparser.addArgument("--warmup").type(Integer.class).setDefault(5)
+                .help("Seconds to publish before measuring");
+        subparser.addArgument("--payload-size").dest("payloadSize").type(Integer.class).setDefault(1024)
+                .help("Payload size in bytes");
+        subparser.addArgument("--concurrency").type(Integer.class)
+                .help("Consumers per actor, overrides the template");
+        subparser.addArgument("--prefetch").type(Integer.class)
+                .help("Prefetch count per consumer, overrides the template");
+        subparser.addArgument("--shards").type(Integer.class)
+                .help("Shards per actor, overrides the template. 0 for no sharding.");
+        subparser.addArgument("--actor-config").dest("actorConfig")
+                .help("YAML file with the ActorConfig template for the synthetic actors");
+        subparser.addArgument("--broker")
+                .help("Comma separated host:port list, overrides the brokers in the config");
+        subparser.addArgument("--in-memory").dest("inMemory").action(Arguments.storeTrue())
+                .help("Use the in memory broker instead of a real one");
+        subparser.addArgument("--report").setDefault("rmq-bench-report.json")
+                .help("File to write the JSON report to");
+    }
+
+    @Override
+    protected Class<T> getConfigurationClass() {
+        return Generics.getTypeParameter(bundle.getClass(), Configuration.class);
+    }
+
+    @Override
+    protected void run(Bootstrap<T> bootstrap, Namespace namespace, T configuration) throws Exception {
+        val rmqConfig = rmqConfig(configProvider.apply(configuration), namespace);
+        val environment = new Environment(bootstrap.getApplication().getName(), bootstrap.getObjectMapper(),
+                                          bootstrap.getValidatorFactory(), bootstrap.getMetricRegistry(),
+                                          bootstrap.getClassLoader(), bootstrap.getHealthCheckRegistry(),
+                                          configuration);
+        val template = actorConfig(namespace);
+        val actorCount = namespace.getInt("actors");
+        val publishersPerActor = namespace.getInt("publishers");
+        val rate = namespace.getInt("rate");
+        val payloadSize = namespace.getInt("payloadSize");
+        val warmupMs = TimeUnit.SECONDS.toMillis(namespace.getInt("warmup"));
+        val durationMs = TimeUnit.SECONDS.toMillis(namespace.getInt("duration"));
+
+        val mapper = bootstrap.getObjectMapper();
+        final List<ActorConfig> configs = new ArrayList<>();
+        for (int i = 0; i < actorCount; i++) {
+            val config = copy(mapper, template);
+            config.setExchange(String.format("%s.exchange.%d", ACTOR_PREFIX, i));
+            config.setPrefix(ACTOR_PREFIX);
+            validate(bootstrap.getValidatorFactory().getValidator(), namespace, config);
+            configs.add(config);
+        }
+
+        val executorService = Executors.newFixedThreadPool(Math.max(rmqConfig.getThreadPoolSize(), 1));
+        val connection = new RMQConnection("rmq-bench", rmqConfig, executorService, environment,
+                                           TtlConfig.builder().build());
+        connection.start();
+
+        val latencies = new Recorder(3);
+        val consumed = new LongAdder();
+        val published = new LongAdder();
+        val publishFailures = new LongAdder();
+        val start = System.currentTimeMillis();
+        val measureFrom = start + warmupMs;
+        val measureTo = measureFrom + durationMs;
+
+        final List<UnmanagedPublisher<BenchmarkMessage>> publishers = new ArrayList<>();
+        final List<UnmanagedConsumer<BenchmarkMessage>> consumers = new ArrayList<>();
+        for (int i = 0; i < actorCount; i++) {
+            val name = String.format("ACTOR_%d", i);
+            val config = configs.get(i);
+            val publisher = new UnmanagedPublisher<BenchmarkMessage>(name, config, connection, mapper);
+            publisher.start();
+            publishers.add(publisher);
+            val consumer = new UnmanagedConsumer<>(
+                    name, config, connection, mapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
+                    BenchmarkMessage.class,
+                    (message, metadata) -> {
+                        val now = System.currentTimeMillis();
+                        if (message.getSentAt() >= measureFrom && now <= measureTo) {
+                            latencies.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(
+                                    System.nanoTime() - message.getSentAtNanos())));
+                        }
+                        consumed.increment();
+                        return true;
+                    },
+                    (message, metadata) -> true,
+                    t -> true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        val rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+        val payload = Strings.repeat("x", payloadSize);
+        val publisherPool = Executors.newFixedThreadPool(actorCount * publishersPerActor, new ThreadFactoryBuilder()
+                .setNameFormat("rmq-bench-publisher-%d")
+                .setDaemon(true)
+                .build());
+        for (UnmanagedPublisher<BenchmarkMessage> publisher : publishers) {
+            for (int i = 0; i < publishersPerActor; i++) {
+                publisherPool.execute(() -> {
+                    while (System.currentTimeMillis() < measureTo) {
+                        if (null != rateLimiter) {
+                            rateLimiter.acquire();
+                        }
+                        try {
+                            publisher.publish(new BenchmarkMessage(System.currentTimeMillis(), System.nanoTime(),
+                                                                   payload));
+                            published.increment();
+                        } catch (Exception e) {
+                            publishFailures.increment();
+                        }
+                    }
+                });
+            }
+        }
+        log.info("Warming up for {} ms with {} actors", warmupMs, actorCount);
+        Thread.sleep(warmupMs);
+        val consumedAtStart = consumed.sum();
+        val publishedAtStart = published.sum();
+        log.info("Measuring for {} ms", durationMs);
+        Thread.sleep(durationMs);
+        val consumedInWindow = consumed.sum() - consumedAtStart;
+        val publishedInWindow = published.sum() - publishedAtStart;
+        shutdown(publisherPool);
+        val drainDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (consumed.sum() < published.sum() && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(100);
+        }
+
+        val histogram = latencies.getIntervalHistogram();
+        val seconds = durationMs / 1000.0;
+        val report = BenchmarkReport.builder()
+                .brokers(rmqConfig.getTransport().isInMemory()
+                         ? "in-memory"
+                         : rmqConfig.getBrokers().stream()
+                                 .map(broker -> broker.getHost() + ":" + broker.getPort())
+                                 .collect(Collectors.joining(",")))
+                .actors(actorCount)
+                .publishersPerActor(publishersPerActor)
+                .payloadSize(payloadSize)
+                .concurrency(template.getConcurrency())
+                .prefetchCount(template.getPrefetchCount())
+                .shardCount(template.isSharded() ? template.getShardCount() : 0)
+                .targetRate(rate)
+                .warmupSeconds(TimeUnit.MILLISECONDS.toSeconds(warmupMs))
+                .measuredSeconds(TimeUnit.MILLISECONDS.toSeconds(durationMs))
+                .published(published.sum())
+                .publishFailures(publishFailures.sum())
+                .consumed(consumed.sum())
+                .undelivered(Math.max(0, published.sum() - consumed.sum()))
+                .publishRate(publishedInWindow / seconds)
+                .consumeRate(consumedInWindow / seconds)
+                .latencyCount(histogram.getTotalCount())
+                .latencyP50Micros(histogram.getValueAtPercentile(50.0))
+                .latencyP90Micros(histogram.getValueAtPercentile(90.0))
+                .latencyP99Micros(histogram.getValueAtPercentile(99.0))
+                .latencyP999Micros(histogram.getValueAtPercentile(99.9))
+                .latencyMaxMicros(histogram.getMaxValue())
+                .build();
+
+        for (UnmanagedConsumer<BenchmarkMessage> consumer : consumers) {
+            consumer.stop();
+        }
+        for (UnmanagedPublisher<BenchmarkMessage> publisher : publishers) {
+            publisher.stop();
+        }
+        deleteTopology(connection, configs);
+        connection.stop();
+        executorService.shutdownNow();
+
+        val reportFile = new File(namespace.getString("report"));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        log.info("Benchmark report written to {}", reportFile.getAbsolutePath());
+    }
+
+    private static RMQConfig rmqConfig(final RMQConfig configured, final Namespace namespace) {
+        if (namespace.getBoolean("inMemory")) {
+            configured.getTransport().setInMemory(true);
+        }
+        val brokers = namespace.getString("broker");
+        if (!Strings.isNullOrEmpty(brokers)) {
+            configured.setBrokers(Arrays.stream(brokers.split(","))
+                                          .map(String::trim)
+                                          .map(RabbitmqBenchmarkCommand::broker)
+                                          .collect(Collectors.toList()));
+        }
+        return configured;
+    }
+
+    private static Broker broker(final String hostAndPort) {
+        val separator = hostAndPort.lastIndexOf(':');
+        return separator < 0
+               ? new Broker(hostAndPort, 5672)
+               : new Broker(hostAndPort.substring(0, separator),
+                            Integer.parseInt(hostAndPort.substring(separator + 1)));
+    }
+
+    private static ActorConfig actorConfig(final Namespace namespace) throws Exception {
+        val file = namespace.getString("actorConfig");
+        val config = Strings.isNullOrEmpty(file)
+                     ? new ActorConfig()
+                     : new ObjectMapper(new YAMLFactory()).readValue(new File(file), ActorConfig.class);
+        if (null != namespace.getInt("concurrency")) {
+            config.setConcurrency(namespace.getInt("concurrency"));
+        }
+        if (null != namespace.getInt("prefetch")) {
+            config.setPrefetchCount(namespace.getInt("prefetch"));
+        }
+        if (null != namespace.getInt("shards")) {
+            config.setShardCount(namespace.getInt("shards") > 0 ? namespace.getInt("shards") : null);
+        }
+        return config;
+    }
+
+    private static ActorConfig copy(final ObjectMapper mapper, final ActorConfig template) {
+        return mapper.convertValue(template, ActorConfig.class);
+    }
+
+    private static void validate(final Validator validator,
+                                 final Namespace namespace,
+                                 final ActorConfig config) throws ConfigurationValidationException {
+        val violations = validator.validate(config);
+        if (!violations.isEmpty()) {
+            val file = namespace.getString("actorConfig");
+            throw new ConfigurationValidationException(Strings.isNullOrEmpty(file) ? "actor config" : file,
+                                                       violations);
+        }
+    }
+
+    /*
+        Deletes everything planned for the synthetic actors: queues first, then the exchanges they were bound to
+     */
+    private static void deleteTopology(final RMQConnection connection, final List<ActorConfig> configs) {
+        for (int i = 0; i < configs.size(); i++) {
+            val config = configs.get(i);
+            val queueName = NamingUtils.queueName(config.getPrefix(), String.format("ACTOR_%d", i));
+            val topology = TopologyPlanner.plan(connection, queueName, config);
+            for (QueueSpec queue : topology.getQueues()) {
+                try {
+                    connection.withChannel(channel -> channel.queueDelete(queue.getName()));
+                } catch (Exception e) {
+                    log.warn("Could not delete benchmark queue {}: {}", queue.getName(), e.getMessage());
+                }
+            }
+            for (ExchangeSpec exchange : topology.getExchanges()) {
+                try {
+                    connection.withChannel(channel -> channel.exchangeDelete(exchange.getName()));
+                } catch (Exception e) {
+                    log.warn("Could not delete benchmark exchange {}: {}", exchange.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void shutdown(final ExecutorService executorService) throws InterruptedException {
+        executorService.shutdown();
+        if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Message published by the benchmark. The nano time is only comparable within the JVM, which holds as the
+     * benchmark both publishes and consumes.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BenchmarkMessage {
+        private long sentAt;
+        private long sentAtNanos;
+        private String payload;
+    }
+}
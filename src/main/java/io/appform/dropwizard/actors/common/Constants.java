@@ -12,7 +12,16 @@ public class Constants {
 
     public static final int MAX_THREADS_PER_CONNECTION = 300;
 
+    public static final int MAX_CONNECTIONS_PER_POOL = 32;
+
     public static final String MESSAGE_EXPIRY_TEXT = "x-expire-at";
     public static final String MESSAGE_PUBLISHED_TEXT = "x-published-at";
+    public static final String X_DEATH_HEADER = "x-death";
+    public static final String X_DELIVERY_COUNT_HEADER = "x-delivery-count";
+    public static final String DIRECT_REPLY_TO = "amq.rabbitmq.reply-to";
+    public static final String REPLY_ERROR_HEADER = "x-reply-error";
+    public static final String X_QUEUE_TYPE_ARGUMENT = "x-queue-type";
+    public static final String X_STREAM_OFFSET_HEADER = "x-stream-offset";
+    public static final String MESSAGE_DUE_TEXT = "x-due-at";
 
 }
@@ -20,5 +20,7 @@ package io.appform.dropwizard.actors.common;
  * Error codes
  */
 public enum ErrorCode {
-    INTERNAL_ERROR
+    INTERNAL_ERROR,
+    CHANNEL_POOL_EXHAUSTED,
+    REQUEST_FAILED
 }
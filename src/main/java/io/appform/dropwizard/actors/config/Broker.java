@@ -41,4 +41,16 @@ public class Broker {
     @Min(0)
     @Max(65535)
     private int port;
+
+    /**
+     * Relative share of connections placed on this broker by the {@code WEIGHTED} address resolution strategy.
+     * Brokers with weight 0 are only used for failover.
+     */
+    @Min(0)
+    @Builder.Default
+    private int weight = 1;
+
+    public Broker(String host, int port) {
+        this(host, port, 1);
+    }
 }
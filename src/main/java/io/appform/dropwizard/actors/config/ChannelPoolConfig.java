@@ -0,0 +1,46 @@
+package io.appform.dropwizard.actors.config;
+
+import io.dropwizard.util.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Limits for the channels pooled by every connection for publishing, topology declaration and queue inspection
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChannelPoolConfig {
+
+    /**
+     * Max channels open in the pool at any time
+     */
+    @Min(1)
+    @Max(2047)
+    @Builder.Default
+    private int maxSize = 64;
+
+    /**
+     * Idle channels are closed after this duration
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration idleTimeout = Duration.minutes(5);
+
+    /**
+     * Max time to wait for a channel when all channels are borrowed
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration borrowTimeout = Duration.seconds(5);
+}
@@ -0,0 +1,43 @@
+package io.appform.dropwizard.actors.config;
+
+import io.appform.dropwizard.actors.topology.FastStartMode;
+import io.appform.dropwizard.actors.topology.FingerprintStoreType;
+import io.appform.dropwizard.actors.utils.CommonUtils;
+import io.dropwizard.validation.ValidationMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Skips redeclaration of unchanged topology on startup. A fingerprint of the topology of every actor is stored
+ * after it has been declared and compared on the next start.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FastStartConfig {
+
+    @NotNull
+    @Builder.Default
+    private FastStartMode mode = FastStartMode.DISABLED;
+
+    @NotNull
+    @Builder.Default
+    private FingerprintStoreType store = FingerprintStoreType.FILE;
+
+    /**
+     * Properties file holding fingerprints when the FILE store is used
+     */
+    private String cacheFile;
+
+    @ValidationMethod(message = "cacheFile is required for FILE fingerprint store")
+    public boolean isValidStore() {
+        return mode == FastStartMode.DISABLED
+                || store != FingerprintStoreType.FILE
+                || !CommonUtils.isEmpty(cacheFile);
+    }
+}
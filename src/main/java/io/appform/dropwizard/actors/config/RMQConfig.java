@@ -16,6 +16,7 @@
 
 package io.appform.dropwizard.actors.config;
 
+import io.appform.dropwizard.actors.connectivity.AddressResolution;
 import io.appform.dropwizard.actors.connectivity.ConnectionConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -89,4 +90,53 @@ public class RMQConfig {
     @Valid
     private List<ConnectionConfig> connections;
 
+    /**
+     * Order in which broker connections try the configured brokers
+     */
+    @NotNull
+    @Default
+    private AddressResolution addressResolution = AddressResolution.SHUFFLED;
+
+    @NotNull
+    @Valid
+    @Default
+    private ChannelPoolConfig channelPool = new ChannelPoolConfig();
+
+    /**
+     * Number of channels used in parallel to declare exchanges, queues and bindings
+     */
+    @Min(1)
+    @Max(64)
+    @Default
+    private int topologyDeclarationParallelism = 4;
+
+    @NotNull
+    @Valid
+    @Default
+    private FastStartConfig fastStart = new FastStartConfig();
+
+    /**
+     * Backoff for reconnecting to the broker after a connection failure
+     */
+    @NotNull
+    @Valid
+    @Default
+    private RecoveryConfig recovery = new RecoveryConfig();
+
+    /**
+     * Socket, IO mode and protocol settings for broker connections
+     */
+    @NotNull
+    @Valid
+    @Default
+    private TransportConfig transport = new TransportConfig();
+
+    /**
+     * Trace context propagation through message headers
+     */
+    @NotNull
+    @Valid
+    @Default
+    private TracingConfig tracing = new TracingConfig();
+
 }
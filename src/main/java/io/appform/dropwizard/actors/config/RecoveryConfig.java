@@ -0,0 +1,61 @@
+package io.appform.dropwizard.actors.config;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Backoff used by connections to reconnect to the broker after a connection failure. The n-th attempt waits
+ * {@code min(maxDelay, initialDelay * multiplier^n)}, reduced by a random fraction of up to {@code jitter}, so that
+ * many clients do not hit a restarted broker at the same instant.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecoveryConfig {
+
+    /**
+     * Delay before the first recovery attempt
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration initialDelay = Duration.milliseconds(500);
+
+    /**
+     * Upper bound for the delay between recovery attempts
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration maxDelay = Duration.seconds(30);
+
+    @DecimalMin("1.0")
+    @DecimalMax("10.0")
+    @Builder.Default
+    private double multiplier = 2.0;
+
+    /**
+     * Max fraction of the delay removed at random
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    @Builder.Default
+    private double jitter = 0.5;
+
+    @ValidationMethod(message = "maxDelay must not be less than initialDelay")
+    public boolean isValidDelay() {
+        return initialDelay == null
+                || maxDelay == null
+                || maxDelay.toMilliseconds() >= initialDelay.toMilliseconds();
+    }
+}
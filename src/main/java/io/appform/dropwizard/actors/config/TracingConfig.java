@@ -0,0 +1,30 @@
+package io.appform.dropwizard.actors.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+
+/**
+ * Propagation of W3C trace context through message headers
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TracingConfig {
+
+    private boolean enabled;
+
+    /**
+     * Fraction of published messages that start a new trace. Messages published while handling a traced message
+     * always continue that trace.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    @Builder.Default
+    private double sampleRate = 1.0;
+}
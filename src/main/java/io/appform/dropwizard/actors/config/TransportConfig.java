@@ -0,0 +1,82 @@
+package io.appform.dropwizard.actors.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Socket and protocol level settings for broker connections. Zero means the client or OS default for buffer sizes
+ * and no limit for {@link #requestedFrameMax}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransportConfig {
+
+    /**
+     * Use non blocking IO. The broker connections of one {@code RMQConnection} then share {@link #nioThreads}
+     * selector threads instead of having a reader thread each. Selector threads are not shared between
+     * {@code RMQConnection}s.
+     */
+    private boolean nio;
+
+    /**
+     * Use {@link io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker}, a broker inside the JVM, instead
+     * of connecting to the configured brokers. For tests, benchmarks and development without a broker. Nothing
+     * survives a restart.
+     */
+    private boolean inMemory;
+
+    /**
+     * Selector threads used by the broker connections of one {@code RMQConnection} when {@link #nio} is enabled
+     */
+    @Min(1)
+    @Max(64)
+    @Builder.Default
+    private int nioThreads = 1;
+
+    @Min(0)
+    @Builder.Default
+    private int nioReadBufferSize = 0;
+
+    @Min(0)
+    @Builder.Default
+    private int nioWriteBufferSize = 0;
+
+    /**
+     * Frames that can be queued for writing per connection before publishers block
+     */
+    @Min(0)
+    @Builder.Default
+    private int nioWriteQueueCapacity = 0;
+
+    @Builder.Default
+    private boolean tcpNoDelay = true;
+
+    @Min(0)
+    @Builder.Default
+    private int sendBufferSize = 0;
+
+    @Min(0)
+    @Builder.Default
+    private int receiveBufferSize = 0;
+
+    @Min(0)
+    @Max(3600)
+    @Builder.Default
+    private int requestedHeartbeatSeconds = 60;
+
+    @Min(0)
+    @Builder.Default
+    private int requestedFrameMax = 0;
+
+    @Min(0)
+    @Max(65535)
+    @Builder.Default
+    private int requestedChannelMax = 2047;
+}
@@ -0,0 +1,25 @@
+package io.appform.dropwizard.actors.connectivity;
+
+/**
+ * Order in which broker connections try the configured brokers. The first reachable broker is used, the rest serve
+ * as failover on connect and on recovery.
+ */
+public enum AddressResolution {
+    /**
+     * Configured order. All connections land on the first broker while it is up.
+     */
+    CONFIGURED,
+    /**
+     * Random order for every connection attempt
+     */
+    SHUFFLED,
+    /**
+     * Start at a broker derived from the connection name and pool index and continue in configured order. Pooled
+     * connections of a connection land on consecutive brokers.
+     */
+    ROUND_ROBIN,
+    /**
+     * Random order biased by broker weight
+     */
+    WEIGHTED
+}
@@ -0,0 +1,31 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.rabbitmq.client.RecoveryDelayHandler;
+import io.appform.dropwizard.actors.config.RecoveryConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for connection recovery attempts, as configured by {@link RecoveryConfig}
+ */
+public class BackoffRecoveryDelayHandler implements RecoveryDelayHandler {
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double multiplier;
+    private final double jitter;
+
+    public BackoffRecoveryDelayHandler(RecoveryConfig config) {
+        this.initialDelayMs = config.getInitialDelay().toMilliseconds();
+        this.maxDelayMs = config.getMaxDelay().toMilliseconds();
+        this.multiplier = config.getMultiplier();
+        this.jitter = config.getJitter();
+    }
+
+    @Override
+    public long getDelay(int recoveryAttempts) {
+        final double delay = Math.min(maxDelayMs,
+                                      initialDelayMs * Math.pow(multiplier, Math.max(0, recoveryAttempts)));
+        final double reduction = jitter == 0 ? 0 : delay * jitter * ThreadLocalRandom.current().nextDouble();
+        return Math.round(delay - reduction);
+    }
+}
@@ -0,0 +1,91 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.AddressResolver;
+import io.appform.dropwizard.actors.config.Broker;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves broker addresses for a single broker connection as per the configured {@link AddressResolution}
+ */
+public class BrokerAddressResolver implements AddressResolver {
+    private final List<Broker> brokers;
+    private final AddressResolution addressResolution;
+    private final int offset;
+
+    public BrokerAddressResolver(final List<Broker> brokers,
+                                 final AddressResolution addressResolution,
+                                 final String connectionName,
+                                 final int poolIndex) {
+        this.brokers = new ArrayList<>(brokers);
+        this.addressResolution = addressResolution;
+        this.offset = Math.floorMod(connectionName.hashCode() + poolIndex, Math.max(1, brokers.size()));
+    }
+
+    @Override
+    public List<Address> getAddresses() {
+        switch (addressResolution) {
+            case SHUFFLED: {
+                val shuffled = new ArrayList<>(brokers);
+                Collections.shuffle(shuffled, ThreadLocalRandom.current());
+                return addresses(shuffled);
+            }
+            case ROUND_ROBIN: {
+                val rotated = new ArrayList<>(brokers);
+                Collections.rotate(rotated, -offset);
+                return addresses(rotated);
+            }
+            case WEIGHTED:
+                return addresses(weighted());
+            case CONFIGURED:
+            default:
+                return addresses(brokers);
+        }
+    }
+
+    /*
+        The order is decided by getAddresses(), the client must not shuffle it again.
+     */
+    @Override
+    public List<Address> maybeShuffle(List<Address> input) {
+        return input;
+    }
+
+    /*
+        Weighted random ordering without replacement: each broker gets the key random^(1/weight) and brokers are
+        tried in descending key order. Brokers with weight 0 are tried last.
+     */
+    private List<Broker> weighted() {
+        val random = ThreadLocalRandom.current();
+        return brokers.stream()
+                .map(broker -> new WeightedBroker(broker, broker.getWeight() <= 0
+                                                          ? -1
+                                                          : Math.pow(random.nextDouble(), 1.0 / broker.getWeight())))
+                .sorted(Comparator.comparingDouble((WeightedBroker weightedBroker) -> weightedBroker.key).reversed())
+                .map(weightedBroker -> weightedBroker.broker)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Address> addresses(List<Broker> brokers) {
+        return brokers.stream()
+                .map(broker -> new Address(broker.getHost(), broker.getPort()))
+                .collect(Collectors.toList());
+    }
+
+    private static final class WeightedBroker {
+        private final Broker broker;
+        private final double key;
+
+        private WeightedBroker(Broker broker, double key) {
+            this.broker = broker;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.appform.dropwizard.actors.connectivity;
+
+/**
+ * How new channels are spread across the pooled connections of an {@link RMQConnection}
+ */
+public enum ChannelDistribution {
+    /**
+     * Pick the pooled connection with the least open channels
+     */
+    LEAST_CHANNELS,
+    /**
+     * Cycle through the pooled connections
+     */
+    ROUND_ROBIN
+}
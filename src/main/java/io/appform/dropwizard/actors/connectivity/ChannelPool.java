@@ -0,0 +1,190 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.rabbitmq.client.Channel;
+import io.appform.dropwizard.actors.common.ErrorCode;
+import io.appform.dropwizard.actors.common.RabbitmqActorException;
+import io.appform.dropwizard.actors.config.ChannelPoolConfig;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of channels on an {@link RMQConnection}. Channels are validated when borrowed and closed once they
+ * have been idle for longer than the configured idle timeout. Idle channels are reused most recently used first, so
+ * a single publishing thread keeps using the same channel.
+ */
+@Slf4j
+public class ChannelPool {
+
+    /**
+     * Work done with a borrowed channel
+     */
+    @FunctionalInterface
+    public interface ChannelFunction<T> {
+        T apply(Channel channel) throws Exception;
+    }
+
+    /**
+     * Opens channels for the pool
+     */
+    @FunctionalInterface
+    public interface ChannelFactory {
+        Channel newChannel() throws IOException;
+    }
+
+    private final String name;
+    private final ChannelFactory channelFactory;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final Semaphore permits;
+    private final Deque<IdleChannel> idleChannels = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ChannelPool(final String name,
+                       final ChannelPoolConfig config,
+                       final ChannelFactory channelFactory) {
+        this.name = name;
+        this.channelFactory = channelFactory;
+        this.idleTimeoutMs = config.getIdleTimeout().toMilliseconds();
+        this.borrowTimeoutMs = config.getBorrowTimeout().toMilliseconds();
+        this.permits = new Semaphore(config.getMaxSize(), true);
+    }
+
+    public <T> T withChannel(final ChannelFunction<T> function) throws Exception {
+        val channel = borrow();
+        try {
+            return function.apply(channel);
+        } finally {
+            release(channel);
+        }
+    }
+
+    public Channel borrow() throws IOException, InterruptedException {
+        if (closed) {
+            throw new IllegalStateException(String.format("Channel pool for [%s] is closed", name));
+        }
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RabbitmqActorException(ErrorCode.CHANNEL_POOL_EXHAUSTED,
+                        String.format("No channel available on [%s] after waiting %d ms", name, borrowTimeoutMs),
+                        null);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        try {
+            val channel = idleOrNewChannel();
+            borrowed.incrementAndGet();
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(final Channel channel) {
+        borrowed.decrementAndGet();
+        try {
+            if (!closed && channel.isOpen()) {
+                idleChannels.offerFirst(new IdleChannel(channel, System.currentTimeMillis()));
+            } else {
+                discard(channel);
+            }
+            evictIdleChannels();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        IdleChannel idleChannel;
+        while (null != (idleChannel = idleChannels.pollFirst())) {
+            discard(idleChannel.channel);
+        }
+    }
+
+    public void registerMetrics(final MetricRegistry metricRegistry, final String prefix) {
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "channelpool", "open"), open::get);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "channelpool", "borrowed"), borrowed::get);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "channelpool", "waiting"), waiting::get);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "channelpool", "idle"), idleChannels::size);
+    }
+
+    public int openChannels() {
+        return open.get();
+    }
+
+    public int borrowedChannels() {
+        return borrowed.get();
+    }
+
+    public int waitingThreads() {
+        return waiting.get();
+    }
+
+    private Channel idleOrNewChannel() throws IOException {
+        val now = System.currentTimeMillis();
+        IdleChannel idleChannel;
+        while (null != (idleChannel = idleChannels.pollFirst())) {
+            if (idleChannel.channel.isOpen() && now - idleChannel.idleSince < idleTimeoutMs) {
+                return idleChannel.channel;
+            }
+            discard(idleChannel.channel);
+        }
+        val channel = channelFactory.newChannel();
+        open.incrementAndGet();
+        return channel;
+    }
+
+    /*
+        Least recently used channels sit at the tail, so eviction stops at the first channel that is still fresh.
+     */
+    private void evictIdleChannels() {
+        val now = System.currentTimeMillis();
+        IdleChannel idleChannel;
+        while (null != (idleChannel = idleChannels.peekLast()) && now - idleChannel.idleSince >= idleTimeoutMs) {
+            if (idleChannels.removeLastOccurrence(idleChannel)) {
+                discard(idleChannel.channel);
+            }
+        }
+    }
+
+    private void discard(final Channel channel) {
+        open.decrementAndGet();
+        try {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (Exception e) {
+            log.warn("Error closing pooled channel on [{}]: {}", name, e.getMessage());
+        }
+    }
+
+    private static void registerGauge(MetricRegistry metricRegistry, String name, Gauge<Integer> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    private static final class IdleChannel {
+        private final Channel channel;
+        private final long idleSince;
+
+        private IdleChannel(Channel channel, long idleSince) {
+            this.channel = channel;
+            this.idleSince = idleSince;
+        }
+    }
+}
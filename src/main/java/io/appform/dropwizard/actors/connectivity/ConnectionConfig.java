@@ -25,4 +25,16 @@ public class ConnectionConfig {
     @Max(Constants.MAX_THREADS_PER_CONNECTION)
     private int threadPoolSize;
 
+    /**
+     * Number of broker connections opened for this logical connection. Channels are spread across them.
+     */
+    @Min(1)
+    @Max(Constants.MAX_CONNECTIONS_PER_POOL)
+    @Builder.Default
+    private int connectionPoolSize = 1;
+
+    @NotNull
+    @Builder.Default
+    private ChannelDistribution channelDistribution = ChannelDistribution.LEAST_CHANNELS;
+
 }
@@ -0,0 +1,19 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.rabbitmq.client.Connection;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A broker connection that is part of the pool backing an {@link RMQConnection}
+ */
+@Getter
+class PooledConnection {
+    private final Connection connection;
+    private final AtomicInteger openChannels = new AtomicInteger();
+
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+    }
+}
@@ -17,47 +17,89 @@
 
 package io.appform.dropwizard.actors.connectivity;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheck;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
-import com.rabbitmq.client.Address;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.rabbitmq.client.BlockedListener;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
+import com.rabbitmq.client.ShutdownSignalException;
 import com.rabbitmq.client.impl.StandardMetricsCollector;
+import com.rabbitmq.client.impl.nio.NioParams;
 import io.appform.dropwizard.actors.TtlConfig;
 import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.QueueType;
 import io.appform.dropwizard.actors.base.utils.NamingUtils;
 import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.config.TransportConfig;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.appform.dropwizard.actors.metrics.LatencyTrackers;
+import io.appform.dropwizard.actors.rpc.DirectReplyClient;
+import io.appform.dropwizard.actors.topology.BrokerTopologyFingerprintStore;
+import io.appform.dropwizard.actors.topology.FastStartMode;
+import io.appform.dropwizard.actors.topology.FileTopologyFingerprintStore;
+import io.appform.dropwizard.actors.topology.FingerprintStoreType;
+import io.appform.dropwizard.actors.topology.Topology;
+import io.appform.dropwizard.actors.topology.TopologyDeclarer;
+import io.appform.dropwizard.actors.topology.TopologyFingerprintStore;
+import io.appform.dropwizard.actors.tracing.Tracer;
 import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Environment;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.ssl.SSLContexts;
 
 import javax.net.ssl.SSLContext;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.Socket;
 import java.security.KeyStore;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.appform.dropwizard.actors.common.Constants.X_QUEUE_TYPE_ARGUMENT;
 
 @Slf4j
 public class RMQConnection implements Managed {
     @Getter
     private final RMQConfig config;
     private final String name;
+    private final ConnectionConfig connectionConfig;
     private final ExecutorService executorService;
     private final Environment environment;
     private final TtlConfig ttlConfig;
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final Tracer tracer;
+    private final Set<Connection> blockedConnections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Topology> plannedTopologies = new LinkedHashMap<>();
     private Connection connection;
     private Channel channel;
+    @Getter
+    private ChannelPool channelPool;
+    private TopologyDeclarer topologyDeclarer;
+    private RecoveryTracker recoveryTracker;
+    private DirectReplyClient replyClient;
+    private LatencyTrackers latencyTrackers;
 
 
     public RMQConnection(final String name,
@@ -65,17 +107,32 @@ public class RMQConnection implements Managed {
                          final ExecutorService executorService,
                          final Environment environment,
                          final TtlConfig ttlConfig) {
-        this.name = name;
+        this(ConnectionConfig.builder()
+                     .name(name)
+                     .threadPoolSize(config.getThreadPoolSize())
+                     .build(),
+             config, executorService, environment, ttlConfig);
+    }
+
+    public RMQConnection(final ConnectionConfig connectionConfig,
+                         final RMQConfig config,
+                         final ExecutorService executorService,
+                         final Environment environment,
+                         final TtlConfig ttlConfig) {
+        this.name = connectionConfig.getName();
+        this.connectionConfig = connectionConfig;
         this.config = config;
         this.executorService = executorService;
         this.environment = environment;
         this.ttlConfig = ttlConfig;
+        this.tracer = null == config.getTracing() ? Tracer.disabled() : new Tracer(config.getTracing());
     }
 
 
     @Override
     public void start() throws Exception {
-        log.info(String.format("Starting RMQ connection [%s]", name));
+        log.info(String.format("Starting RMQ connection [%s] with [%d] pooled connections",
+                name, connectionConfig.getConnectionPoolSize()));
         ConnectionFactory factory = new ConnectionFactory();
         factory.setMetricsCollector(new StandardMetricsCollector(environment.metrics(), metricPrefix(name)));
         if (config.isSecure()) {
@@ -106,31 +163,144 @@ public class RMQConnection implements Managed {
         }
         factory.setAutomaticRecoveryEnabled(true);
         factory.setTopologyRecoveryEnabled(true);
-        factory.setNetworkRecoveryInterval(3000);
-        factory.setRequestedHeartbeat(60);
+        factory.setRecoveryDelayHandler(new BackoffRecoveryDelayHandler(config.getRecovery()));
+        configureTransport(factory, config.getTransport());
         if (!Strings.isNullOrEmpty(config.getVirtualHost())) {
             factory.setVirtualHost(config.getVirtualHost());
         }
-        connection = factory.newConnection(executorService,
-                config.getBrokers().stream()
-                        .map(broker -> new Address(broker.getHost(), broker.getPort()))
-                        .toArray(Address[]::new),
-                name
+        recoveryTracker = new RecoveryTracker(name, environment.metrics(), metricPrefix(name));
+        for (int i = 0; i < connectionConfig.getConnectionPoolSize(); i++) {
+            val pooledConnection = newConnection(factory, pooledConnectionName(i), i);
+            recoveryTracker.track(pooledConnection);
+            connections.add(new PooledConnection(pooledConnection));
+            registerNodeGauge(i, pooledConnection);
+        }
+        connection = connections.get(0).getConnection();
+        channel = newChannel();
+        channelPool = new ChannelPool(name, config.getChannelPool(), this::newChannel);
+        channelPool.registerMetrics(environment.metrics(), metricPrefix(name));
+        topologyDeclarer = new TopologyDeclarer(name, channelPool, config.getTopologyDeclarationParallelism(),
+                config.getFastStart().getMode(), fingerprintStore(), environment.metrics(), metricPrefix(name));
+        connections.forEach(pooledConnection -> redeclareOnRecovery(pooledConnection.getConnection()));
+        environment.healthChecks().register(String.format("rmqconnection-%s-%s", connection, UUID.randomUUID()), healthcheck());
+        log.info(String.format("Started RMQ connection [%s] ", name));
+    }
+
+    /*
+        Sockets are configured the same way for both transports. NIO selector loops belong to the connection factory,
+        so each RMQConnection runs its own. Their threads come from a shared cached pool of daemon threads, which only
+        reuses threads of loops that have ended.
+     */
+    static void configureTransport(final ConnectionFactory factory, final TransportConfig transportConfig) {
+        factory.setRequestedHeartbeat(transportConfig.getRequestedHeartbeatSeconds());
+        factory.setRequestedFrameMax(transportConfig.getRequestedFrameMax());
+        factory.setRequestedChannelMax(transportConfig.getRequestedChannelMax());
+        if (!transportConfig.isNio()) {
+            factory.setSocketConfigurator(socket -> configureSocket(socket, transportConfig));
+            return;
+        }
+        val nioParams = new NioParams()
+                .setNbIoThreads(transportConfig.getNioThreads())
+                .setNioExecutor(NioExecutorHolder.EXECUTOR);
+        if (transportConfig.getNioReadBufferSize() > 0) {
+            nioParams.setReadByteBufferSize(transportConfig.getNioReadBufferSize());
+        }
+        if (transportConfig.getNioWriteBufferSize() > 0) {
+            nioParams.setWriteByteBufferSize(transportConfig.getNioWriteBufferSize());
+        }
+        if (transportConfig.getNioWriteQueueCapacity() > 0) {
+            nioParams.setWriteQueueCapacity(transportConfig.getNioWriteQueueCapacity());
+        }
+        nioParams.setSocketChannelConfigurator(socketChannel -> configureSocket(socketChannel.socket(),
+                                                                                transportConfig));
+        factory.setNioParams(nioParams);
+        factory.useNio();
+    }
+
+    private static void configureSocket(final Socket socket, final TransportConfig transportConfig)
+            throws IOException {
+        socket.setTcpNoDelay(transportConfig.isTcpNoDelay());
+        if (transportConfig.getSendBufferSize() > 0) {
+            socket.setSendBufferSize(transportConfig.getSendBufferSize());
+        }
+        if (transportConfig.getReceiveBufferSize() > 0) {
+            socket.setReceiveBufferSize(transportConfig.getReceiveBufferSize());
+        }
+    }
+
+    private Connection newConnection(final ConnectionFactory factory,
+                                     final String connectionName,
+                                     final int poolIndex) throws Exception {
+        val newConnection = config.getTransport().isInMemory()
+                            ? InMemoryBroker.instance().newConnection(connectionName)
+                            : factory.newConnection(executorService,
+                new BrokerAddressResolver(config.getBrokers(), config.getAddressResolution(), name, poolIndex),
+                connectionName
         );
-        connection.addBlockedListener(new BlockedListener() {
+        log.info("RMQ Connection [{}] connected to [{}]", connectionName, node(newConnection));
+        newConnection.addBlockedListener(new BlockedListener() {
             @Override
             public void handleBlocked(String reason) {
-                log.warn(String.format("RMQ Connection [%s] is blocked due to [%s]", name, reason));
+                log.warn(String.format("RMQ Connection [%s] is blocked due to [%s]", connectionName, reason));
+                blockedConnections.add(newConnection);
             }
 
             @Override
             public void handleUnblocked() {
-                log.warn(String.format("RMQ Connection [%s] is unblocked now", name));
+                log.warn(String.format("RMQ Connection [%s] is unblocked now", connectionName));
+                blockedConnections.remove(newConnection);
             }
         });
-        channel = connection.createChannel();
-        environment.healthChecks().register(String.format("rmqconnection-%s-%s", connection, UUID.randomUUID()), healthcheck());
-        log.info(String.format("Started RMQ connection [%s] ", name));
+        return newConnection;
+    }
+
+    /*
+        Entities may have been deleted on the broker or lost along with a node while the connection was down, so
+        actors started after a recovery declare their topology again
+     */
+    private void redeclareOnRecovery(final Connection pooledConnection) {
+        if (pooledConnection instanceof Recoverable) {
+            ((Recoverable) pooledConnection).addRecoveryListener(new RecoveryListener() {
+                @Override
+                public void handleRecovery(Recoverable recoverable) {
+                    topologyDeclarer.reset();
+                }
+
+                @Override
+                public void handleRecoveryStarted(Recoverable recoverable) {
+                    //Nothing to do here
+                }
+            });
+        }
+    }
+
+    /*
+        Reports the broker a pooled connection currently lives on. This changes when the connection recovers.
+     */
+    private void registerNodeGauge(final int poolIndex, final Connection pooledConnection) {
+        val metricName = MetricRegistry.name(metricPrefix(name), "connections", String.valueOf(poolIndex), "node");
+        environment.metrics().remove(metricName);
+        environment.metrics().register(metricName, (Gauge<String>) () -> node(pooledConnection));
+    }
+
+    private static String node(final Connection brokerConnection) {
+        return String.format("%s:%d", brokerConnection.getAddress().getHostAddress(), brokerConnection.getPort());
+    }
+
+    private String pooledConnectionName(int index) {
+        return connectionConfig.getConnectionPoolSize() == 1
+               ? name
+               : String.format("%s-%d", name, index);
+    }
+
+    private TopologyFingerprintStore fingerprintStore() {
+        val fastStartConfig = config.getFastStart();
+        if (fastStartConfig.getMode() == FastStartMode.DISABLED) {
+            return null;
+        }
+        return fastStartConfig.getStore() == FingerprintStoreType.BROKER
+               ? new BrokerTopologyFingerprintStore(channelPool)
+               : FileTopologyFingerprintStore.forFile(fastStartConfig.getCacheFile());
     }
 
     private String metricPrefix(String name) {
@@ -147,38 +317,132 @@ public class RMQConnection implements Managed {
                        final String routingQueue,
                        final String exchange,
                        final Map<String, Object> rmqOpts) throws Exception {
-        channel.queueDeclare(queueName, true, false, false, rmqOpts);
-        channel.queueBind(queueName, exchange, routingQueue);
+        withChannel(poolChannel -> {
+            poolChannel.queueDeclare(queueName, true, false, false, rmqOpts);
+            return poolChannel.queueBind(queueName, exchange, routingQueue);
+        });
         log.info("Created queue: {} bound to {}", queueName, exchange);
     }
 
+    /**
+     * Declares all exchanges, queues and bindings in the topology that have not been declared on this connection yet
+     */
+    public void declare(final Topology topology) throws Exception {
+        topologyDeclarer.declare(topology);
+    }
+
+    /**
+     * Adds the topology of an actor to be declared along with that of all other planned actors by
+     * {@link #declarePlanned()}
+     *
+     * @param key      Key identifying the actor, usually its queue name
+     * @param topology Topology of the actor
+     */
+    public synchronized void plan(final String key, final Topology topology) {
+        plannedTopologies.put(key, topology);
+    }
+
+    /**
+     * Declares the topology of all actors planned so far in a single parallel declaration, in which entities shared
+     * between actors are declared once. Run by the {@link io.appform.dropwizard.actors.ConnectionRegistry} when it
+     * starts, before the actors start. If the declaration fails the topologies stay planned, and every actor still
+     * declares its own topology when it starts.
+     */
+    public void declarePlanned() throws Exception {
+        final Map<String, Topology> topologies;
+        synchronized (this) {
+            topologies = new LinkedHashMap<>(plannedTopologies);
+            plannedTopologies.clear();
+        }
+        if (topologies.isEmpty()) {
+            return;
+        }
+        try {
+            topologyDeclarer.declare(topologies);
+        } catch (Exception e) {
+            synchronized (this) {
+                topologies.forEach(plannedTopologies::putIfAbsent);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Declares the topology, skipping or passively checking it if fast start is enabled and the fingerprint matches
+     * the one stored for the key
+     */
+    public void declare(final Topology topology, final String key, final String fingerprint) throws Exception {
+        topologyDeclarer.declare(topology, key, fingerprint);
+    }
+
     public void addBinding(String queueName, String exchange, String routingKey) throws Exception {
-        channel.queueBind(queueName, exchange, routingKey);
+        withChannel(poolChannel -> poolChannel.queueBind(queueName, exchange, routingKey));
         log.info("Created binding for queue : {} bound to {} routing Key {}", queueName, exchange, routingKey);
     }
 
+    /**
+     * Runs the function with a channel borrowed from the pool. The channel must not be used after the function
+     * returns.
+     */
+    public <T> T withChannel(final ChannelPool.ChannelFunction<T> function) throws Exception {
+        return channelPool.withChannel(function);
+    }
+
+    public long messageCount(final String queueName) throws Exception {
+        return withChannel(poolChannel -> poolChannel.messageCount(queueName));
+    }
+
     public Map<String, Object> rmqOpts(final ActorConfig actorConfig) {
-        final Map<String, Object> ttlOpts = getActorTTLOpts(actorConfig.getTtlConfig());
-        final Map<String, Object> priorityOpts = getPriorityOpts(actorConfig);
-        return ImmutableMap.<String, Object>builder()
-                .putAll(ttlOpts)
-                .putAll(priorityOpts)
-                .put("x-ha-policy", "all")
-                .put("ha-mode", "all")
-                .build();
+        return queueOpts(actorConfig).build();
     }
 
+    /**
+     * Queue arguments dead lettering to the exchange. Streams cannot dead letter, so it is left out for them.
+     */
     public Map<String, Object> rmqOpts(final String deadLetterExchange,
                                        final ActorConfig actorConfig) {
-        final Map<String, Object> ttlOpts = getActorTTLOpts(actorConfig.getTtlConfig());
-        final Map<String, Object> priorityOpts = getPriorityOpts(actorConfig);
-        return ImmutableMap.<String, Object>builder()
-                .putAll(ttlOpts)
-                .putAll(priorityOpts)
-                .put("x-ha-policy", "all")
-                .put("ha-mode", "all")
-                .put("x-dead-letter-exchange", deadLetterExchange)
-                .build();
+        final ImmutableMap.Builder<String, Object> opts = queueOpts(actorConfig);
+        if (actorConfig.getQueueType() != QueueType.STREAM) {
+            opts.put("x-dead-letter-exchange", deadLetterExchange);
+        }
+        return opts.build();
+    }
+
+    /*
+        Classic queues keep the legacy mirroring arguments and get no explicit type, so that the arguments, and with
+        them the topology fingerprints, of existing queues do not change
+     */
+    private ImmutableMap.Builder<String, Object> queueOpts(final ActorConfig actorConfig) {
+        final ImmutableMap.Builder<String, Object> opts = ImmutableMap.builder();
+        switch (actorConfig.getQueueType()) {
+            case QUORUM:
+                opts.putAll(getActorTTLOpts(actorConfig.getTtlConfig()))
+                        .put(X_QUEUE_TYPE_ARGUMENT, QueueType.QUORUM.getArgument());
+                if (null != actorConfig.getQuorumDeliveryLimit()) {
+                    opts.put("x-delivery-limit", actorConfig.getQuorumDeliveryLimit());
+                }
+                if (null != actorConfig.getQuorumInitialGroupSize()) {
+                    opts.put("x-quorum-initial-group-size", actorConfig.getQuorumInitialGroupSize());
+                }
+                break;
+            case STREAM:
+                opts.put(X_QUEUE_TYPE_ARGUMENT, QueueType.STREAM.getArgument());
+                break;
+            case CLASSIC:
+            default:
+                opts.putAll(getActorTTLOpts(actorConfig.getTtlConfig()))
+                        .putAll(getPriorityOpts(actorConfig))
+                        .put("x-ha-policy", "all")
+                        .put("ha-mode", "all");
+                if (actorConfig.isLazy()) {
+                    opts.put("x-queue-mode", "lazy");
+                }
+                if (null != actorConfig.getClassicQueueVersion()) {
+                    opts.put("x-queue-version", actorConfig.getClassicQueueVersion());
+                }
+                break;
+        }
+        return opts;
     }
 
     public HealthCheck healthcheck() {
@@ -189,7 +453,7 @@ public class RMQConnection implements Managed {
                     log.warn("RMQ Healthcheck::No RMQ connection available");
                     return Result.unhealthy("No RMQ connection available");
                 }
-                if (!connection.isOpen()) {
+                if (connections.stream().anyMatch(pooledConnection -> !pooledConnection.getConnection().isOpen())) {
                     log.warn("RMQ Healthcheck::RMQ connection is not open");
                     return Result.unhealthy("RMQ connection is not open");
                 }
@@ -208,11 +472,29 @@ public class RMQConnection implements Managed {
 
     @Override
     public void stop() throws Exception {
+        synchronized (this) {
+            if (null != replyClient) {
+                replyClient.close();
+                replyClient = null;
+            }
+            if (null != latencyTrackers) {
+                latencyTrackers.stop();
+                latencyTrackers = null;
+            }
+        }
+        if (null != topologyDeclarer) {
+            topologyDeclarer.close();
+        }
+        if (null != channelPool) {
+            channelPool.close();
+        }
         if (null != channel && channel.isOpen()) {
             channel.close();
         }
-        if (null != connection && connection.isOpen()) {
-            connection.close();
+        for (PooledConnection pooledConnection : connections) {
+            if (pooledConnection.getConnection().isOpen()) {
+                pooledConnection.getConnection().close();
+            }
         }
     }
 
@@ -220,8 +502,79 @@ public class RMQConnection implements Managed {
         return channel;
     }
 
+    public MetricRegistry metrics() {
+        return environment.metrics();
+    }
+
+    /**
+     * @return true if the broker has blocked publishing on the connection due to a resource alarm
+     */
+    public boolean isBlocked(final Connection rmqConnection) {
+        return blockedConnections.contains(rmqConnection);
+    }
+
+    public Tracer tracer() {
+        return tracer;
+    }
+
+    /**
+     * Latency trackers of the actors on this connection, created on first use and stopped with the connection
+     */
+    public synchronized LatencyTrackers latencyTrackers() {
+        if (null == latencyTrackers) {
+            latencyTrackers = new LatencyTrackers(metrics());
+        }
+        return latencyTrackers;
+    }
+
+    /**
+     * Client for requests expecting a reply through direct reply-to, created on first use with a channel of its own
+     */
+    public synchronized DirectReplyClient replyClient() throws IOException {
+        if (null == replyClient) {
+            replyClient = new DirectReplyClient(name, newChannel());
+        }
+        return replyClient;
+    }
+
+    /**
+     * Opens a new channel on one of the pooled connections, picked as per the configured {@link ChannelDistribution}
+     */
     public Channel newChannel() throws IOException {
-        return connection.createChannel();
+        val pooledConnection = selectConnection();
+        val newChannel = pooledConnection.getConnection().createChannel();
+        pooledConnection.getOpenChannels().incrementAndGet();
+        recoveryTracker.track(newChannel);
+        newChannel.addShutdownListener(cause -> {
+            if (isPermanentlyClosed(cause)) {
+                pooledConnection.getOpenChannels().decrementAndGet();
+            }
+        });
+        return newChannel;
+    }
+
+    private PooledConnection selectConnection() {
+        if (connections.size() == 1) {
+            return connections.get(0);
+        }
+        if (connectionConfig.getChannelDistribution() == ChannelDistribution.ROUND_ROBIN) {
+            return connections.get(Math.floorMod(nextConnection.getAndIncrement(), connections.size()));
+        }
+        PooledConnection selected = connections.get(0);
+        for (PooledConnection pooledConnection : connections) {
+            if (pooledConnection.getOpenChannels().get() < selected.getOpenChannels().get()) {
+                selected = pooledConnection;
+            }
+        }
+        return selected;
+    }
+
+    /*
+        Channels are recovered along with their connection, so only explicit closes and channel level errors
+        reduce the number of channels living on a connection.
+     */
+    private static boolean isPermanentlyClosed(ShutdownSignalException cause) {
+        return !cause.isHardError() || cause.isInitiatedByApplication();
     }
 
     private Map<String, Object> getActorTTLOpts(final TtlConfig ttlConfig) {
@@ -249,4 +602,10 @@ public class RMQConnection implements Managed {
         }
     }
 
+    private static final class NioExecutorHolder {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("rmq-nio-%d")
+                .setDaemon(true)
+                .build());
+    }
 }
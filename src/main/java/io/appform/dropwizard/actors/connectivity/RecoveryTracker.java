@@ -0,0 +1,112 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks connection loss and recovery for the broker connections backing an {@link RMQConnection}. Publishes:
+ * <ul>
+ *     <li>recovery.timeToRecoverMs: Histogram of time between losing a connection and its recovery</li>
+ *     <li>recovery.connectionsLost, recovery.started, recovery.completed: Counters for connection recoveries</li>
+ *     <li>recovery.channels: Counter of recovered channels</li>
+ *     <li>up: 1 if all broker connections are open, 0 otherwise</li>
+ *     <li>connectionsDown: Number of broker connections that are not open</li>
+ * </ul>
+ */
+@Slf4j
+public class RecoveryTracker {
+    private final String name;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final Map<Connection, Long> lostAt = new ConcurrentHashMap<>();
+    private final Histogram timeToRecover;
+    private final Counter connectionsLost;
+    private final Counter recoveriesStarted;
+    private final Counter recoveriesCompleted;
+    private final Counter channelRecoveries;
+
+    public RecoveryTracker(final String name, final MetricRegistry metricRegistry, final String metricPrefix) {
+        this.name = name;
+        this.timeToRecover = metricRegistry.histogram(MetricRegistry.name(metricPrefix, "recovery", "timeToRecoverMs"));
+        this.connectionsLost = metricRegistry.counter(MetricRegistry.name(metricPrefix, "recovery", "connectionsLost"));
+        this.recoveriesStarted = metricRegistry.counter(MetricRegistry.name(metricPrefix, "recovery", "started"));
+        this.recoveriesCompleted = metricRegistry.counter(MetricRegistry.name(metricPrefix, "recovery", "completed"));
+        this.channelRecoveries = metricRegistry.counter(MetricRegistry.name(metricPrefix, "recovery", "channels"));
+        registerGauge(metricRegistry, MetricRegistry.name(metricPrefix, "up"), () -> connectionsDown() == 0 ? 1 : 0);
+        registerGauge(metricRegistry, MetricRegistry.name(metricPrefix, "connectionsDown"), this::connectionsDown);
+    }
+
+    public void track(final Connection connection) {
+        connections.add(connection);
+        connection.addShutdownListener(cause -> {
+            if (cause.isInitiatedByApplication()) {
+                return;
+            }
+            lostAt.putIfAbsent(connection, System.currentTimeMillis());
+            connectionsLost.inc();
+            log.warn("Connection [{}] on [{}] lost: {}", connection.getClientProvidedName(), name, cause.getMessage());
+        });
+        if (connection instanceof Recoverable) {
+            ((Recoverable) connection).addRecoveryListener(new RecoveryListener() {
+                @Override
+                public void handleRecovery(Recoverable recoverable) {
+                    recoveriesCompleted.inc();
+                    val since = lostAt.remove(connection);
+                    if (null == since) {
+                        log.info("Connection [{}] on [{}] recovered", connection.getClientProvidedName(), name);
+                        return;
+                    }
+                    val elapsedMs = System.currentTimeMillis() - since;
+                    timeToRecover.update(elapsedMs);
+                    log.info("Connection [{}] on [{}] recovered in {} ms",
+                             connection.getClientProvidedName(), name, elapsedMs);
+                }
+
+                @Override
+                public void handleRecoveryStarted(Recoverable recoverable) {
+                    recoveriesStarted.inc();
+                    log.info("Recovery started for connection [{}] on [{}]", connection.getClientProvidedName(), name);
+                }
+            });
+        }
+    }
+
+    public void track(final Channel channel) {
+        if (channel instanceof Recoverable) {
+            ((Recoverable) channel).addRecoveryListener(new RecoveryListener() {
+                @Override
+                public void handleRecovery(Recoverable recoverable) {
+                    channelRecoveries.inc();
+                }
+
+                @Override
+                public void handleRecoveryStarted(Recoverable recoverable) {
+                    //Nothing to do here
+                }
+            });
+        }
+    }
+
+    public int connectionsDown() {
+        return (int) connections.stream()
+                .filter(connection -> !connection.isOpen())
+                .count();
+    }
+
+    private static void registerGauge(MetricRegistry metricRegistry, String name, Gauge<Integer> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+}
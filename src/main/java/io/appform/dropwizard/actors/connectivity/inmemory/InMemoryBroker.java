@@ -0,0 +1,412 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Connection;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.appform.dropwizard.actors.common.Constants.X_STREAM_OFFSET_HEADER;
+
+/**
+ * A broker inside the JVM, covering the part of AMQP 0-9-1 this library uses: the default, direct, fanout and
+ * delayed message exchanges, queues with dead lettering, per message and per queue TTL, priorities and max length,
+ * queues expiring once unused, streams consumed from an offset, prefetch, basic get and ack/nack/reject. Like
+ * RabbitMQ, messages only expire once they reach the head of their queue.
+ * <p>
+ * Used by {@link io.appform.dropwizard.actors.connectivity.RMQConnection} when the in memory transport is configured.
+ * Nothing is persisted and everything lives in a single JVM wide instance, see {@link #instance()}.
+ */
+@Slf4j
+public class InMemoryBroker {
+    public static final String DEFAULT_EXCHANGE = "";
+
+    private static final InMemoryBroker INSTANCE = new InMemoryBroker();
+    private static final String DIRECT = "direct";
+    private static final String FANOUT = "fanout";
+    private static final String DELAYED = "x-delayed-message";
+    private static final String DELAY_HEADER = "x-delay";
+    private static final String DEATH_HEADER = "x-death";
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("rmq-inmemory-scheduler-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private final Map<String, Exchange> exchanges = new HashMap<>();
+    private final Map<String, InMemoryQueue> queues = new HashMap<>();
+
+    public static InMemoryBroker instance() {
+        return INSTANCE;
+    }
+
+    public Connection newConnection(final String connectionName) {
+        return InMemoryConnection.create(this, connectionName);
+    }
+
+    /**
+     * Drops all exchanges, queues and messages. Meant to isolate tests from each other.
+     */
+    public synchronized void reset() {
+        exchanges.clear();
+        queues.clear();
+    }
+
+    public synchronized long messageCount(final String queueName) throws IOException {
+        return queue(queueName).messageCount();
+    }
+
+    public synchronized long consumerCount(final String queueName) throws IOException {
+        return queue(queueName).subscriptions.size();
+    }
+
+    public synchronized Set<String> queueNames() {
+        return new LinkedHashSet<>(queues.keySet());
+    }
+
+    public synchronized Set<String> exchangeNames() {
+        return new LinkedHashSet<>(exchanges.keySet());
+    }
+
+    synchronized void declareExchange(final String name, final String type, final Map<String, Object> arguments)
+            throws IOException {
+        String routingType = type;
+        if (DELAYED.equals(type)) {
+            routingType = null == arguments ? null : Objects.toString(arguments.get("x-delayed-type"), null);
+        }
+        if (!DIRECT.equals(routingType) && !FANOUT.equals(routingType)) {
+            throw new IOException(String.format("COMMAND_INVALID - exchange type '%s' is not supported in memory",
+                                                type));
+        }
+        exchanges.putIfAbsent(name, new Exchange(FANOUT.equals(routingType), DELAYED.equals(type)));
+    }
+
+    synchronized void deleteExchange(final String name) {
+        exchanges.remove(name);
+    }
+
+    synchronized boolean exchangeExists(final String name) {
+        return DEFAULT_EXCHANGE.equals(name) || exchanges.containsKey(name);
+    }
+
+    synchronized InMemoryQueue declareQueue(final String name, final Map<String, Object> arguments) {
+        val queueName = null == name || name.isEmpty() ? "amq.gen-" + UUID.randomUUID() : name;
+        val existing = queues.get(queueName);
+        if (null != existing) {
+            existing.usedAt = System.currentTimeMillis();
+            return existing;
+        }
+        val queue = new InMemoryQueue(queueName, null == arguments ? Collections.emptyMap() : new HashMap<>(arguments));
+        queues.put(queueName, queue);
+        if (queue.expires > 0) {
+            scheduleExpiry(queue, queue.expires);
+        }
+        return queue;
+    }
+
+    synchronized InMemoryQueue queue(final String name) throws IOException {
+        val queue = queues.get(name);
+        if (null == queue) {
+            throw new IOException(String.format("NOT_FOUND - no queue '%s' in vhost '/'", name));
+        }
+        return queue;
+    }
+
+    synchronized int deleteQueue(final String name) {
+        val queue = queues.remove(name);
+        if (null == queue) {
+            return 0;
+        }
+        exchanges.values().forEach(exchange -> exchange.bindings.values().forEach(bound -> bound.remove(name)));
+        return (int) queue.messageCount();
+    }
+
+    synchronized int purgeQueue(final String name) throws IOException {
+        val queue = queue(name);
+        val purged = queue.ready.size();
+        queue.ready.clear();
+        return purged;
+    }
+
+    synchronized void bind(final String queueName, final String exchangeName, final String routingKey, boolean bind)
+            throws IOException {
+        queue(queueName);
+        val exchange = exchanges.get(exchangeName);
+        if (null == exchange) {
+            throw new IOException(String.format("NOT_FOUND - no exchange '%s' in vhost '/'", exchangeName));
+        }
+        if (bind) {
+            exchange.bindings.computeIfAbsent(routingKey, key -> new LinkedHashSet<>()).add(queueName);
+        } else if (exchange.bindings.containsKey(routingKey)) {
+            exchange.bindings.get(routingKey).remove(queueName);
+        }
+    }
+
+    synchronized void publish(final String exchangeName,
+                              final String routingKey,
+                              final AMQP.BasicProperties properties,
+                              final byte[] body) throws IOException {
+        if (!exchangeExists(exchangeName)) {
+            throw new IOException(String.format("NOT_FOUND - no exchange '%s' in vhost '/'", exchangeName));
+        }
+        val message = new InMemoryMessage(exchangeName, routingKey, properties, body, false, 0);
+        val exchange = exchanges.get(exchangeName);
+        val delay = null == exchange || !exchange.delayed ? 0 : delay(properties);
+        if (delay > 0) {
+            SCHEDULER.schedule(() -> {
+                synchronized (this) {
+                    route(message);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        route(message);
+    }
+
+    synchronized void subscribe(final InMemoryChannel.Subscription subscription, final Map<String, Object> arguments) {
+        if (subscription.queue.stream) {
+            subscription.offset = subscription.queue.startOffset(null == arguments
+                                                                 ? null
+                                                                 : arguments.get(X_STREAM_OFFSET_HEADER));
+        }
+        subscription.queue.subscriptions.add(subscription);
+        subscription.queue.usedAt = System.currentTimeMillis();
+        dispatch(subscription.queue);
+    }
+
+    synchronized void unsubscribe(final InMemoryChannel.Subscription subscription) {
+        subscription.queue.subscriptions.remove(subscription);
+        subscription.queue.usedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Takes the message at the head of a queue for basic get, null if the queue is empty
+     */
+    synchronized InMemoryMessage get(final InMemoryQueue queue) {
+        val now = System.currentTimeMillis();
+        queue.usedAt = now;
+        while (!queue.ready.isEmpty()) {
+            val message = queue.ready.pollFirst();
+            if (!message.isExpired(now)) {
+                return message;
+            }
+            deadLetter(queue, message, "expired");
+        }
+        return null;
+    }
+
+    /**
+     * Settles unacked messages taken back from a channel, requeueing them at the head or dead lettering them.
+     * Messages read from streams stay in the stream and are left alone.
+     */
+    synchronized void settle(final Collection<InMemoryChannel.Unacked> settled, final boolean requeue) {
+        val affected = new LinkedHashSet<InMemoryQueue>();
+        val reversed = new ArrayList<>(settled);
+        Collections.reverse(reversed);
+        for (InMemoryChannel.Unacked unacked : reversed) {
+            affected.add(unacked.queue);
+            if (unacked.queue.stream) {
+                continue;
+            }
+            if (requeue) {
+                unacked.queue.ready.addFirst(unacked.message.withRedelivered(true));
+            } else {
+                deadLetter(unacked.queue, unacked.message, "rejected");
+            }
+        }
+        affected.forEach(this::dispatch);
+    }
+
+    synchronized void dispatch(final InMemoryQueue queue) {
+        if (queue.stream) {
+            dispatchStream(queue);
+            return;
+        }
+        val now = System.currentTimeMillis();
+        while (!queue.ready.isEmpty()) {
+            val subscription = queue.nextSubscription();
+            if (null == subscription) {
+                return;
+            }
+            val message = queue.ready.pollFirst();
+            if (message.isExpired(now)) {
+                deadLetter(queue, message, "expired");
+                continue;
+            }
+            subscription.deliver(message);
+        }
+    }
+
+    /*
+        Every consumer of a stream reads on from its own offset, which is added to the message as a header
+     */
+    private void dispatchStream(final InMemoryQueue queue) {
+        for (InMemoryChannel.Subscription subscription : queue.subscriptions) {
+            while (subscription.hasCapacity() && subscription.offset < queue.log.size()) {
+                val offset = subscription.offset++;
+                val message = queue.log.get((int) offset);
+                val headers = new HashMap<String, Object>();
+                if (null != message.getProperties().getHeaders()) {
+                    headers.putAll(message.getProperties().getHeaders());
+                }
+                headers.put(X_STREAM_OFFSET_HEADER, offset);
+                subscription.deliver(message.withProperties(message.getProperties().builder()
+                                                                    .headers(headers)
+                                                                    .build()));
+            }
+        }
+    }
+
+    private void route(final InMemoryMessage message) {
+        val now = System.currentTimeMillis();
+        for (String queueName : destinations(message.getExchange(), message.getRoutingKey())) {
+            val queue = queues.get(queueName);
+            if (null == queue) {
+                continue;
+            }
+            val expiresAt = queue.stream ? 0 : queue.expiresAt(message.getProperties().getExpiration(), now);
+            val dropped = queue.enqueue(message.withExpiresAt(expiresAt));
+            if (null != dropped) {
+                deadLetter(queue, dropped, "maxlen");
+            }
+            if (expiresAt > 0) {
+                SCHEDULER.schedule(() -> expire(queue), expiresAt - now, TimeUnit.MILLISECONDS);
+            }
+            dispatch(queue);
+        }
+    }
+
+    private Set<String> destinations(final String exchangeName, final String routingKey) {
+        if (DEFAULT_EXCHANGE.equals(exchangeName)) {
+            return Collections.singleton(routingKey);
+        }
+        val exchange = exchanges.get(exchangeName);
+        if (null == exchange) {
+            return Collections.emptySet();
+        }
+        if (exchange.fanout) {
+            val destinations = new LinkedHashSet<String>();
+            exchange.bindings.values().forEach(destinations::addAll);
+            return destinations;
+        }
+        return exchange.bindings.getOrDefault(routingKey, Collections.emptySet());
+    }
+
+    /*
+        Only the head of a queue is expired, the same as RabbitMQ. A message behind a longer lived one waits for it.
+     */
+    private synchronized void expire(final InMemoryQueue queue) {
+        if (queues.get(queue.name) != queue) {
+            return;
+        }
+        val now = System.currentTimeMillis();
+        while (!queue.ready.isEmpty() && queue.ready.peekFirst().isExpired(now)) {
+            deadLetter(queue, queue.ready.pollFirst(), "expired");
+        }
+    }
+
+    /*
+        A queue with x-expires is deleted once it has had no consumers, declarations or gets for that long
+     */
+    private void scheduleExpiry(final InMemoryQueue queue, final long delay) {
+        SCHEDULER.schedule(() -> {
+            synchronized (this) {
+                if (queues.get(queue.name) != queue) {
+                    return;
+                }
+                val unusedFor = System.currentTimeMillis() - queue.usedAt;
+                if (queue.subscriptions.isEmpty() && unusedFor >= queue.expires) {
+                    log.debug("Deleting unused queue {}", queue.name);
+                    deleteQueue(queue.name);
+                    return;
+                }
+                scheduleExpiry(queue, queue.subscriptions.isEmpty() ? queue.expires - unusedFor : queue.expires);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void deadLetter(final InMemoryQueue queue, final InMemoryMessage message, final String reason) {
+        val deadLetterExchange = queue.arguments.get("x-dead-letter-exchange");
+        if (null == deadLetterExchange) {
+            log.debug("Dropping {} message from queue {}", reason, queue.name);
+            return;
+        }
+        val routingKey = Objects.toString(queue.arguments.get("x-dead-letter-routing-key"), message.getRoutingKey());
+        val headers = new HashMap<String, Object>();
+        if (null != message.getProperties().getHeaders()) {
+            headers.putAll(message.getProperties().getHeaders());
+        }
+        headers.put(DEATH_HEADER, deaths(headers.get(DEATH_HEADER), queue.name, reason, message));
+        val properties = message.getProperties().builder()
+                .expiration(null)
+                .headers(headers)
+                .build();
+        route(new InMemoryMessage(deadLetterExchange.toString(), routingKey, properties, message.getBody(), false, 0));
+    }
+
+    /*
+        The entry for the queue and reason is counted up and moved to the front, as RabbitMQ does
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> deaths(final Object existing,
+                                                    final String queueName,
+                                                    final String reason,
+                                                    final InMemoryMessage message) {
+        val deaths = new ArrayList<Map<String, Object>>();
+        long count = 0;
+        if (existing instanceof List) {
+            for (Object death : (List<Object>) existing) {
+                val entry = (Map<String, Object>) death;
+                if (queueName.equals(Objects.toString(entry.get("queue"), null))
+                        && reason.equals(Objects.toString(entry.get("reason"), null))) {
+                    count = ((Number) entry.get("count")).longValue();
+                } else {
+                    deaths.add(entry);
+                }
+            }
+        }
+        val death = new LinkedHashMap<String, Object>();
+        death.put("count", count + 1);
+        death.put("reason", reason);
+        death.put("queue", queueName);
+        death.put("time", new Date());
+        death.put("exchange", message.getExchange());
+        death.put("routing-keys", Collections.singletonList(message.getRoutingKey()));
+        deaths.add(0, death);
+        return deaths;
+    }
+
+    private static long delay(final AMQP.BasicProperties properties) {
+        val delay = null == properties.getHeaders() ? null : properties.getHeaders().get(DELAY_HEADER);
+        return delay instanceof Number ? ((Number) delay).longValue() : 0;
+    }
+
+    private static final class Exchange {
+        private final boolean fanout;
+        private final boolean delayed;
+        private final Map<String, Set<String>> bindings = new HashMap<>();
+
+        private Exchange(boolean fanout, boolean delayed) {
+            this.fanout = fanout;
+            this.delayed = delayed;
+        }
+    }
+}
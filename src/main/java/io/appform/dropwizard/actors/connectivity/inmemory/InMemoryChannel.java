@@ -0,0 +1,383 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.impl.AMQImpl;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.appform.dropwizard.actors.common.Constants.DIRECT_REPLY_TO;
+
+/**
+ * A {@link Channel} on the {@link InMemoryBroker}. Deliveries to the consumers of a channel are handed over one at a
+ * time on a thread owned by the channel, as with the real client. Operations the library does not use throw
+ * {@link UnsupportedOperationException}.
+ */
+@Slf4j
+class InMemoryChannel implements InvocationHandler {
+    private final InMemoryBroker broker;
+    private final Connection connection;
+    private final int channelNumber;
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+    private final TreeMap<Long, Unacked> unacked = new TreeMap<>();
+    private volatile boolean open = true;
+    private int prefetchCount;
+    private long deliveryTag;
+    private long publishSeqNo = 1;
+    private ExecutorService dispatcher;
+    private String replyQueue;
+
+    private InMemoryChannel(InMemoryBroker broker, Connection connection, int channelNumber) {
+        this.broker = broker;
+        this.connection = connection;
+        this.channelNumber = channelNumber;
+    }
+
+    static Channel create(final InMemoryBroker broker, final Connection connection, final int channelNumber) {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class[]{Channel.class},
+                                                new InMemoryChannel(broker, connection, channelNumber));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getChannelNumber":
+                return channelNumber;
+            case "getConnection":
+                return connection;
+            case "isOpen":
+                return open;
+            case "close":
+            case "abort":
+                close();
+                return null;
+            case "addShutdownListener":
+            case "removeShutdownListener":
+            case "addReturnListener":
+            case "addConfirmListener":
+                return null;
+            case "getCloseReason":
+                return null;
+            case "toString":
+                return String.format("InMemoryChannel(%d)", channelNumber);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                break;
+        }
+        ensureOpen();
+        try {
+            switch (method.getName()) {
+                case "basicQos":
+                    prefetchCount = (int) (args.length == 3 ? args[1] : args[0]);
+                    return null;
+                case "basicPublish":
+                    broker.publish((String) args[0], (String) args[1],
+                                   replyToResolved((AMQP.BasicProperties) args[args.length - 2]),
+                                   (byte[]) args[args.length - 1]);
+                    synchronized (broker) {
+                        publishSeqNo++;
+                    }
+                    return null;
+                case "basicConsume":
+                    return consume(args);
+                case "basicGet":
+                    return get((String) args[0], (boolean) args[1]);
+                case "basicCancel":
+                    cancel((String) args[0]);
+                    return null;
+                case "basicAck":
+                    settle((long) args[0], (boolean) args[1], false, true);
+                    return null;
+                case "basicNack":
+                    settle((long) args[0], (boolean) args[1], (boolean) args[2], false);
+                    return null;
+                case "basicReject":
+                    settle((long) args[0], false, (boolean) args[1], false);
+                    return null;
+                case "exchangeDeclare":
+                    val type = args[1] instanceof BuiltinExchangeType
+                               ? ((BuiltinExchangeType) args[1]).getType()
+                               : (String) args[1];
+                    broker.declareExchange((String) args[0], type, lastMap(args));
+                    return new AMQImpl.Exchange.DeclareOk();
+                case "exchangeDeclarePassive":
+                    if (!broker.exchangeExists((String) args[0])) {
+                        throw new IOException(String.format("NOT_FOUND - no exchange '%s' in vhost '/'", args[0]));
+                    }
+                    return new AMQImpl.Exchange.DeclareOk();
+                case "exchangeDelete":
+                    broker.deleteExchange((String) args[0]);
+                    return new AMQImpl.Exchange.DeleteOk();
+                case "queueDeclare":
+                    return declareOk(broker.declareQueue(null == args ? null : (String) args[0],
+                                                         null == args ? null : (Map<String, Object>) args[4]));
+                case "queueDeclarePassive":
+                    return declareOk(broker.queue((String) args[0]));
+                case "queueBind":
+                    broker.bind((String) args[0], (String) args[1], (String) args[2], true);
+                    return new AMQImpl.Queue.BindOk();
+                case "queueUnbind":
+                    broker.bind((String) args[0], (String) args[1], (String) args[2], false);
+                    return new AMQImpl.Queue.UnbindOk();
+                case "queueDelete":
+                    return new AMQImpl.Queue.DeleteOk(broker.deleteQueue((String) args[0]));
+                case "queuePurge":
+                    return new AMQImpl.Queue.PurgeOk(broker.purgeQueue((String) args[0]));
+                case "messageCount":
+                    return broker.messageCount((String) args[0]);
+                case "consumerCount":
+                    return broker.consumerCount((String) args[0]);
+                case "confirmSelect":
+                    return new AMQImpl.Confirm.SelectOk();
+                case "getNextPublishSeqNo":
+                    synchronized (broker) {
+                        return publishSeqNo;
+                    }
+                case "waitForConfirms":
+                    return true;
+                case "waitForConfirmsOrDie":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(
+                            String.format("%s is not supported by the in memory broker", method.getName()));
+            }
+        } catch (IOException e) {
+            //The broker closes a channel on any channel level error
+            close();
+            throw e;
+        }
+    }
+
+    private String consume(final Object[] args) throws IOException {
+        if (!(args[args.length - 1] instanceof Consumer)) {
+            throw new UnsupportedOperationException("Only Consumer based basicConsume is supported in memory");
+        }
+        val consumer = (Consumer) args[args.length - 1];
+        val autoAck = args[1] instanceof Boolean && (boolean) args[1];
+        val requestedTag = args.length > 3 && args[2] instanceof String ? (String) args[2] : null;
+        val consumerTag = null == requestedTag || requestedTag.isEmpty()
+                          ? "amq.ctag-" + UUID.randomUUID()
+                          : requestedTag;
+        String queueName = (String) args[0];
+        if (DIRECT_REPLY_TO.equals(queueName)) {
+            if (!autoAck) {
+                throw new IOException("PRECONDITION_FAILED - reply consumer cannot acknowledge");
+            }
+            synchronized (broker) {
+                replyQueue = broker.declareQueue(DIRECT_REPLY_TO + "." + UUID.randomUUID(), null).name;
+                queueName = replyQueue;
+            }
+        }
+        val subscription = new Subscription(broker.queue(queueName), consumerTag, consumer, autoAck);
+        synchronized (broker) {
+            subscriptions.put(consumerTag, subscription);
+            dispatcher().execute(() -> consumer.handleConsumeOk(consumerTag));
+            broker.subscribe(subscription, lastMap(args));
+        }
+        return consumerTag;
+    }
+
+    private GetResponse get(final String queueName, final boolean autoAck) throws IOException {
+        synchronized (broker) {
+            val queue = broker.queue(queueName);
+            val message = broker.get(queue);
+            if (null == message) {
+                return null;
+            }
+            val tag = ++deliveryTag;
+            if (!autoAck) {
+                unacked.put(tag, new Unacked(null, queue, message));
+            }
+            val envelope = new Envelope(tag, message.isRedelivered(), message.getExchange(), message.getRoutingKey());
+            return new GetResponse(envelope, message.getProperties(), message.getBody(), queue.ready.size());
+        }
+    }
+
+    private void cancel(final String consumerTag) {
+        synchronized (broker) {
+            val subscription = subscriptions.remove(consumerTag);
+            if (null == subscription) {
+                return;
+            }
+            broker.unsubscribe(subscription);
+            dispatcher().execute(() -> subscription.consumer.handleCancelOk(consumerTag));
+        }
+    }
+
+    private void settle(final long tag, final boolean multiple, final boolean requeue, final boolean ack)
+            throws IOException {
+        synchronized (broker) {
+            final List<Unacked> settled = new ArrayList<>();
+            if (multiple) {
+                val upTo = unacked.headMap(tag, true);
+                settled.addAll(upTo.values());
+                upTo.clear();
+            } else {
+                val single = unacked.remove(tag);
+                if (null != single) {
+                    settled.add(single);
+                }
+            }
+            if (settled.isEmpty()) {
+                throw new IOException(String.format("PRECONDITION_FAILED - unknown delivery tag %d", tag));
+            }
+            settled.stream()
+                    .filter(entry -> null != entry.subscription)
+                    .forEach(entry -> entry.subscription.unacked--);
+            if (ack) {
+                settled.forEach(entry -> broker.dispatch(entry.queue));
+            } else {
+                broker.settle(settled, requeue);
+            }
+        }
+    }
+
+    private void close() {
+        synchronized (broker) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            subscriptions.values().forEach(broker::unsubscribe);
+            subscriptions.clear();
+            val pending = new ArrayList<>(unacked.values());
+            unacked.clear();
+            broker.settle(pending, true);
+            if (null != replyQueue) {
+                broker.deleteQueue(replyQueue);
+            }
+            if (null != dispatcher) {
+                dispatcher.shutdown();
+            }
+        }
+    }
+
+    /*
+        Direct reply-to: requests name the pseudo queue, which stands for the reply queue of the publishing channel
+     */
+    private AMQP.BasicProperties replyToResolved(final AMQP.BasicProperties properties) throws IOException {
+        if (null == properties) {
+            return new AMQP.BasicProperties();
+        }
+        if (!DIRECT_REPLY_TO.equals(properties.getReplyTo())) {
+            return properties;
+        }
+        synchronized (broker) {
+            if (null == replyQueue) {
+                throw new IOException("PRECONDITION_FAILED - fast reply consumer does not exist");
+            }
+            return properties.builder()
+                    .replyTo(replyQueue)
+                    .build();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!open) {
+            throw new IOException(String.format("Channel %d is already closed", channelNumber));
+        }
+    }
+
+    private ExecutorService dispatcher() {
+        if (null == dispatcher) {
+            dispatcher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat(String.format("rmq-inmemory-%s-%d", connection.getClientProvidedName(),
+                                                 channelNumber))
+                    .setDaemon(true)
+                    .build());
+        }
+        return dispatcher;
+    }
+
+    private static AMQP.Queue.DeclareOk declareOk(final InMemoryQueue queue) {
+        return new AMQImpl.Queue.DeclareOk(queue.name, (int) queue.messageCount(), queue.subscriptions.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> lastMap(final Object[] args) {
+        for (int i = args.length - 1; i >= 0; i--) {
+            if (args[i] instanceof Map) {
+                return (Map<String, Object>) args[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A consumer on a queue. Only accessed with the broker lock held.
+     */
+    class Subscription {
+        final InMemoryQueue queue;
+        final String consumerTag;
+        final Consumer consumer;
+        final boolean autoAck;
+        int unacked;
+        /*
+            Offset of the next message to deliver from a stream
+         */
+        long offset;
+
+        Subscription(InMemoryQueue queue, String consumerTag, Consumer consumer, boolean autoAck) {
+            this.queue = queue;
+            this.consumerTag = consumerTag;
+            this.consumer = consumer;
+            this.autoAck = autoAck;
+        }
+
+        boolean hasCapacity() {
+            return autoAck || prefetchCount == 0 || unacked < prefetchCount;
+        }
+
+        void deliver(final InMemoryMessage message) {
+            val tag = ++deliveryTag;
+            if (!autoAck) {
+                unacked++;
+                InMemoryChannel.this.unacked.put(tag, new Unacked(this, queue, message));
+            }
+            val envelope = new Envelope(tag, message.isRedelivered(), message.getExchange(), message.getRoutingKey());
+            dispatcher().execute(() -> {
+                try {
+                    consumer.handleDelivery(consumerTag, envelope, message.getProperties(), message.getBody());
+                } catch (Throwable t) {
+                    log.error("Consumer {} on in memory queue {} failed to handle delivery", consumerTag,
+                              queue.name, t);
+                }
+            });
+        }
+    }
+
+    static final class Unacked {
+        final Subscription subscription;
+        final InMemoryQueue queue;
+        final InMemoryMessage message;
+
+        Unacked(Subscription subscription, InMemoryQueue queue, InMemoryMessage message) {
+            this.subscription = subscription;
+            this.queue = queue;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Connection} to the {@link InMemoryBroker}. It is never blocked and never lost.
+ */
+class InMemoryConnection implements InvocationHandler {
+    private final InMemoryBroker broker;
+    private final String name;
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private Connection self;
+    private volatile boolean open = true;
+    private String id;
+
+    private InMemoryConnection(InMemoryBroker broker, String name) {
+        this.broker = broker;
+        this.name = name;
+    }
+
+    static Connection create(final InMemoryBroker broker, final String name) {
+        final InMemoryConnection handler = new InMemoryConnection(broker, name);
+        handler.self = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                           new Class[]{Connection.class}, handler);
+        return handler.self;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "createChannel":
+                if (!open) {
+                    throw new IOException(String.format("Connection [%s] is already closed", name));
+                }
+                final Channel channel = InMemoryChannel.create(broker, self, channelNumbers.incrementAndGet());
+                channels.add(channel);
+                return channel;
+            case "openChannel":
+                return Optional.of(invoke(proxy, Connection.class.getMethod("createChannel"), null));
+            case "isOpen":
+                return open;
+            case "close":
+            case "abort":
+                open = false;
+                for (Channel openChannel : channels) {
+                    openChannel.abort();
+                }
+                channels.clear();
+                return null;
+            case "getClientProvidedName":
+                return name;
+            case "getAddress":
+                return InetAddress.getLoopbackAddress();
+            case "getPort":
+                return 0;
+            case "getChannelMax":
+                return 2047;
+            case "getFrameMax":
+            case "getHeartbeat":
+                return 0;
+            case "getServerProperties":
+            case "getClientProperties":
+                return Collections.emptyMap();
+            case "getId":
+                return id;
+            case "setId":
+                id = (String) args[0];
+                return null;
+            case "addBlockedListener":
+            case "addShutdownListener":
+            case "removeShutdownListener":
+            case "getCloseReason":
+                return null;
+            case "toString":
+                return String.format("InMemoryConnection(%s)", name);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(
+                        String.format("%s is not supported by the in memory broker", method.getName()));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import com.rabbitmq.client.AMQP;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * A message sitting in an {@link InMemoryQueue}
+ */
+@Value
+@With
+class InMemoryMessage {
+    String exchange;
+    String routingKey;
+    AMQP.BasicProperties properties;
+    byte[] body;
+    boolean redelivered;
+    /*
+        Epoch millis after which the message is dead lettered, 0 if it never expires
+     */
+    long expiresAt;
+
+    boolean isExpired(long now) {
+        return expiresAt > 0 && expiresAt <= now;
+    }
+}
@@ -0,0 +1,128 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Ready messages and consumers of a queue on the {@link InMemoryBroker}. Queues declared with the stream type keep
+ * all messages in a log instead, which every consumer reads from its own offset. Only accessed with the broker lock
+ * held.
+ */
+class InMemoryQueue {
+    final String name;
+    final Map<String, Object> arguments;
+    final LinkedList<InMemoryMessage> ready = new LinkedList<>();
+    final List<InMemoryChannel.Subscription> subscriptions = new ArrayList<>();
+    final boolean stream;
+    final List<InMemoryMessage> log = new ArrayList<>();
+    private final List<Long> appendedAt = new ArrayList<>();
+    final long expires;
+    long usedAt = System.currentTimeMillis();
+    private final long messageTtl;
+    private final int maxLength;
+    private final boolean prioritized;
+    private int nextSubscription;
+
+    InMemoryQueue(String name, Map<String, Object> arguments) {
+        this.name = name;
+        this.arguments = arguments;
+        this.messageTtl = longArgument(arguments, "x-message-ttl", -1);
+        this.expires = longArgument(arguments, "x-expires", -1);
+        this.maxLength = (int) longArgument(arguments, "x-max-length", -1);
+        this.prioritized = longArgument(arguments, "x-max-priority", 0) > 0;
+        this.stream = null != arguments && "stream".equals(arguments.get("x-queue-type"));
+    }
+
+    long messageCount() {
+        return stream ? log.size() : ready.size();
+    }
+
+    /**
+     * Resolves the x-stream-offset consumer argument to the offset of the first message to deliver. Consumers start
+     * at the next message if it is not set.
+     */
+    long startOffset(final Object offsetSpecification) {
+        if (offsetSpecification instanceof Number) {
+            return Math.max(0, Math.min(((Number) offsetSpecification).longValue(), log.size()));
+        }
+        if (offsetSpecification instanceof Date) {
+            final long timestamp = ((Date) offsetSpecification).getTime();
+            for (int offset = 0; offset < appendedAt.size(); offset++) {
+                if (appendedAt.get(offset) >= timestamp) {
+                    return offset;
+                }
+            }
+            return log.size();
+        }
+        if ("first".equals(offsetSpecification)) {
+            return 0;
+        }
+        if ("last".equals(offsetSpecification)) {
+            return Math.max(0, log.size() - 1);
+        }
+        return log.size();
+    }
+
+    /**
+     * @return Message dropped from the head to honour x-max-length, null if none was dropped
+     */
+    InMemoryMessage enqueue(final InMemoryMessage message) {
+        if (stream) {
+            log.add(message);
+            appendedAt.add(System.currentTimeMillis());
+            return null;
+        }
+        if (!prioritized) {
+            ready.addLast(message);
+        } else {
+            final int priority = priority(message);
+            final ListIterator<InMemoryMessage> iterator = ready.listIterator(ready.size());
+            while (iterator.hasPrevious()) {
+                if (priority(iterator.previous()) >= priority) {
+                    iterator.next();
+                    break;
+                }
+            }
+            iterator.add(message);
+        }
+        return maxLength >= 0 && ready.size() > maxLength ? ready.pollFirst() : null;
+    }
+
+    long expiresAt(final String expiration, final long now) {
+        long ttl = messageTtl;
+        if (null != expiration) {
+            final long messageExpiration = Long.parseLong(expiration);
+            ttl = ttl < 0 ? messageExpiration : Math.min(ttl, messageExpiration);
+        }
+        return ttl < 0 ? 0 : now + Math.max(ttl, 1);
+    }
+
+    /**
+     * Picks the next consumer with room under its prefetch limit, round robin
+     */
+    InMemoryChannel.Subscription nextSubscription() {
+        for (int i = 0; i < subscriptions.size(); i++) {
+            final int index = (nextSubscription + i) % subscriptions.size();
+            final InMemoryChannel.Subscription subscription = subscriptions.get(index);
+            if (subscription.hasCapacity()) {
+                nextSubscription = index + 1;
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    private static int priority(final InMemoryMessage message) {
+        final Integer priority = message.getProperties().getPriority();
+        return null == priority ? 0 : priority;
+    }
+
+    private static long longArgument(final Map<String, Object> arguments, final String name, final long defaultValue) {
+        final Object value = null == arguments ? null : arguments.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+}
@@ -21,6 +21,10 @@ import javax.validation.constraints.NotNull;
         @JsonSubTypes.Type(
                 name = "SHARED",
                 value = SharedConnectionStrategy.class
+        ),
+        @JsonSubTypes.Type(
+                name = "DEDICATED",
+                value = DedicatedConnectionStrategy.class
         )})
 @Data
 @ToString
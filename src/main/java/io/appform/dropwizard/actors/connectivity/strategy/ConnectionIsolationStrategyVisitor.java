@@ -6,4 +6,13 @@ public interface ConnectionIsolationStrategyVisitor<T> {
 
     T visit(final DefaultConnectionStrategy strategy);
 
+    /**
+     * Default keeps visitors written before dedicated connections were added compiling. They fail only if a
+     * dedicated strategy is actually configured.
+     */
+    default T visit(final DedicatedConnectionStrategy strategy) {
+        throw new UnsupportedOperationException(
+                String.format("%s does not support dedicated connections", getClass().getName()));
+    }
+
 }
@@ -0,0 +1,44 @@
+package io.appform.dropwizard.actors.connectivity.strategy;
+
+import io.appform.dropwizard.actors.actor.ConnectionIsolationLevel;
+import io.appform.dropwizard.actors.common.Constants;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Gives the actor a connection of its own, named after the actor
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class DedicatedConnectionStrategy extends ConnectionIsolationStrategy {
+
+    @Min(1)
+    @Max(Constants.MAX_THREADS_PER_CONNECTION)
+    private int threadPoolSize = Constants.DEFAULT_THREADS_PER_CONNECTION;
+
+    @Min(1)
+    @Max(Constants.MAX_CONNECTIONS_PER_POOL)
+    private int connectionPoolSize = 1;
+
+    public DedicatedConnectionStrategy() {
+        super(ConnectionIsolationLevel.DEDICATED);
+    }
+
+    @Builder
+    public DedicatedConnectionStrategy(int threadPoolSize, int connectionPoolSize) {
+        super(ConnectionIsolationLevel.DEDICATED);
+        this.threadPoolSize = threadPoolSize > 0 ? threadPoolSize : Constants.DEFAULT_THREADS_PER_CONNECTION;
+        this.connectionPoolSize = Math.max(connectionPoolSize, 1);
+    }
+
+    @Override
+    public <T> T accept(ConnectionIsolationStrategyVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,52 @@
+package io.appform.dropwizard.actors.dedup;
+
+import io.dropwizard.util.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Deduplication of deliveries by message key. Keys of handled messages are remembered for {@link #ttl} and
+ * later deliveries with the same key are acked without being handled. At most {@link #maxEntries} keys are
+ * remembered, older keys are evicted first.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DeduplicationConfig {
+
+    @NotNull
+    @Builder.Default
+    private DeduplicationStoreType store = DeduplicationStoreType.HEAP;
+
+    @Min(1)
+    @Builder.Default
+    private int maxEntries = 100_000;
+
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration ttl = Duration.minutes(10);
+
+    /**
+     * Header holding the deduplication key. The AMQP message id is used if not set.
+     */
+    private String keyHeader;
+
+    /**
+     * Publishers assign a compact message id to messages published without one
+     */
+    @Builder.Default
+    private boolean assignMessageIds = true;
+
+    /**
+     * File backing the {@link DeduplicationStoreType#OFF_HEAP} store. The store lives in memory only if not set.
+     */
+    private String file;
+}
@@ -0,0 +1,19 @@
+package io.appform.dropwizard.actors.dedup;
+
+/**
+ * Remembers keys of processed messages for a limited time
+ */
+public interface DeduplicationStore {
+
+    boolean contains(String key);
+
+    void record(String key);
+
+    long size();
+
+    /**
+     * Flushes the store. The store stays usable as the consumer may be started again.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,16 @@
+package io.appform.dropwizard.actors.dedup;
+
+/**
+ * Where processed message keys are remembered
+ */
+public enum DeduplicationStoreType {
+    /**
+     * Keys are held in a bounded cache on the heap
+     */
+    HEAP,
+    /**
+     * 64 bit fingerprints of keys are held in a fixed size table outside the heap, optionally mapped to a file so
+     * that it survives restarts
+     */
+    OFF_HEAP
+}
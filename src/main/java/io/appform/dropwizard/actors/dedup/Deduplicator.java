@@ -0,0 +1,99 @@
+package io.appform.dropwizard.actors.dedup;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.rabbitmq.client.AMQP;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import lombok.val;
+
+import java.util.Map;
+
+/**
+ * Detects redeliveries and republished duplicates of messages that were already processed by a consumer. Shared by
+ * all channels of the consumer, since a redelivery may arrive on any of them. Metrics are registered under
+ * {@code rmqactor.<sanitized queue name>.dedup}:
+ * <ul>
+ *     <li>hits, misses: Meters of duplicate and new deliveries</li>
+ *     <li>hitRate: Ratio of duplicates in the last minute</li>
+ *     <li>size: Gauge of remembered keys</li>
+ * </ul>
+ * Keys are recorded once a message has been handled, just before it is acked, so a duplicate arriving while the
+ * original is still being handled is handled again. Replies are not remembered, so a duplicate request to a replying
+ * consumer is answered with an error.
+ */
+public class Deduplicator {
+    private final String keyHeader;
+    private final DeduplicationStore store;
+    private final Meter hits;
+    private final Meter misses;
+
+    public Deduplicator(final String queueName,
+                        final DeduplicationConfig config,
+                        final MetricRegistry metricRegistry) {
+        this(queueName, config, store(config), metricRegistry);
+    }
+
+    public Deduplicator(final String queueName,
+                        final DeduplicationConfig config,
+                        final DeduplicationStore store,
+                        final MetricRegistry metricRegistry) {
+        this.keyHeader = config.getKeyHeader();
+        this.store = store;
+        val prefix = MetricRegistry.name("rmqactor", NamingUtils.sanitizeMetricName(queueName), "dedup");
+        this.hits = metricRegistry.meter(MetricRegistry.name(prefix, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(prefix, "misses"));
+        register(metricRegistry, MetricRegistry.name(prefix, "hitRate"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getOneMinuteRate(), hits.getOneMinuteRate() + misses.getOneMinuteRate());
+            }
+        });
+        register(metricRegistry, MetricRegistry.name(prefix, "size"), (Gauge<Long>) store::size);
+    }
+
+    /**
+     * @return Key from the configured header or else the message id, null if the message has no key
+     */
+    public String key(final AMQP.BasicProperties properties) {
+        if (null == keyHeader) {
+            return properties.getMessageId();
+        }
+        final Map<String, Object> headers = properties.getHeaders();
+        final Object key = null == headers ? null : headers.get(keyHeader);
+        return null == key ? null : key.toString();
+    }
+
+    public boolean isDuplicate(final String key) {
+        if (store.contains(key)) {
+            hits.mark();
+            return true;
+        }
+        misses.mark();
+        return false;
+    }
+
+    public void processed(final String key) {
+        store.record(key);
+    }
+
+    public void close() {
+        store.close();
+    }
+
+    private static DeduplicationStore store(DeduplicationConfig config) {
+        switch (config.getStore()) {
+            case OFF_HEAP:
+                return new OffHeapDeduplicationStore(config);
+            case HEAP:
+            default:
+                return new HeapDeduplicationStore(config);
+        }
+    }
+
+    private static void register(MetricRegistry metricRegistry, String name, Gauge<?> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+}
@@ -0,0 +1,36 @@
+package io.appform.dropwizard.actors.dedup;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps keys in a concurrent cache evicting keys after the ttl or once the size limit is reached
+ */
+public class HeapDeduplicationStore implements DeduplicationStore {
+    private final Cache<String, Boolean> keys;
+
+    public HeapDeduplicationStore(final DeduplicationConfig config) {
+        this.keys = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTtl().toMilliseconds(), TimeUnit.MILLISECONDS)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return null != keys.getIfPresent(key);
+    }
+
+    @Override
+    public void record(String key) {
+        keys.put(key, Boolean.TRUE);
+    }
+
+    @Override
+    public long size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,21 @@
+package io.appform.dropwizard.actors.dedup;
+
+import lombok.experimental.UtilityClass;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact message ids made of a random per process prefix and a counter, both in base 36. Ids are around 15
+ * characters long, a third of a UUID.
+ */
+@UtilityClass
+public class MessageIds {
+    private static final String PREFIX = Long.toString(new SecureRandom().nextLong() >>> 16, Character.MAX_RADIX)
+            + "-";
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    public String next() {
+        return PREFIX + Long.toString(COUNTER.incrementAndGet(), Character.MAX_RADIX);
+    }
+}
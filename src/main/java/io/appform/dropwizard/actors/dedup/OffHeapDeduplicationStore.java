@@ -0,0 +1,153 @@
+package io.appform.dropwizard.actors.dedup;
+
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps 64 bit fingerprints of keys with their expiry in a fixed size hash table outside the heap, so that very
+ * large windows cost neither heap nor garbage collection time. The table is split into buckets of
+ * {@value #BUCKET_SLOTS} slots. A key is stored in the bucket its fingerprint hashes to, replacing an expired slot or
+ * else the slot closest to expiry once the bucket is full. Different keys with the same fingerprint are
+ * indistinguishable, with 64 bit fingerprints this is negligible for any realistic window.
+ * <p>
+ * If a file is configured the table is memory mapped to it and processed keys are remembered across restarts.
+ */
+@Slf4j
+public class OffHeapDeduplicationStore implements DeduplicationStore {
+    private static final int BUCKET_SLOTS = 8;
+    private static final int SLOT_BYTES = 2 * Long.BYTES;
+    private static final int BUCKET_BYTES = BUCKET_SLOTS * SLOT_BYTES;
+    private static final int LOCK_STRIPES = 64;
+    private static final long EMPTY = 0L;
+
+    private final long ttlMs;
+    private final int bucketMask;
+    private final ByteBuffer table;
+    private final Object[] locks;
+    private final AtomicLong occupied = new AtomicLong();
+
+    public OffHeapDeduplicationStore(final DeduplicationConfig config) {
+        this.ttlMs = config.getTtl().toMilliseconds();
+        val minBuckets = (config.getMaxEntries() + BUCKET_SLOTS - 1L) / BUCKET_SLOTS;
+        val buckets = minBuckets <= 1 ? 1L : Long.highestOneBit(minBuckets - 1) << 1;
+        if (buckets * BUCKET_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off heap deduplication supports up to "
+                                                       + (Integer.MAX_VALUE / SLOT_BYTES) + " entries");
+        }
+        this.bucketMask = (int) buckets - 1;
+        val bytes = (bucketMask + 1) * BUCKET_BYTES;
+        this.table = null == config.getFile()
+                     ? ByteBuffer.allocateDirect(bytes)
+                     : map(config.getFile(), bytes);
+        this.locks = new Object[Math.min(LOCK_STRIPES, bucketMask + 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        for (int offset = 0; offset < bytes; offset += SLOT_BYTES) {
+            if (table.getLong(offset) != EMPTY) {
+                occupied.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(String key) {
+        val fingerprint = fingerprint(key);
+        val bucket = bucket(fingerprint);
+        val now = System.currentTimeMillis();
+        synchronized (lock(bucket)) {
+            for (int slot = 0; slot < BUCKET_SLOTS; slot++) {
+                val offset = offset(bucket, slot);
+                if (table.getLong(offset) == fingerprint) {
+                    return table.getLong(offset + Long.BYTES) > now;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void record(String key) {
+        val fingerprint = fingerprint(key);
+        val bucket = bucket(fingerprint);
+        val now = System.currentTimeMillis();
+        synchronized (lock(bucket)) {
+            int victim = -1;
+            long victimExpiry = Long.MAX_VALUE;
+            for (int slot = 0; slot < BUCKET_SLOTS; slot++) {
+                val offset = offset(bucket, slot);
+                val slotFingerprint = table.getLong(offset);
+                if (slotFingerprint == fingerprint) {
+                    table.putLong(offset + Long.BYTES, now + ttlMs);
+                    return;
+                }
+                val expiry = slotFingerprint == EMPTY ? Long.MIN_VALUE : table.getLong(offset + Long.BYTES);
+                if (expiry < victimExpiry) {
+                    victim = slot;
+                    victimExpiry = expiry;
+                }
+            }
+            val offset = offset(bucket, victim);
+            if (table.getLong(offset) == EMPTY) {
+                occupied.incrementAndGet();
+            }
+            table.putLong(offset, fingerprint);
+            table.putLong(offset + Long.BYTES, now + ttlMs);
+        }
+    }
+
+    /**
+     * @return Number of occupied slots, including expired keys that have not been replaced yet
+     */
+    @Override
+    public long size() {
+        return occupied.get();
+    }
+
+    @Override
+    public void close() {
+        if (table instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) table).force();
+        }
+    }
+
+    private Object lock(int bucket) {
+        return locks[bucket % locks.length];
+    }
+
+    private int bucket(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & bucketMask;
+    }
+
+    private static int offset(int bucket, int slot) {
+        return bucket * BUCKET_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static long fingerprint(String key) {
+        val fingerprint = Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+        return fingerprint == EMPTY ? 1L : fingerprint;
+    }
+
+    private static MappedByteBuffer map(String file, int bytes) {
+        try (val randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (randomAccessFile.length() != bytes) {
+                log.info("Initialising deduplication file {} with {} bytes", file, bytes);
+                randomAccessFile.setLength(0);
+                randomAccessFile.setLength(bytes);
+            }
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.appform.dropwizard.actors.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Acking or rejecting a message
+ */
+@Name(ActorEvents.PREFIX + "Acknowledgement")
+@Label("RMQ Actor Acknowledgement")
+@Category(ActorEvents.CATEGORY)
+@Enabled(false)
+public class AcknowledgementEvent extends Event {
+    @Label("Actor")
+    public String actor;
+
+    @Label("Shard")
+    public int shard;
+
+    @Label("Delivery Tag")
+    public long deliveryTag;
+
+    @Label("Outcome")
+    public String outcome;
+}
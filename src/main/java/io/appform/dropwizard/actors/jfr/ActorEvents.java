@@ -0,0 +1,28 @@
+package io.appform.dropwizard.actors.jfr;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Java Flight Recorder events emitted by actors. All events are disabled by default and cost nothing unless enabled
+ * in the recording settings. The bundled {@value #SETTINGS_RESOURCE} settings enable all of them, for example
+ * alongside the default JDK settings:
+ * <pre>
+ *     -XX:StartFlightRecording=settings=default,settings=/path/to/rmq-actors.jfc
+ * </pre>
+ */
+@UtilityClass
+public class ActorEvents {
+    public static final String PREFIX = "io.appform.dropwizard.actors.";
+    public static final String CATEGORY = "RabbitMQ Actors";
+    public static final String SETTINGS_RESOURCE = "rmq-actors.jfc";
+
+    public static final String PUBLISHED = "PUBLISHED";
+    public static final String FAILED = "FAILED";
+    public static final String ACKED = "ACKED";
+    public static final String REJECTED = "REJECTED";
+    public static final String SIDELINED = "SIDELINED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String DEFERRED = "DEFERRED";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String EXCEPTION = "EXCEPTION";
+}
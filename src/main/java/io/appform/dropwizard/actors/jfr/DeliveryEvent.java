@@ -0,0 +1,40 @@
+package io.appform.dropwizard.actors.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Handling of a delivered message, from delivery to ack or reject
+ */
+@Name(ActorEvents.PREFIX + "Delivery")
+@Label("RMQ Actor Delivery")
+@Category(ActorEvents.CATEGORY)
+@Enabled(false)
+public class DeliveryEvent extends Event {
+    @Label("Actor")
+    public String actor;
+
+    @Label("Shard")
+    @Description("Shard the message was consumed from, -1 for unsharded actors")
+    public int shard;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Delivery Count")
+    public long deliveryCount;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.MILLISECONDS)
+    public long queueWait;
+
+    @Label("Outcome")
+    public String outcome;
+}
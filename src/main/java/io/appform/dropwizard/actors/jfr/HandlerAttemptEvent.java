@@ -0,0 +1,28 @@
+package io.appform.dropwizard.actors.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A single invocation of the message handler, one per retry attempt
+ */
+@Name(ActorEvents.PREFIX + "HandlerAttempt")
+@Label("RMQ Actor Handler Attempt")
+@Category(ActorEvents.CATEGORY)
+@Enabled(false)
+public class HandlerAttemptEvent extends Event {
+    @Label("Actor")
+    public String actor;
+
+    @Label("Shard")
+    public int shard;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Outcome")
+    public String outcome;
+}
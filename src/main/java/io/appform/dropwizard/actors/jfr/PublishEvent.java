@@ -0,0 +1,38 @@
+package io.appform.dropwizard.actors.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Publishing a message to the broker
+ */
+@Name(ActorEvents.PREFIX + "Publish")
+@Label("RMQ Actor Publish")
+@Category(ActorEvents.CATEGORY)
+@Enabled(false)
+public class PublishEvent extends Event {
+    @Label("Actor")
+    public String actor;
+
+    @Label("Exchange")
+    public String exchange;
+
+    @Label("Routing Key")
+    public String routingKey;
+
+    @Label("Shard")
+    @Description("Shard the message was routed to, -1 for unsharded actors")
+    public int shard;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Outcome")
+    public String outcome;
+}
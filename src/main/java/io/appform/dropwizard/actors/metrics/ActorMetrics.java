@@ -0,0 +1,184 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.tracing.ConsumerSpan;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish and consume instrumentation of a single actor. Metrics are registered under
+ * {@code rmqactor.<sanitized queue name>}:
+ * <ul>
+ *     <li>publish: Timer for publishing a message, giving publish rate and latency</li>
+ *     <li>publish.failed: Counter of publish failures</li>
+ *     <li>payloadSize: Histogram of serialized message sizes in bytes</li>
+ *     <li>consume: Meter of delivered messages</li>
+ *     <li>handle: Timer for handling a message, including retries</li>
+ *     <li>endToEndDelayMs: Histogram of the time between publish and delivery</li>
+ *     <li>acked, rejected, sidelined: Counters of message outcomes. Sidelined messages exceeded max deliveries.</li>
+ *     <li>trace.queueWaitMs, trace.deserialization, trace.handling: Span timings of traced messages</li>
+ *     <li>local.delivered, local.fallback: Meters of messages handed to a consumer in the same process and of those
+ *     published to the broker instead as the local consumer was saturated or stopped</li>
+ *     <li>local.dropped: Counter of locally delivered messages lost as handling failed</li>
+ *     <li>shard.&lt;id&gt;.publish, shard.&lt;id&gt;.consume: Meters for every shard of sharded actors</li>
+ * </ul>
+ * All metrics are looked up once. Publishers and consumers of the same actor share them through the registry. Timers
+ * and histograms use an {@link HdrReservoir}, so recording takes no locks.
+ */
+public class ActorMetrics {
+    private static final String PREFIX = "rmqactor";
+
+    @Getter
+    private final String queueName;
+    private final Timer publish;
+    private final Counter publishFailed;
+    private final Histogram payloadSize;
+    private final Meter consume;
+    private final Timer handle;
+    private final Histogram endToEndDelay;
+    private final Counter acked;
+    private final Counter rejected;
+    private final Counter sidelined;
+    private final Histogram traceQueueWait;
+    private final Timer traceDeserialization;
+    private final Timer traceHandling;
+    private final Meter localDelivered;
+    private final Meter localFallback;
+    private final Counter localDropped;
+    private final LatencyTracker latencyTracker;
+    private final Meter[] shardPublish;
+    private final Meter[] shardConsume;
+
+    public ActorMetrics(final MetricRegistry metricRegistry, final String queueName, final int shardCount) {
+        this(metricRegistry, queueName, shardCount, null);
+    }
+
+    /**
+     * @param latencyTracker Also records latencies here if not null
+     */
+    public ActorMetrics(final MetricRegistry metricRegistry,
+                        final String queueName,
+                        final int shardCount,
+                        final LatencyTracker latencyTracker) {
+        this.queueName = queueName;
+        this.latencyTracker = latencyTracker;
+        final String prefix = MetricRegistry.name(PREFIX, NamingUtils.sanitizeMetricName(queueName));
+        this.publish = metricRegistry.timer(MetricRegistry.name(prefix, "publish"), ActorMetrics::timer);
+        this.publishFailed = metricRegistry.counter(MetricRegistry.name(prefix, "publish", "failed"));
+        this.payloadSize = metricRegistry.histogram(MetricRegistry.name(prefix, "payloadSize"),
+                                                    ActorMetrics::histogram);
+        this.consume = metricRegistry.meter(MetricRegistry.name(prefix, "consume"));
+        this.handle = metricRegistry.timer(MetricRegistry.name(prefix, "handle"), ActorMetrics::timer);
+        this.endToEndDelay = metricRegistry.histogram(MetricRegistry.name(prefix, "endToEndDelayMs"),
+                                                      ActorMetrics::histogram);
+        this.acked = metricRegistry.counter(MetricRegistry.name(prefix, "acked"));
+        this.rejected = metricRegistry.counter(MetricRegistry.name(prefix, "rejected"));
+        this.sidelined = metricRegistry.counter(MetricRegistry.name(prefix, "sidelined"));
+        this.traceQueueWait = metricRegistry.histogram(MetricRegistry.name(prefix, "trace", "queueWaitMs"),
+                                                       ActorMetrics::histogram);
+        this.traceDeserialization = metricRegistry.timer(MetricRegistry.name(prefix, "trace", "deserialization"),
+                                                         ActorMetrics::timer);
+        this.traceHandling = metricRegistry.timer(MetricRegistry.name(prefix, "trace", "handling"),
+                                                  ActorMetrics::timer);
+        this.localDelivered = metricRegistry.meter(MetricRegistry.name(prefix, "local", "delivered"));
+        this.localFallback = metricRegistry.meter(MetricRegistry.name(prefix, "local", "fallback"));
+        this.localDropped = metricRegistry.counter(MetricRegistry.name(prefix, "local", "dropped"));
+        this.shardPublish = new Meter[shardCount];
+        this.shardConsume = new Meter[shardCount];
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            final String shardPrefix = MetricRegistry.name(prefix, "shard", String.valueOf(shardId));
+            shardPublish[shardId] = metricRegistry.meter(MetricRegistry.name(shardPrefix, "publish"));
+            shardConsume[shardId] = metricRegistry.meter(MetricRegistry.name(shardPrefix, "consume"));
+        }
+    }
+
+    private static Timer timer() {
+        return new Timer(new HdrReservoir());
+    }
+
+    private static Histogram histogram() {
+        return new Histogram(new HdrReservoir());
+    }
+
+    /**
+     * @param shardId      Shard the message was routed to, negative for unsharded actors
+     * @param elapsedNanos Time taken to publish
+     * @param size         Serialized size of the message
+     */
+    public void published(final int shardId, final long elapsedNanos, final int size) {
+        publish.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (null != latencyTracker) {
+            latencyTracker.getPublish().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+        payloadSize.update(size);
+        if (shardId >= 0 && shardId < shardPublish.length) {
+            shardPublish[shardId].mark();
+        }
+    }
+
+    public void publishFailed() {
+        publishFailed.inc();
+    }
+
+    /**
+     * @param shardId Shard the message was consumed from, negative for unsharded actors
+     * @param delayMs Time since the message was published, negative if unknown
+     */
+    public void consumed(final int shardId, final long delayMs) {
+        consume.mark();
+        if (delayMs >= 0) {
+            endToEndDelay.update(delayMs);
+            if (null != latencyTracker) {
+                latencyTracker.getQueueDwell().record(delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (shardId >= 0 && shardId < shardConsume.length) {
+            shardConsume[shardId].mark();
+        }
+    }
+
+    public void handled(final long elapsedNanos) {
+        handle.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (null != latencyTracker) {
+            latencyTracker.getHandler().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void acked() {
+        acked.inc();
+    }
+
+    public void rejected() {
+        rejected.inc();
+    }
+
+    public void sidelined() {
+        sidelined.inc();
+    }
+
+    public void deliveredLocally() {
+        localDelivered.mark();
+    }
+
+    public void localFallback() {
+        localFallback.mark();
+    }
+
+    public void droppedLocally(final long count) {
+        localDropped.inc(count);
+    }
+
+    public void traced(final ConsumerSpan span) {
+        if (span.getQueueWaitMs() >= 0) {
+            traceQueueWait.update(span.getQueueWaitMs());
+        }
+        traceDeserialization.update(span.getDeserializationNanos(), TimeUnit.NANOSECONDS);
+        traceHandling.update(span.getHandlingNanos(), TimeUnit.NANOSECONDS);
+    }
+}
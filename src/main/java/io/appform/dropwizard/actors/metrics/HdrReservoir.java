@@ -0,0 +1,130 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservoir backed by an HdrHistogram {@link Recorder}, so that updates on the publish and consume paths are wait
+ * free. The default reservoirs of the metrics library take a lock on every update. Snapshots cover the values
+ * recorded in the window before the last rotation. A read rotates the window if it is older than {@link #WINDOW_MS},
+ * so readers polling more often share the same snapshot.
+ */
+class HdrReservoir implements Reservoir {
+    private static final long WINDOW_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int MAX_SAMPLES = 1028;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private Histogram recycled;
+    private long rotatedAt;
+    private Snapshot snapshot = HdrSnapshot.of(new Histogram(SIGNIFICANT_DIGITS));
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        recorder.recordValue(Math.max(0, value));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        final long now = System.currentTimeMillis();
+        if (now - rotatedAt >= WINDOW_MS) {
+            final Histogram interval = recorder.getIntervalHistogram(recycled);
+            snapshot = HdrSnapshot.of(interval);
+            recycled = interval;
+            rotatedAt = now;
+        }
+        return snapshot;
+    }
+
+    /*
+        Summary statistics are taken from the histogram. Values are a sample of at most MAX_SAMPLES evenly spaced
+        percentiles, so that the snapshot does not grow with the number of recorded values.
+     */
+    private static final class HdrSnapshot extends Snapshot {
+        private final long[] values;
+        private final long min;
+        private final long max;
+        private final double mean;
+        private final double stdDev;
+        private final Histogram histogram;
+
+        private HdrSnapshot(Histogram histogram) {
+            this.histogram = histogram;
+            final long count = histogram.getTotalCount();
+            final int samples = (int) Math.min(count, MAX_SAMPLES);
+            this.values = new long[samples];
+            for (int i = 0; i < samples; i++) {
+                values[i] = histogram.getValueAtPercentile(100.0 * (i + 1) / samples);
+            }
+            this.min = count == 0 ? 0 : histogram.getMinValue();
+            this.max = count == 0 ? 0 : histogram.getMaxValue();
+            this.mean = count == 0 ? 0 : histogram.getMean();
+            this.stdDev = count == 0 ? 0 : histogram.getStdDeviation();
+        }
+
+        static HdrSnapshot of(Histogram histogram) {
+            return new HdrSnapshot(histogram.copy());
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(quantile * 100.0);
+        }
+
+        @Override
+        public long[] getValues() {
+            return Arrays.copyOf(values, values.length);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public double getMean() {
+            return mean;
+        }
+
+        @Override
+        public long getMin() {
+            return min;
+        }
+
+        @Override
+        public double getStdDev() {
+            return stdDev;
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : values) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.appform.dropwizard.actors.metrics;
+
+import lombok.Value;
+
+/**
+ * A delivery being handled by a consumer
+ */
+@Value
+public class InFlightDelivery {
+    String actor;
+    int shard;
+    long deliveryTag;
+    long startedAt;
+    String thread;
+
+    public long ageMs() {
+        return System.currentTimeMillis() - startedAt;
+    }
+}
@@ -0,0 +1,52 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.rabbitmq.client.Channel;
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Slots of all running consumers in the JVM. Slots are added and removed only when consumers start and stop;
+ * handling a message only writes to the consumer's own slot.
+ */
+@UtilityClass
+public class InFlightRegistry {
+    private static final List<InFlightSlot> SLOTS = new CopyOnWriteArrayList<>();
+
+    public InFlightSlot register(final String actor,
+                                 final int shard,
+                                 final int prefetchCount,
+                                 final Channel channel,
+                                 final Supplier<String> consumerTag,
+                                 final BooleanSupplier blocked) {
+        final InFlightSlot slot = new InFlightSlot(actor, shard, prefetchCount, channel, consumerTag, blocked);
+        SLOTS.add(slot);
+        return slot;
+    }
+
+    public void deregister(final InFlightSlot slot) {
+        SLOTS.remove(slot);
+    }
+
+    public List<InFlightSlot> slots() {
+        return SLOTS;
+    }
+
+    /**
+     * @return Deliveries being handled right now, oldest first
+     */
+    public List<InFlightDelivery> oldest(final int limit) {
+        return SLOTS.stream()
+                .map(InFlightSlot::inFlight)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong(InFlightDelivery::getStartedAt))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,116 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.rabbitmq.client.Channel;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-flight state of a single consumer. A consumer handles one delivery at a time, so one slot per consumer is
+ * enough. Starting a delivery costs a release write of the start time; the delivery tag and thread are written
+ * before it and become visible along with it. Delivered and settled counts are only written by the consuming thread
+ * with plain writes, so readers on other threads see them approximately.
+ */
+public class InFlightSlot {
+    private static final VarHandle STARTED_AT;
+
+    static {
+        try {
+            STARTED_AT = MethodHandles.lookup().findVarHandle(InFlightSlot.class, "startedAt", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final String actor;
+    @Getter
+    private final int shard;
+    @Getter
+    private final int prefetchCount;
+    @Getter
+    private final Channel channel;
+    private final Supplier<String> consumerTag;
+    private final BooleanSupplier blocked;
+
+    @SuppressWarnings("unused")
+    private long startedAt;
+    private long deliveryTag;
+    private Thread thread;
+    private long delivered;
+    private long settled;
+
+    InFlightSlot(String actor,
+                 int shard,
+                 int prefetchCount,
+                 Channel channel,
+                 Supplier<String> consumerTag,
+                 BooleanSupplier blocked) {
+        this.actor = actor;
+        this.shard = shard;
+        this.prefetchCount = prefetchCount;
+        this.channel = channel;
+        this.consumerTag = consumerTag;
+        this.blocked = blocked;
+    }
+
+    public void started(long tag) {
+        deliveryTag = tag;
+        thread = Thread.currentThread();
+        delivered++;
+        STARTED_AT.setRelease(this, System.currentTimeMillis());
+    }
+
+    public void finished() {
+        STARTED_AT.setRelease(this, 0L);
+    }
+
+    /**
+     * Called when a delivery is acked or rejected
+     */
+    public void settled() {
+        settled++;
+    }
+
+    /**
+     * @return Deliveries handed to the consumer that are not acked or rejected yet
+     */
+    public long unacked() {
+        return Math.max(delivered - settled, 0);
+    }
+
+    /**
+     * @return blocked if the broker blocked the connection, saturated if the unacked deliveries fill the prefetch
+     * window so the broker holds back further deliveries, flowing otherwise
+     */
+    public String flowState() {
+        if (isBlocked()) {
+            return "blocked";
+        }
+        return prefetchCount > 0 && unacked() >= prefetchCount ? "saturated" : "flowing";
+    }
+
+    /**
+     * @return Snapshot of the delivery being handled, null if the consumer is idle
+     */
+    public InFlightDelivery inFlight() {
+        final long started = (long) STARTED_AT.getAcquire(this);
+        if (started == 0) {
+            return null;
+        }
+        final Thread handlingThread = thread;
+        return new InFlightDelivery(actor, shard, deliveryTag, started,
+                                    null == handlingThread ? null : handlingThread.getName());
+    }
+
+    public String consumerTag() {
+        return consumerTag.get();
+    }
+
+    public boolean isBlocked() {
+        return blocked.getAsBoolean();
+    }
+}
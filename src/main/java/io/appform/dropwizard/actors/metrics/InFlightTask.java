@@ -0,0 +1,48 @@
+package io.appform.dropwizard.actors.metrics;
+
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin task listing the oldest in-flight deliveries and the state of every consumer channel. Takes an optional
+ * {@code limit} parameter for the number of deliveries to list, 20 by default.
+ * <pre>
+ *     curl -X POST 'http://localhost:8081/tasks/rmq-actor-inflight?limit=50'
+ * </pre>
+ */
+public class InFlightTask extends Task {
+    private static final int DEFAULT_LIMIT = 20;
+
+    public InFlightTask() {
+        super("rmq-actor-inflight");
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        final int limit = parameters.getOrDefault("limit", List.of())
+                .stream()
+                .findFirst()
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_LIMIT);
+        output.println("In-flight deliveries (oldest first):");
+        output.printf("%-48s %6s %14s %12s %s%n", "actor", "shard", "deliveryTag", "age(ms)", "thread");
+        for (InFlightDelivery delivery : InFlightRegistry.oldest(limit)) {
+            output.printf("%-48s %6d %14d %12d %s%n",
+                          delivery.getActor(), delivery.getShard(), delivery.getDeliveryTag(), delivery.ageMs(),
+                          delivery.getThread());
+        }
+        output.println();
+        output.println("Consumer channels:");
+        output.printf("%-48s %6s %-32s %8s %6s %9s %9s %10s%n",
+                      "actor", "shard", "consumerTag", "channel", "open", "prefetch", "unacked", "flow");
+        for (InFlightSlot slot : InFlightRegistry.slots()) {
+            output.printf("%-48s %6d %-32s %8d %6s %9d %9d %10s%n",
+                          slot.getActor(), slot.getShard(), slot.consumerTag(), slot.getChannel().getChannelNumber(),
+                          slot.getChannel().isOpen(), slot.getPrefetchCount(), slot.unacked(), slot.flowState());
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,101 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates whether and when the backlog of an actor drains, from successive queue depth samples. Queue depths
+ * reported by the broker reflect publishes and acks of all instances, so the net growth rate, i.e. publish rate
+ * minus ack rate, is derived from the change in depth and smoothed exponentially. Registers gauges under
+ * {@code rmqactor.<sanitized queue name>.lag}: netGrowthRate (messages per second), timeToDrainSeconds and the
+ * same for every shard under shard.&lt;id&gt;. Time to drain is 0 for an empty queue and -1 if the queue is not
+ * draining.
+ */
+public class LagEstimator {
+    static final long SMOOTHING_WINDOW_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Rate total = new Rate();
+    private final Rate[] shards;
+
+    public LagEstimator(final MetricRegistry metricRegistry, final String metricPrefix, final int shardCount) {
+        this.shards = new Rate[shardCount];
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            shards[shardId] = new Rate();
+        }
+        registerGauges(metricRegistry, MetricRegistry.name(metricPrefix, "lag"), total);
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            registerGauges(metricRegistry,
+                           MetricRegistry.name(metricPrefix, "lag", "shard", String.valueOf(shardId)),
+                           shards[shardId]);
+        }
+    }
+
+    public synchronized void update(final QueueDepth depth) {
+        total.update(depth.getMessages(), depth.getSampledAt());
+        final List<Long> shardMessages = depth.getShardMessages();
+        for (int shardId = 0; shardId < shards.length && shardId < shardMessages.size(); shardId++) {
+            shards[shardId].update(shardMessages.get(shardId), depth.getSampledAt());
+        }
+    }
+
+    public double netGrowthRate() {
+        return total.growthRate;
+    }
+
+    public double timeToDrainSeconds() {
+        return total.timeToDrainSeconds();
+    }
+
+    public double netGrowthRate(final int shardId) {
+        return shards[shardId].growthRate;
+    }
+
+    public double timeToDrainSeconds(final int shardId) {
+        return shards[shardId].timeToDrainSeconds();
+    }
+
+    private static void registerGauges(MetricRegistry metricRegistry, String prefix, Rate rate) {
+        register(metricRegistry, MetricRegistry.name(prefix, "netGrowthRate"), () -> rate.growthRate);
+        register(metricRegistry, MetricRegistry.name(prefix, "timeToDrainSeconds"), rate::timeToDrainSeconds);
+    }
+
+    private static void register(MetricRegistry metricRegistry, String name, Gauge<Double> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    /*
+        Exponentially weighted growth rate for irregularly spaced samples: the weight of a new observation depends on
+        the time since the previous sample.
+     */
+    private static final class Rate {
+        private long depth = -1;
+        private long sampledAt;
+        private volatile long lastDepth;
+        private volatile double growthRate;
+
+        private void update(long newDepth, long newSampledAt) {
+            if (depth >= 0 && newSampledAt > sampledAt) {
+                final long elapsedMs = newSampledAt - sampledAt;
+                final double observed = (newDepth - depth) * 1000.0 / elapsedMs;
+                final double alpha = 1 - Math.exp(-(double) elapsedMs / SMOOTHING_WINDOW_MS);
+                growthRate = growthRate + alpha * (observed - growthRate);
+            }
+            depth = newDepth;
+            sampledAt = newSampledAt;
+            lastDepth = newDepth;
+        }
+
+        private double timeToDrainSeconds() {
+            final long currentDepth = lastDepth;
+            final double rate = growthRate;
+            if (currentDepth <= 0) {
+                return 0;
+            }
+            return rate < 0 ? currentDepth / -rate : -1;
+        }
+    }
+}
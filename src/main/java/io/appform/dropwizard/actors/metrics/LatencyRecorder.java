@@ -0,0 +1,48 @@
+package io.appform.dropwizard.actors.metrics;
+
+import io.dropwizard.util.Duration;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latencies in microseconds. Recording is wait free; readers see the snapshot of the last completed
+ * interval.
+ */
+public class LatencyRecorder {
+    @Getter
+    private final String name;
+    private final Recorder recorder;
+    private final double percentile;
+    @Getter
+    private final long thresholdMicros;
+    private Histogram recycled;
+    private volatile LatencySnapshot snapshot = LatencySnapshot.EMPTY;
+
+    LatencyRecorder(String name, int significantDigits, double percentile, Duration threshold) {
+        this.name = name;
+        this.recorder = new Recorder(significantDigits);
+        this.percentile = percentile;
+        this.thresholdMicros = null == threshold ? 0 : threshold.toMicroseconds();
+    }
+
+    public void record(long value, TimeUnit unit) {
+        recorder.recordValue(Math.max(0, unit.toMicros(value)));
+    }
+
+    public LatencySnapshot snapshot() {
+        return snapshot;
+    }
+
+    public boolean isSloBreached() {
+        return thresholdMicros > 0 && snapshot.getCount() > 0 && snapshot.getSloValue() >= thresholdMicros;
+    }
+
+    synchronized void rotate() {
+        final Histogram interval = recorder.getIntervalHistogram(recycled);
+        snapshot = LatencySnapshot.of(interval, percentile);
+        recycled = interval;
+    }
+}
@@ -0,0 +1,51 @@
+package io.appform.dropwizard.actors.metrics;
+
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Admin task printing the latency percentiles of the last interval for every actor with latency tracking enabled.
+ * <pre>
+ *     curl -X POST http://localhost:8081/tasks/rmq-actor-latencies
+ * </pre>
+ */
+public class LatencyReportTask extends Task {
+    private final Supplier<List<LatencyTracker>> trackers;
+
+    /**
+     * @param trackers Supplies the trackers of all connections
+     */
+    public LatencyReportTask(Supplier<List<LatencyTracker>> trackers) {
+        super("rmq-actor-latencies");
+        this.trackers = trackers;
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        output.printf("%-48s %-10s %10s %10s %10s %10s %10s %10s %s%n",
+                      "actor", "latency", "count", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "slo(ms)",
+                      "breached");
+        for (LatencyTracker tracker : trackers.get()) {
+            for (LatencyRecorder recorder : tracker.recorders()) {
+                final LatencySnapshot snapshot = recorder.snapshot();
+                output.printf("%-48s %-10s %10d %10.3f %10.3f %10.3f %10.3f %10s %s%n",
+                              tracker.getName(), recorder.getName(), snapshot.getCount(),
+                              millis(snapshot.getP50()), millis(snapshot.getP99()), millis(snapshot.getP999()),
+                              millis(snapshot.getMax()),
+                              recorder.getThresholdMicros() > 0
+                              ? String.format("%.3f", millis(recorder.getThresholdMicros()))
+                              : "-",
+                              recorder.isSloBreached());
+            }
+        }
+        output.flush();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
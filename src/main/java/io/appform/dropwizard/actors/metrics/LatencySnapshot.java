@@ -0,0 +1,35 @@
+package io.appform.dropwizard.actors.metrics;
+
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles in microseconds for one interval
+ */
+@Value
+public class LatencySnapshot {
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0);
+
+    long count;
+    long p50;
+    long p99;
+    long p999;
+    long max;
+
+    /**
+     * Value at the SLO percentile
+     */
+    long sloValue;
+
+    static LatencySnapshot of(Histogram histogram, double sloPercentile) {
+        if (histogram.getTotalCount() == 0) {
+            return EMPTY;
+        }
+        return new LatencySnapshot(histogram.getTotalCount(),
+                                   histogram.getValueAtPercentile(50.0),
+                                   histogram.getValueAtPercentile(99.0),
+                                   histogram.getValueAtPercentile(99.9),
+                                   histogram.getMaxValue(),
+                                   histogram.getValueAtPercentile(sloPercentile));
+    }
+}
@@ -0,0 +1,84 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.appform.dropwizard.actors.actor.LatencyTrackingConfig;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HdrHistogram based handler latency, queue dwell time and publish latency of an actor. One tracker exists per
+ * actor on a connection and is shared by its publisher and consumer, see {@link LatencyTrackers}. Registers gauges under
+ * {@code rmqactor.<sanitized queue name>.slo}: handler.breached, queueDwell.breached, publish.breached and breached,
+ * which are 1 while the last interval breaches the respective SLO.
+ */
+public class LatencyTracker {
+    private static final ScheduledExecutorService ROTATOR = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("rmq-latency-rotator")
+                    .setDaemon(true)
+                    .build());
+
+    @Getter
+    private final String name;
+    @Getter
+    private final LatencyRecorder handler;
+    @Getter
+    private final LatencyRecorder queueDwell;
+    @Getter
+    private final LatencyRecorder publish;
+    private final MetricRegistry metricRegistry;
+    private final List<String> gauges = new ArrayList<>();
+    private final ScheduledFuture<?> rotation;
+
+    LatencyTracker(String name, LatencyTrackingConfig config, MetricRegistry metricRegistry) {
+        this.name = name;
+        this.handler = new LatencyRecorder("handler", config.getSignificantDigits(), config.getPercentile(),
+                                           config.getHandlerLatency());
+        this.queueDwell = new LatencyRecorder("queueDwell", config.getSignificantDigits(), config.getPercentile(),
+                                              config.getQueueDwellTime());
+        this.publish = new LatencyRecorder("publish", config.getSignificantDigits(), config.getPercentile(),
+                                           config.getPublishLatency());
+        this.metricRegistry = metricRegistry;
+        final String prefix = MetricRegistry.name("rmqactor", NamingUtils.sanitizeMetricName(name), "slo");
+        for (LatencyRecorder recorder : recorders()) {
+            registerGauge(MetricRegistry.name(prefix, recorder.getName(), "breached"),
+                          () -> recorder.isSloBreached() ? 1 : 0);
+        }
+        registerGauge(MetricRegistry.name(prefix, "breached"), () -> isSloBreached() ? 1 : 0);
+        final long intervalMs = config.getInterval().toMilliseconds();
+        this.rotation = ROTATOR.scheduleAtFixedRate(this::rotate, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public List<LatencyRecorder> recorders() {
+        return Arrays.asList(handler, queueDwell, publish);
+    }
+
+    public boolean isSloBreached() {
+        return recorders().stream().anyMatch(LatencyRecorder::isSloBreached);
+    }
+
+    void rotate() {
+        recorders().forEach(LatencyRecorder::rotate);
+    }
+
+    void stop() {
+        rotation.cancel(false);
+        gauges.forEach(metricRegistry::remove);
+    }
+
+    private void registerGauge(String name, Gauge<Integer> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+        gauges.add(name);
+    }
+}
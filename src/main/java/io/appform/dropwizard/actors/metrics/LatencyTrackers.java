@@ -0,0 +1,45 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import io.appform.dropwizard.actors.actor.LatencyTrackingConfig;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Latency trackers of the actors on one connection. Trackers register their gauges in the metric registry of the
+ * connection and are stopped along with it, so a restarted connection starts with fresh trackers.
+ */
+public class LatencyTrackers {
+    private final MetricRegistry metricRegistry;
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    public LatencyTrackers(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * @return Tracker for the actor, created with the given config if it does not exist yet
+     */
+    public LatencyTracker forActor(String queueName, LatencyTrackingConfig config) {
+        return trackers.computeIfAbsent(queueName, name -> new LatencyTracker(name, config, metricRegistry));
+    }
+
+    public List<LatencyTracker> all() {
+        return trackers.values()
+                .stream()
+                .sorted(Comparator.comparing(LatencyTracker::getName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stops rotating all trackers and removes their gauges
+     */
+    public void stop() {
+        trackers.values().forEach(LatencyTracker::stop);
+        trackers.clear();
+    }
+}
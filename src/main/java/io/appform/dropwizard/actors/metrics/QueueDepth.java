@@ -0,0 +1,37 @@
+package io.appform.dropwizard.actors.metrics;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Depths of the queues of an actor as sampled at {@link #sampledAt}
+ */
+@Value
+public class QueueDepth {
+    /**
+     * Messages ready in the main queue, or in all shards for sharded actors
+     */
+    long messages;
+
+    /**
+     * Messages ready in every shard, empty for unsharded actors
+     */
+    List<Long> shardMessages;
+
+    long sidelineMessages;
+
+    /**
+     * Consumers on the main queue, or on all shards for sharded actors
+     */
+    int consumers;
+
+    /**
+     * Epoch millis at which the depths were sampled
+     */
+    long sampledAt;
+
+    public long ageMs() {
+        return System.currentTimeMillis() - sampledAt;
+    }
+}
@@ -0,0 +1,145 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.AMQP;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.QueueType;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Samples the depths of the queues of an actor in the background, with one passive declare per queue on a single
+ * pooled channel. Readers get the last sample instead of querying the broker. Registers gauges under
+ * {@code rmqactor.<sanitized queue name>.depth}: messages, sideline, consumers, shard.&lt;id&gt; and ageMs.
+ * Every sample also feeds a {@link LagEstimator} for the actor.
+ */
+@Slf4j
+public class QueueDepthSampler {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("rmq-queue-depth-sampler")
+                    .setDaemon(true)
+                    .build());
+
+    private final RMQConnection connection;
+    private final String queueName;
+    private final List<String> queues;
+    private final boolean sidelined;
+    private final long intervalMs;
+    private final LagEstimator lagEstimator;
+    private volatile QueueDepth depth;
+    private ScheduledFuture<?> sampling;
+
+    public QueueDepthSampler(final RMQConnection connection,
+                             final String queueName,
+                             final ActorConfig config,
+                             final MetricRegistry metricRegistry) {
+        this.connection = connection;
+        this.queueName = queueName;
+        this.intervalMs = config.getQueueDepthSamplingInterval().toMilliseconds();
+        this.sidelined = config.getQueueType() != QueueType.STREAM;
+        if (config.isSharded()) {
+            val shards = new ArrayList<String>(config.getShardCount());
+            for (int shardId = 0; shardId < config.getShardCount(); shardId++) {
+                shards.add(NamingUtils.getShardedQueueName(queueName, shardId));
+            }
+            this.queues = Collections.unmodifiableList(shards);
+        } else {
+            this.queues = Collections.singletonList(queueName);
+        }
+        val actorPrefix = MetricRegistry.name("rmqactor", NamingUtils.sanitizeMetricName(queueName));
+        this.lagEstimator = new LagEstimator(metricRegistry, actorPrefix,
+                                             config.isSharded() ? config.getShardCount() : 0);
+        val prefix = MetricRegistry.name(actorPrefix, "depth");
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "messages"), QueueDepth::getMessages);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "sideline"), QueueDepth::getSidelineMessages);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "consumers"), QueueDepth::getConsumers);
+        registerGauge(metricRegistry, MetricRegistry.name(prefix, "ageMs"), QueueDepth::ageMs);
+        if (config.isSharded()) {
+            for (int shardId = 0; shardId < config.getShardCount(); shardId++) {
+                final int shard = shardId;
+                registerGauge(metricRegistry, MetricRegistry.name(prefix, "shard", String.valueOf(shardId)),
+                              sample -> sample.getShardMessages().get(shard));
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (null != sampling) {
+            return;
+        }
+        sample();
+        sampling = SCHEDULER.scheduleWithFixedDelay(this::sample, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Sampling queue depth of [{}] every {} ms", queueName, intervalMs);
+    }
+
+    public synchronized void stop() {
+        if (null != sampling) {
+            sampling.cancel(false);
+            sampling = null;
+        }
+    }
+
+    /**
+     * @return Last sampled queue depths, null if no sample has succeeded yet
+     */
+    public QueueDepth depth() {
+        return depth;
+    }
+
+    public LagEstimator lagEstimator() {
+        return lagEstimator;
+    }
+
+    void sample() {
+        try {
+            val sample = connection.withChannel(channel -> {
+                val shardMessages = new ArrayList<Long>(queues.size());
+                long messages = 0;
+                int consumers = 0;
+                for (String queue : queues) {
+                    final AMQP.Queue.DeclareOk declareOk = channel.queueDeclarePassive(queue);
+                    messages += declareOk.getMessageCount();
+                    consumers += declareOk.getConsumerCount();
+                    shardMessages.add((long) declareOk.getMessageCount());
+                }
+                final long sidelineMessages = sidelined
+                                              ? channel.queueDeclarePassive(NamingUtils.getSideline(queueName))
+                                                      .getMessageCount()
+                                              : 0;
+                return new QueueDepth(messages,
+                                      queues.size() > 1
+                                      ? Collections.unmodifiableList(shardMessages)
+                                      : Collections.emptyList(),
+                                      sidelineMessages,
+                                      consumers,
+                                      System.currentTimeMillis());
+            });
+            lagEstimator.update(sample);
+            depth = sample;
+        } catch (Exception e) {
+            log.warn("Could not sample queue depth of [{}]: {}", queueName, e.getMessage());
+        }
+    }
+
+    private void registerGauge(MetricRegistry metricRegistry, String name, ToLongFunction<QueueDepth> value) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, (Gauge<Long>) () -> {
+            final QueueDepth sample = depth;
+            return null == sample ? null : value.applyAsLong(sample);
+        });
+    }
+}
@@ -32,8 +32,7 @@ import java.util.concurrent.TimeUnit;
 public class CountLimitedExponentialWaitRetryStrategy extends RetryStrategy {
     public CountLimitedExponentialWaitRetryStrategy(CountLimitedExponentialWaitRetryConfig config) {
         super(RetryerBuilder.<Boolean>newBuilder()
-                .retryIfException(exception -> CommonUtils.isRetriable(config.getRetriableExceptions(),
-                        exception))
+                .retryIfException(CommonUtils.retriableExceptionClassifier(config.getRetriableExceptions())::matches)
                 .withStopStrategy(StopStrategies.stopAfterAttempt(config.getMaxAttempts()))
                 .withBlockStrategy(BlockStrategies.threadSleepStrategy())
                 .withWaitStrategy(
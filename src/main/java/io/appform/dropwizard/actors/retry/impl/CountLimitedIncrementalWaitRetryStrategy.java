@@ -32,8 +32,7 @@ import java.util.concurrent.TimeUnit;
 public class CountLimitedIncrementalWaitRetryStrategy extends RetryStrategy {
     public CountLimitedIncrementalWaitRetryStrategy(CountLimitedIncrementalWaitRetryConfig config) {
         super(RetryerBuilder.<Boolean>newBuilder()
-                .retryIfException(exception -> CommonUtils.isRetriable(config.getRetriableExceptions(),
-                        exception))
+                .retryIfException(CommonUtils.retriableExceptionClassifier(config.getRetriableExceptions())::matches)
                 .withStopStrategy(StopStrategies.stopAfterAttempt(config.getMaxAttempts()))
                 .withBlockStrategy(BlockStrategies.threadSleepStrategy())
                 .withWaitStrategy(
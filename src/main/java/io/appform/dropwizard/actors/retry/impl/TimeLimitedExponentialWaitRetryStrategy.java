@@ -32,8 +32,7 @@ import java.util.concurrent.TimeUnit;
 public class TimeLimitedExponentialWaitRetryStrategy extends RetryStrategy {
     public TimeLimitedExponentialWaitRetryStrategy(TimeLimitedExponentialWaitRetryConfig config) {
         super(RetryerBuilder.<Boolean>newBuilder()
-                .retryIfException(exception -> CommonUtils.isRetriable(config.getRetriableExceptions(),
-                        exception))
+                .retryIfException(CommonUtils.retriableExceptionClassifier(config.getRetriableExceptions())::matches)
                 .withStopStrategy(
                         StopStrategies.stopAfterDelay(config.getMaxTime().toMilliseconds(), TimeUnit.MILLISECONDS))
                 .withBlockStrategy(BlockStrategies.threadSleepStrategy())
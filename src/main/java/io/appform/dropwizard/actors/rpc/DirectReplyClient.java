@@ -0,0 +1,147 @@
+package io.appform.dropwizard.actors.rpc;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import io.appform.dropwizard.actors.common.ErrorCode;
+import io.appform.dropwizard.actors.common.RabbitmqActorException;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.appform.dropwizard.actors.common.Constants.DIRECT_REPLY_TO;
+import static io.appform.dropwizard.actors.common.Constants.REPLY_ERROR_HEADER;
+
+/**
+ * Sends requests and matches replies arriving through RabbitMQ direct reply-to. Requests must be published on the
+ * channel that consumes from the pseudo queue, so all requests of a connection go through one channel. Outstanding
+ * requests are tracked by correlation id and timed out by a single {@link TimerWheel}.
+ */
+@Slf4j
+public class DirectReplyClient {
+    private static final TimerWheel TIMEOUTS = new TimerWheel("rmq-reply-timeouts", 10, 512);
+
+    private final String name;
+    private final Channel channel;
+    private final String correlationPrefix = UUID.randomUUID() + "-";
+    private final AtomicLong nextCorrelationId = new AtomicLong();
+    private final Map<String, PendingReply> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Decodes a reply body
+     */
+    @FunctionalInterface
+    public interface ReplyDecoder<R> {
+        R decode(byte[] body) throws IOException;
+    }
+
+    public DirectReplyClient(final String name, final Channel channel) throws IOException {
+        this.name = name;
+        this.channel = channel;
+        channel.basicConsume(DIRECT_REPLY_TO, true, new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag,
+                                       Envelope envelope,
+                                       AMQP.BasicProperties properties,
+                                       byte[] body) {
+                complete(properties, body);
+            }
+        });
+    }
+
+    public <R> CompletableFuture<R> request(final String exchange,
+                                            final String routingKey,
+                                            final AMQP.BasicProperties properties,
+                                            final byte[] body,
+                                            final ReplyDecoder<R> decoder,
+                                            final long timeout,
+                                            final TimeUnit unit) {
+        val correlationId = correlationPrefix + nextCorrelationId.incrementAndGet();
+        val future = new CompletableFuture<R>();
+        val pendingReply = new PendingReply(future, decoder);
+        pending.put(correlationId, pendingReply);
+        pendingReply.timeout = TIMEOUTS.schedule(() -> {
+            if (null != pending.remove(correlationId)) {
+                future.completeExceptionally(new TimeoutException(String.format(
+                        "No reply to request %s from [%s] in %d %s", correlationId, routingKey, timeout, unit)));
+            }
+        }, timeout, unit);
+        try {
+            channel.basicPublish(exchange, routingKey, properties.builder()
+                    .replyTo(DIRECT_REPLY_TO)
+                    .correlationId(correlationId)
+                    .build(), body);
+        } catch (Exception e) {
+            pending.remove(correlationId);
+            pendingReply.timeout.cancel();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public int outstanding() {
+        return pending.size();
+    }
+
+    public void close() {
+        pending.forEach((correlationId, pendingReply) -> {
+            pendingReply.timeout.cancel();
+            pendingReply.future.completeExceptionally(new RabbitmqActorException(
+                    ErrorCode.REQUEST_FAILED, String.format("Reply client for [%s] closed", name), null));
+        });
+        pending.clear();
+        try {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (Exception e) {
+            log.warn("Error closing reply channel for [{}]: {}", name, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(final AMQP.BasicProperties properties, final byte[] body) {
+        val correlationId = properties.getCorrelationId();
+        val pendingReply = null == correlationId ? null : pending.remove(correlationId);
+        if (null == pendingReply) {
+            log.debug("Discarding late or unknown reply with correlation id {} on [{}]", correlationId, name);
+            return;
+        }
+        pendingReply.timeout.cancel();
+        val future = (CompletableFuture<Object>) pendingReply.future;
+        val error = null == properties.getHeaders() ? null : properties.getHeaders().get(REPLY_ERROR_HEADER);
+        if (null != error) {
+            future.completeExceptionally(new RabbitmqActorException(ErrorCode.REQUEST_FAILED, error.toString(), null));
+            return;
+        }
+        try {
+            future.complete(pendingReply.decoder.decode(body));
+        } catch (Exception e) {
+            future.completeExceptionally(new RabbitmqActorException(
+                    ErrorCode.REQUEST_FAILED,
+                    "Could not decode reply: " + new String(body, 0, Math.min(body.length, 256),
+                                                           StandardCharsets.UTF_8), e));
+        }
+    }
+
+    private static final class PendingReply {
+        private final CompletableFuture<?> future;
+        private final ReplyDecoder<?> decoder;
+        private volatile TimerWheel.Timeout timeout;
+
+        private PendingReply(CompletableFuture<?> future, ReplyDecoder<?> decoder) {
+            this.future = future;
+            this.decoder = decoder;
+        }
+    }
+}
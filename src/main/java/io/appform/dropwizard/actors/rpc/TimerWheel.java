@@ -0,0 +1,116 @@
+package io.appform.dropwizard.actors.rpc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timer wheel for request timeouts. Scheduling and cancelling are constant time and never block, so
+ * thousands of outstanding timeouts cost little. Timeouts fire on the single wheel thread, up to one tick late.
+ */
+@Slf4j
+public class TimerWheel {
+
+    /**
+     * A scheduled task that can be cancelled
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile boolean cancelled;
+        private long rounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final long tickNanos;
+    private final List<List<Timeout>> buckets;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+    private long tick;
+    private volatile boolean running = true;
+
+    public TimerWheel(final String name, final long tickMs, final int bucketCount) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        final Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+        added.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            final long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+            final long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            tick++;
+            placeAdded();
+            expire(buckets.get((int) (tick % buckets.size())));
+        }
+    }
+
+    private void placeAdded() {
+        Timeout timeout;
+        while (null != (timeout = added.poll())) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            final long deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+            timeout.rounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick % buckets.size())).add(timeout);
+        }
+    }
+
+    private void expire(final List<Timeout> bucket) {
+        final Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            final Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.rounds <= 0) {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (Exception e) {
+                    log.warn("Timeout task failed", e);
+                }
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+}
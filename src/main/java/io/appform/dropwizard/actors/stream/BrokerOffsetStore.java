@@ -0,0 +1,62 @@
+package io.appform.dropwizard.actors.stream;
+
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.MessageProperties;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import lombok.val;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps offsets on the broker, each in a durable queue holding only the latest offset published to it. Offsets are
+ * read without being acked, so they stay in the queue.
+ */
+public class BrokerOffsetStore implements OffsetStore {
+    private static final String OFFSET_QUEUE_PREFIX = "rmq.actors.offsets";
+    private static final Map<String, Object> OFFSET_QUEUE_ARGUMENTS = ImmutableMap.of("x-max-length", 1,
+                                                                                       "x-overflow", "drop-head");
+
+    private final RMQConnection connection;
+    private final Set<String> declared = ConcurrentHashMap.newKeySet();
+
+    public BrokerOffsetStore(RMQConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public OptionalLong load(String reference) throws Exception {
+        val queue = offsetQueue(reference);
+        return connection.withChannel(channel -> {
+            val response = channel.basicGet(queue, false);
+            if (null == response) {
+                return OptionalLong.empty();
+            }
+            channel.basicNack(response.getEnvelope().getDeliveryTag(), false, true);
+            return OptionalLong.of(Long.parseLong(new String(response.getBody(), StandardCharsets.UTF_8)));
+        });
+    }
+
+    @Override
+    public void store(String reference, long offset) throws Exception {
+        val queue = offsetQueue(reference);
+        connection.withChannel(channel -> {
+            channel.basicPublish("", queue, MessageProperties.MINIMAL_PERSISTENT_BASIC,
+                                 Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+    }
+
+    private String offsetQueue(String reference) throws Exception {
+        val queue = String.format("%s.%s", OFFSET_QUEUE_PREFIX, reference);
+        if (!declared.contains(queue)) {
+            connection.withChannel(channel -> channel.queueDeclare(queue, true, false, false,
+                                                                   OFFSET_QUEUE_ARGUMENTS));
+            declared.add(queue);
+        }
+        return queue;
+    }
+}
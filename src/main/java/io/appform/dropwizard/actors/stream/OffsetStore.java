@@ -0,0 +1,13 @@
+package io.appform.dropwizard.actors.stream;
+
+import java.util.OptionalLong;
+
+/**
+ * Remembers the offset of the last handled message of a stream for a consumer group
+ */
+public interface OffsetStore {
+
+    OptionalLong load(String reference) throws Exception;
+
+    void store(String reference, long offset) throws Exception;
+}
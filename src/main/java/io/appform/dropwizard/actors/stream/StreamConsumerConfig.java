@@ -0,0 +1,64 @@
+package io.appform.dropwizard.actors.stream;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Consumption of an actor's stream queues. Consumers of the same group share offsets, so a new group replays the
+ * stream from {@link #startFrom} while an existing one carries on from its last stored offset.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StreamConsumerConfig {
+
+    @NotNull
+    @NotEmpty
+    @Builder.Default
+    private String consumerGroup = "default";
+
+    /**
+     * Where consumption starts if no offset has been stored for the group
+     */
+    @NotNull
+    @Builder.Default
+    private StreamOffsetType startFrom = StreamOffsetType.FIRST;
+
+    /**
+     * Offset to start from for {@link StreamOffsetType#OFFSET}
+     */
+    @Min(0)
+    private Long offset;
+
+    /**
+     * Time to start from for {@link StreamOffsetType#TIMESTAMP}
+     */
+    private Date timestamp;
+
+    /**
+     * Offsets of handled messages are stored at this interval and when the consumer is stopped, not per message.
+     * Messages handled after the last stored offset are handled again after a restart.
+     */
+    @NotNull
+    @Valid
+    @Builder.Default
+    private Duration commitInterval = Duration.seconds(5);
+
+    @ValidationMethod(message = "Offset or timestamp needs to be set to start from them.")
+    public boolean isValidStartFrom() {
+        return (startFrom != StreamOffsetType.OFFSET || Objects.nonNull(offset))
+                && (startFrom != StreamOffsetType.TIMESTAMP || Objects.nonNull(timestamp));
+    }
+}
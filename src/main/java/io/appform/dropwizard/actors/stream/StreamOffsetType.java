@@ -0,0 +1,27 @@
+package io.appform.dropwizard.actors.stream;
+
+/**
+ * Where a stream consumer without a stored offset starts reading
+ */
+public enum StreamOffsetType {
+    /**
+     * The first message still in the stream
+     */
+    FIRST,
+    /**
+     * The last chunk written to the stream
+     */
+    LAST,
+    /**
+     * Messages written after the consumer started
+     */
+    NEXT,
+    /**
+     * A fixed offset
+     */
+    OFFSET,
+    /**
+     * The first chunk written at or after a point in time, with a precision of a second
+     */
+    TIMESTAMP
+}
@@ -0,0 +1,13 @@
+package io.appform.dropwizard.actors.topology;
+
+import lombok.Value;
+
+/**
+ * A binding from an exchange to a queue
+ */
+@Value
+public class BindingSpec {
+    String queue;
+    String exchange;
+    String routingKey;
+}
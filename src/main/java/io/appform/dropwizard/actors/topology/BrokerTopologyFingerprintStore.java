@@ -0,0 +1,68 @@
+package io.appform.dropwizard.actors.topology;
+
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.MessageProperties;
+import io.appform.dropwizard.actors.connectivity.ChannelPool;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps fingerprints on the broker, one durable marker queue per actor holding only the fingerprint published to it
+ * last. Storing a new fingerprint replaces the previous one, so topology changes leave nothing behind. Fingerprints
+ * are read without being acked, so they stay in the queue.
+ */
+@Slf4j
+public class BrokerTopologyFingerprintStore implements TopologyFingerprintStore {
+    private static final String MARKER_PREFIX = "rmq.actors.topology";
+    private static final Map<String, Object> MARKER_QUEUE_ARGUMENTS = ImmutableMap.of("x-max-length", 1,
+                                                                                      "x-overflow", "drop-head");
+
+    private final ChannelPool channelPool;
+    private final Set<String> declared = ConcurrentHashMap.newKeySet();
+
+    public BrokerTopologyFingerprintStore(ChannelPool channelPool) {
+        this.channelPool = channelPool;
+    }
+
+    @Override
+    public boolean matches(String key, String fingerprint) throws Exception {
+        val queue = markerQueue(key);
+        val stored = channelPool.withChannel(channel -> {
+            val response = channel.basicGet(queue, false);
+            if (null == response) {
+                return null;
+            }
+            channel.basicNack(response.getEnvelope().getDeliveryTag(), false, true);
+            return new String(response.getBody(), StandardCharsets.UTF_8);
+        });
+        if (null == stored) {
+            log.debug("No topology marker found for [{}]", key);
+        }
+        return fingerprint.equals(stored);
+    }
+
+    @Override
+    public void store(String key, String fingerprint) throws Exception {
+        val queue = markerQueue(key);
+        channelPool.withChannel(channel -> {
+            channel.basicPublish("", queue, MessageProperties.MINIMAL_PERSISTENT_BASIC,
+                                 fingerprint.getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+    }
+
+    private String markerQueue(String key) throws Exception {
+        val queue = String.format("%s.%s", MARKER_PREFIX, key);
+        if (!declared.contains(queue)) {
+            channelPool.withChannel(channel -> channel.queueDeclare(queue, true, false, false,
+                                                                    MARKER_QUEUE_ARGUMENTS));
+            declared.add(queue);
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,15 @@
+package io.appform.dropwizard.actors.topology;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A durable exchange to be declared
+ */
+@Value
+public class ExchangeSpec {
+    String name;
+    String type;
+    Map<String, Object> arguments;
+}
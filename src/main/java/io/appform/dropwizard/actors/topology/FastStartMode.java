@@ -0,0 +1,19 @@
+package io.appform.dropwizard.actors.topology;
+
+/**
+ * What to do on startup when the topology of an actor matches the fingerprint stored from an earlier declaration
+ */
+public enum FastStartMode {
+    /**
+     * Always declare the full topology
+     */
+    DISABLED,
+    /**
+     * Passively check that exchanges and queues exist instead of declaring them
+     */
+    PASSIVE,
+    /**
+     * Skip declaration altogether
+     */
+    SKIP
+}
@@ -0,0 +1,68 @@
+package io.appform.dropwizard.actors.topology;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps fingerprints in a local properties file. One instance is shared by all connections using the same file.
+ */
+@Slf4j
+public class FileTopologyFingerprintStore implements TopologyFingerprintStore {
+    private static final Map<Path, FileTopologyFingerprintStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private Properties fingerprints;
+
+    private FileTopologyFingerprintStore(Path path) {
+        this.path = path;
+    }
+
+    public static FileTopologyFingerprintStore forFile(String file) {
+        return STORES.computeIfAbsent(Paths.get(file).toAbsolutePath().normalize(),
+                                      FileTopologyFingerprintStore::new);
+    }
+
+    @Override
+    public synchronized boolean matches(String key, String fingerprint) throws IOException {
+        return Objects.equals(fingerprints().getProperty(key), fingerprint);
+    }
+
+    @Override
+    public synchronized void store(String key, String fingerprint) throws IOException {
+        fingerprints().setProperty(key, fingerprint);
+        final Path parent = path.getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        final Path tempFile = Files.createTempFile(null == parent ? Paths.get(".") : parent,
+                                                   path.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            fingerprints.store(out, "Topology fingerprints of rabbitmq actors");
+        }
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Properties fingerprints() throws IOException {
+        if (null == fingerprints) {
+            fingerprints = new Properties();
+            if (Files.exists(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    fingerprints.load(in);
+                }
+                log.info("Loaded {} topology fingerprints from {}", fingerprints.size(), path);
+            }
+        }
+        return fingerprints;
+    }
+}
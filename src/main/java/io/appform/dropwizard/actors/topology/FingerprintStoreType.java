@@ -0,0 +1,15 @@
+package io.appform.dropwizard.actors.topology;
+
+/**
+ * Where topology fingerprints are stored between restarts
+ */
+public enum FingerprintStoreType {
+    /**
+     * A properties file on local disk
+     */
+    FILE,
+    /**
+     * Marker queues on the broker
+     */
+    BROKER
+}
@@ -0,0 +1,14 @@
+package io.appform.dropwizard.actors.topology;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A durable queue to be declared
+ */
+@Value
+public class QueueSpec {
+    String name;
+    Map<String, Object> arguments;
+}
@@ -0,0 +1,43 @@
+package io.appform.dropwizard.actors.topology;
+
+import lombok.Getter;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exchanges, queues and bindings needed by one or more actors. Identical declarations are only kept once.
+ */
+@Getter
+public class Topology {
+    private final Set<ExchangeSpec> exchanges = new LinkedHashSet<>();
+    private final Set<QueueSpec> queues = new LinkedHashSet<>();
+    private final Set<BindingSpec> bindings = new LinkedHashSet<>();
+
+    public Topology exchange(String name, String type, Map<String, Object> arguments) {
+        exchanges.add(new ExchangeSpec(name, type, arguments));
+        return this;
+    }
+
+    public Topology queue(String name, Map<String, Object> arguments) {
+        queues.add(new QueueSpec(name, arguments));
+        return this;
+    }
+
+    public Topology binding(String queue, String exchange, String routingKey) {
+        bindings.add(new BindingSpec(queue, exchange, routingKey));
+        return this;
+    }
+
+    public Topology merge(Topology other) {
+        exchanges.addAll(other.exchanges);
+        queues.addAll(other.queues);
+        bindings.addAll(other.bindings);
+        return this;
+    }
+
+    public int size() {
+        return exchanges.size() + queues.size() + bindings.size();
+    }
+}
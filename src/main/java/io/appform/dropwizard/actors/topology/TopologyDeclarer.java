@@ -0,0 +1,320 @@
+package io.appform.dropwizard.actors.topology;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.Channel;
+import io.appform.dropwizard.actors.connectivity.ChannelPool;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Declares topology on a connection. Exchanges, then queues, then bindings are declared, each phase spread over
+ * multiple pooled channels. Everything declared successfully is remembered, so actors sharing exchanges or
+ * queues only pay for the first declaration.
+ */
+@Slf4j
+public class TopologyDeclarer {
+
+    @FunctionalInterface
+    private interface Declaration<T> {
+        void declare(Channel channel, T spec) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface PartitionTask<T> {
+        void run(List<T> partition) throws Exception;
+    }
+
+    private final String name;
+    private final ChannelPool channelPool;
+    private final int parallelism;
+    private final FastStartMode fastStartMode;
+    private final TopologyFingerprintStore fingerprintStore;
+    private final Set<Object> declared = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> declaredFingerprints = new ConcurrentHashMap<>();
+    private final Timer declarationTimer;
+    private final AtomicLong totalDeclarationTimeMs = new AtomicLong();
+    private ExecutorService executorService;
+
+    public TopologyDeclarer(final String name,
+                            final ChannelPool channelPool,
+                            final int parallelism,
+                            final FastStartMode fastStartMode,
+                            final TopologyFingerprintStore fingerprintStore,
+                            final MetricRegistry metricRegistry,
+                            final String metricPrefix) {
+        this.name = name;
+        this.channelPool = channelPool;
+        this.parallelism = parallelism;
+        this.fastStartMode = fastStartMode;
+        this.fingerprintStore = fingerprintStore;
+        this.declarationTimer = metricRegistry.timer(MetricRegistry.name(metricPrefix, "topology", "declaration"));
+        val totalTimeMetric = MetricRegistry.name(metricPrefix, "topology", "totalDeclarationTimeMs");
+        metricRegistry.remove(totalTimeMetric);
+        metricRegistry.register(totalTimeMetric, (Gauge<Long>) totalDeclarationTimeMs::get);
+    }
+
+    public void declare(final Topology topology) throws Exception {
+        val start = System.nanoTime();
+        val exchanges = pending(topology.getExchanges());
+        val queues = pending(topology.getQueues());
+        val bindings = pending(topology.getBindings());
+        declare(exchanges, (channel, exchange) -> {
+            channel.exchangeDeclare(exchange.getName(), exchange.getType(), true, false, exchange.getArguments());
+            log.info("Created exchange: {}", exchange.getName());
+        });
+        declare(queues, (channel, queue) -> {
+            channel.queueDeclare(queue.getName(), true, false, false, queue.getArguments());
+            log.info("Created queue: {}", queue.getName());
+        });
+        declare(bindings, (channel, binding) -> {
+            channel.queueBind(binding.getQueue(), binding.getExchange(), binding.getRoutingKey());
+            log.info("Created binding for queue : {} bound to {} routing Key {}",
+                     binding.getQueue(), binding.getExchange(), binding.getRoutingKey());
+        });
+        val elapsedNanos = System.nanoTime() - start;
+        declarationTimer.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        totalDeclarationTimeMs.addAndGet(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("Declared {} of {} topology entities on [{}] in {} ms",
+                 exchanges.size() + queues.size() + bindings.size(), topology.size(), name,
+                 TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * Declares the topology unless fast start is enabled and the fingerprint matches the one stored for the key
+     * during an earlier declaration. The fingerprint is stored after a successful declaration.
+     *
+     * @param topology    Topology to declare
+     * @param key         Key identifying the owner of the topology, usually the actor queue name
+     * @param fingerprint Fingerprint of the topology
+     */
+    public void declare(final Topology topology, final String key, final String fingerprint) throws Exception {
+        declare(Collections.singletonMap(key, topology), Collections.singletonMap(key, fingerprint));
+    }
+
+    /**
+     * Declares the topologies of many owners in one go, so that entities shared between them are declared once and
+     * all declarations are spread over the same channels. Topologies with a matching stored fingerprint are skipped
+     * or checked as for a single topology.
+     *
+     * @param topologies Topologies by the key identifying their owner
+     */
+    public void declare(final Map<String, Topology> topologies) throws Exception {
+        val fingerprints = new HashMap<String, String>();
+        topologies.forEach((key, topology) -> fingerprints.put(key, TopologyFingerprint.of(topology)));
+        declare(topologies, fingerprints);
+    }
+
+    /**
+     * Forgets what was declared, so that everything is declared again. Called once a connection recovers, as the
+     * broker may have lost or deleted entities in the meantime.
+     */
+    public void reset() {
+        declared.clear();
+        declaredFingerprints.clear();
+    }
+
+    public boolean isDeclared(Object spec) {
+        return declared.contains(spec);
+    }
+
+    public synchronized void close() {
+        if (null != executorService) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+
+    private void declare(final Map<String, Topology> topologies,
+                         final Map<String, String> fingerprints) throws Exception {
+        val candidates = new LinkedHashMap<String, Topology>();
+        topologies.forEach((key, topology) -> {
+            if (!fingerprints.get(key).equals(declaredFingerprints.get(key)) || !pending(topology).isEmpty()) {
+                candidates.put(key, topology);
+            }
+        });
+        if (candidates.isEmpty()) {
+            return;
+        }
+        val unchanged = fastStartMode == FastStartMode.DISABLED
+                        ? Collections.<String>emptySet()
+                        : unchanged(candidates, fingerprints);
+        val merged = new Topology();
+        val changed = new LinkedHashMap<String, String>();
+        for (val entry : candidates.entrySet()) {
+            val key = entry.getKey();
+            if (unchanged.contains(key)) {
+                declaredFingerprints.put(key, fingerprints.get(key));
+                continue;
+            }
+            merged.merge(entry.getValue());
+            changed.put(key, fingerprints.get(key));
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        declare(merged);
+        for (val entry : changed.entrySet()) {
+            if (fastStartMode != FastStartMode.DISABLED) {
+                fingerprintStore.store(entry.getKey(), entry.getValue());
+            }
+            declaredFingerprints.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+        Fingerprints are looked up in parallel, and the passive checks of all matching topologies run as one parallel
+        check. If any of them is missing on the broker, all matching topologies are declared again, which is safe as
+        declaration is idempotent.
+     */
+    private Set<String> unchanged(final Map<String, Topology> candidates,
+                                  final Map<String, String> fingerprints) throws Exception {
+        final Set<String> matching = ConcurrentHashMap.newKeySet();
+        inParallel(new ArrayList<>(candidates.keySet()), keys -> {
+            for (String key : keys) {
+                if (fingerprintStore.matches(key, fingerprints.get(key))) {
+                    matching.add(key);
+                }
+            }
+        });
+        if (matching.isEmpty()) {
+            return matching;
+        }
+        val matched = new Topology();
+        matching.forEach(key -> matched.merge(candidates.get(key)));
+        if (fastStartMode == FastStartMode.PASSIVE && !existsOnBroker(matched)) {
+            log.warn("Topology of {} actors is missing on the broker in spite of matching fingerprints",
+                     matching.size());
+            return Collections.emptySet();
+        }
+        declared.addAll(matched.getExchanges());
+        declared.addAll(matched.getQueues());
+        declared.addAll(matched.getBindings());
+        log.info("{} unchanged topology of {} actors on [{}]",
+                 fastStartMode == FastStartMode.SKIP ? "Skipped declaration of" : "Passively checked",
+                 matching.size(), name);
+        return matching;
+    }
+
+    private boolean existsOnBroker(final Topology topology) throws Exception {
+        try {
+            execute(pending(topology.getExchanges()),
+                    (channel, exchange) -> channel.exchangeDeclarePassive(exchange.getName()), false);
+            execute(pending(topology.getQueues()),
+                    (channel, queue) -> channel.queueDeclarePassive(queue.getName()), false);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private List<Object> pending(Topology topology) {
+        val specs = new ArrayList<Object>(pending(topology.getExchanges()));
+        specs.addAll(pending(topology.getQueues()));
+        specs.addAll(pending(topology.getBindings()));
+        return specs;
+    }
+
+    private <T> List<T> pending(Collection<T> specs) {
+        return specs.stream()
+                .filter(spec -> !declared.contains(spec))
+                .collect(Collectors.toList());
+    }
+
+    private <T> void declare(final List<T> specs, final Declaration<T> declaration) throws Exception {
+        execute(specs, declaration, true);
+    }
+
+    /*
+        Passive checks are executed without remembering the specs, so that a failed check does not leave part of
+        the topology marked as declared
+     */
+    private <T> void execute(final List<T> specs,
+                             final Declaration<T> declaration,
+                             final boolean remember) throws Exception {
+        inParallel(specs, partition -> executePartition(partition, declaration, remember));
+    }
+
+    /*
+        Splits the items into at most as many partitions as the parallelism and runs the task on each of them
+     */
+    private <T> void inParallel(final List<T> items, final PartitionTask<T> task) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        val partitionCount = Math.min(parallelism, items.size());
+        if (partitionCount == 1) {
+            task.run(items);
+            return;
+        }
+        val partitions = new ArrayList<List<T>>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            partitions.get(i % partitionCount).add(items.get(i));
+        }
+        val executor = executorService();
+        val futures = partitions.stream()
+                .map(partition -> CompletableFuture.runAsync(() -> {
+                    try {
+                        task.run(partition);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T> void executePartition(final List<T> specs,
+                                      final Declaration<T> declaration,
+                                      final boolean remember) throws Exception {
+        channelPool.withChannel(channel -> {
+            for (T spec : specs) {
+                declaration.declare(channel, spec);
+                if (remember) {
+                    declared.add(spec);
+                }
+            }
+            return null;
+        });
+    }
+
+    private synchronized ExecutorService executorService() {
+        if (null == executorService) {
+            executorService = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                    .setNameFormat(String.format("rmq-topology-%s-%%d", name))
+                    .setDaemon(true)
+                    .build());
+        }
+        return executorService;
+    }
+}
@@ -0,0 +1,42 @@
+package io.appform.dropwizard.actors.topology;
+
+import com.google.common.hash.Hashing;
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@UtilityClass
+public class TopologyFingerprint {
+
+    /**
+     * Computes a stable fingerprint of the topology, independent of declaration order and argument order
+     */
+    public String of(Topology topology) {
+        final String canonical = Stream.of(
+                        topology.getExchanges().stream()
+                                .map(exchange -> String.join("|", "E", exchange.getName(), exchange.getType(),
+                                                             arguments(exchange.getArguments()))),
+                        topology.getQueues().stream()
+                                .map(queue -> String.join("|", "Q", queue.getName(), arguments(queue.getArguments()))),
+                        topology.getBindings().stream()
+                                .map(binding -> String.join("|", "B", binding.getQueue(), binding.getExchange(),
+                                                            binding.getRoutingKey())))
+                .flatMap(lines -> lines)
+                .sorted()
+                .collect(Collectors.joining("\n"));
+        return Hashing.sha256()
+                .hashString(canonical, StandardCharsets.UTF_8)
+                .toString()
+                .substring(0, 32);
+    }
+
+    private String arguments(Map<String, Object> arguments) {
+        return null == arguments
+               ? ""
+               : new TreeMap<>(arguments).toString();
+    }
+}
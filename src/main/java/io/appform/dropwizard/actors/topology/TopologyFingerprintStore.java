@@ -0,0 +1,11 @@
+package io.appform.dropwizard.actors.topology;
+
+/**
+ * Remembers the fingerprint of the topology last declared for an actor
+ */
+public interface TopologyFingerprintStore {
+
+    boolean matches(String key, String fingerprint) throws Exception;
+
+    void store(String key, String fingerprint) throws Exception;
+}
@@ -0,0 +1,120 @@
+package io.appform.dropwizard.actors.topology;
+
+import com.google.common.collect.ImmutableMap;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.actor.QueueType;
+import io.appform.dropwizard.actors.base.DelayBuckets;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+
+import java.util.Map;
+
+/**
+ * Collects the topology of many actors so that it can be declared in one go. Shared exchanges and dead letter
+ * exchanges are declared only once, irrespective of how many actors use them. Actors plan their topology on their
+ * connection when they are created, and the connection registry declares all of it in one batch when it starts.
+ * Starting an actor only ever declares its own topology. The planner can also declare the topology of actors before
+ * they are created:
+ * <pre>
+ *     new TopologyPlanner(connection)
+ *          .add("ACTOR_ONE", actorOneConfig)
+ *          .add("ACTOR_TWO", actorTwoConfig)
+ *          .declare();
+ * </pre>
+ * Actors started afterwards find their topology already declared on the connection and skip declaration.
+ */
+public class TopologyPlanner {
+    private static final String DIRECT_EXCHANGE = "direct";
+    private static final String DELAYED_EXCHANGE = "x-delayed-message";
+
+    private final RMQConnection connection;
+    private final Topology topology = new Topology();
+
+    public TopologyPlanner(RMQConnection connection) {
+        this.connection = connection;
+    }
+
+    public TopologyPlanner add(String name, ActorConfig config) {
+        topology.merge(plan(connection, NamingUtils.queueName(config.getPrefix(), name), config));
+        return this;
+    }
+
+    public Topology topology() {
+        return topology;
+    }
+
+    public void declare() throws Exception {
+        connection.declare(topology);
+    }
+
+    /**
+     * Plans the exchanges, queues and bindings needed by a single actor
+     *
+     * @param connection Connection providing queue arguments
+     * @param queueName  Fully qualified queue name of the actor
+     * @param config     Actor config
+     * @return Topology for the actor
+     */
+    public static Topology plan(RMQConnection connection, String queueName, ActorConfig config) {
+        final Topology topology = new Topology();
+        final String exchange = config.getExchange();
+        final String dlx = NamingUtils.getSideline(exchange);
+        if (config.isDelayed() && config.getDelayType() == DelayType.DELAYED) {
+            topology.exchange(exchange, DELAYED_EXCHANGE, exchangeArguments(ImmutableMap.of("x-delayed-type",
+                                                                                           DIRECT_EXCHANGE)));
+        } else {
+            topology.exchange(exchange, DIRECT_EXCHANGE, exchangeArguments(ImmutableMap.of()));
+        }
+        if (config.getDelayType() == DelayType.TTL) {
+            topology.exchange(NamingUtils.getTtl(exchange), DIRECT_EXCHANGE, exchangeArguments(ImmutableMap.of()));
+        }
+        //Streams cannot dead letter, so nothing would ever reach a sideline queue
+        final boolean sidelined = config.getQueueType() != QueueType.STREAM;
+        final String sidelineQueueName = NamingUtils.getSideline(queueName);
+        if (sidelined) {
+            topology.exchange(dlx, DIRECT_EXCHANGE, exchangeArguments(ImmutableMap.of()));
+            topology.queue(sidelineQueueName, connection.rmqOpts(config))
+                    .binding(sidelineQueueName, dlx, queueName);
+        }
+        if (config.isSharded()) {
+            for (int shardId = 0; shardId < config.getShardCount(); shardId++) {
+                final String shardedQueueName = NamingUtils.getShardedQueueName(queueName, shardId);
+                topology.queue(shardedQueueName, connection.rmqOpts(dlx, config))
+                        .binding(shardedQueueName, exchange, shardedQueueName);
+                if (sidelined) {
+                    topology.binding(sidelineQueueName, dlx, shardedQueueName);
+                }
+            }
+        } else {
+            topology.queue(queueName, connection.rmqOpts(dlx, config))
+                    .binding(queueName, exchange, queueName);
+        }
+
+        final DelayBuckets delayBuckets = DelayBuckets.forActor(queueName, config);
+        if (null != delayBuckets) {
+            for (long tier : delayBuckets.getTiers()) {
+                final String bucketQueueName = delayBuckets.bucketQueue(tier);
+                topology.queue(bucketQueueName, ImmutableMap.<String, Object>builder()
+                                .putAll(connection.rmqOpts(exchange, config))
+                                .put("x-message-ttl", tier)
+                                .put("x-dead-letter-routing-key", queueName)
+                                .build())
+                        .binding(bucketQueueName, delayBuckets.getExchange(), bucketQueueName);
+            }
+        } else if (config.getDelayType() == DelayType.TTL) {
+            final String ttlQueueName = NamingUtils.getTtl(queueName);
+            topology.queue(ttlQueueName, connection.rmqOpts(exchange, config))
+                    .binding(ttlQueueName, NamingUtils.getTtl(exchange), queueName);
+        }
+        return topology;
+    }
+
+    private static Map<String, Object> exchangeArguments(Map<String, Object> arguments) {
+        return ImmutableMap.<String, Object>builder()
+                .put("x-ha-policy", "all")
+                .put("ha-mode", "all")
+                .putAll(arguments)
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package io.appform.dropwizard.actors.tracing;
+
+import lombok.Data;
+
+/**
+ * Timings of the handling of a traced message
+ */
+@Data
+public class ConsumerSpan {
+    private final TraceContext context;
+    private long queueWaitMs = -1;
+    private long deserializationNanos;
+    private long handlingNanos;
+}
@@ -0,0 +1,120 @@
+package io.appform.dropwizard.actors.tracing;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace and span ids of a message as per the W3C trace context {@code traceparent} format:
+ * {@code 00-<32 hex trace id>-<16 hex span id>-<2 hex flags>}
+ */
+@Value
+public class TraceContext {
+    private static final String VERSION = "00";
+    private static final String SAMPLED_FLAGS = "01";
+    private static final int TRACEPARENT_LENGTH = 55;
+
+    String traceId;
+    String spanId;
+    String parentSpanId;
+
+    public static TraceContext root() {
+        return new TraceContext(randomHex(2), randomHex(1), null);
+    }
+
+    /**
+     * @return Context of the sampled trace in the header, null if the header is malformed or not sampled
+     */
+    public static TraceContext parse(CharSequence traceparent) {
+        return null == traceparent ? null : parse((Object) traceparent);
+    }
+
+    /**
+     * Parses a header received as raw bytes, as AMQP delivers string headers, without decoding it first
+     */
+    public static TraceContext parse(byte[] traceparent) {
+        return null == traceparent ? null : parse((Object) traceparent);
+    }
+
+    /*
+        Everything is checked in place and ids are only copied out of sampled, well formed headers, so that unsampled
+        traffic does not allocate
+     */
+    private static TraceContext parse(Object traceparent) {
+        if (length(traceparent) != TRACEPARENT_LENGTH
+                || charAt(traceparent, 2) != '-'
+                || charAt(traceparent, 35) != '-'
+                || charAt(traceparent, 52) != '-') {
+            return null;
+        }
+        final int flags = Character.digit(charAt(traceparent, 54), 16);
+        if (flags < 0 || (flags & 1) == 0 || !isHex(traceparent, 53, 55)) {
+            return null;
+        }
+        if (!isHex(traceparent, 3, 35) || !isHex(traceparent, 36, 52)
+                || isZero(traceparent, 3, 35) || isZero(traceparent, 36, 52)) {
+            return null;
+        }
+        return new TraceContext(substring(traceparent, 3, 35), substring(traceparent, 36, 52), null);
+    }
+
+    public TraceContext child() {
+        return new TraceContext(traceId, randomHex(1), spanId);
+    }
+
+    public String traceparent() {
+        return String.join("-", VERSION, traceId, spanId, SAMPLED_FLAGS);
+    }
+
+    private static String randomHex(int longs) {
+        final StringBuilder hex = new StringBuilder(16 * longs);
+        for (int i = 0; i < longs; i++) {
+            long value;
+            do {
+                value = ThreadLocalRandom.current().nextLong();
+            } while (value == 0);
+            final String part = Long.toHexString(value);
+            for (int pad = part.length(); pad < 16; pad++) {
+                hex.append('0');
+            }
+            hex.append(part);
+        }
+        return hex.toString();
+    }
+
+    private static int length(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : ((CharSequence) value).length();
+    }
+
+    private static char charAt(Object value, int index) {
+        return value instanceof byte[]
+               ? (char) (((byte[]) value)[index] & 0xff)
+               : ((CharSequence) value).charAt(index);
+    }
+
+    private static String substring(Object value, int from, int to) {
+        return value instanceof byte[]
+               ? new String((byte[]) value, from, to - from, StandardCharsets.US_ASCII)
+               : ((CharSequence) value).subSequence(from, to).toString();
+    }
+
+    private static boolean isHex(Object value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final char c = charAt(value, i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(Object value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (charAt(value, i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
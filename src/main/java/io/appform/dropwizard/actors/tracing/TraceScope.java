@@ -0,0 +1,55 @@
+package io.appform.dropwizard.actors.tracing;
+
+import org.slf4j.MDC;
+
+/**
+ * Makes a trace context current on the handling thread, both for messages published from the handler and for
+ * logging through the {@code traceId} and {@code spanId} MDC keys. Closing the scope restores the previous context.
+ */
+public final class TraceScope implements AutoCloseable {
+    public static final String TRACE_ID_MDC_KEY = "traceId";
+    public static final String SPAN_ID_MDC_KEY = "spanId";
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    private static final TraceScope NOOP = new TraceScope(null, false);
+
+    private final TraceContext previous;
+    private final boolean active;
+
+    private TraceScope(TraceContext previous, boolean active) {
+        this.previous = previous;
+        this.active = active;
+    }
+
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    public static TraceScope open(TraceContext context) {
+        if (null == context) {
+            return NOOP;
+        }
+        final TraceScope scope = new TraceScope(CURRENT.get(), true);
+        set(context);
+        return scope;
+    }
+
+    @Override
+    public void close() {
+        if (active) {
+            set(previous);
+        }
+    }
+
+    private static void set(TraceContext context) {
+        if (null == context) {
+            CURRENT.remove();
+            MDC.remove(TRACE_ID_MDC_KEY);
+            MDC.remove(SPAN_ID_MDC_KEY);
+            return;
+        }
+        CURRENT.set(context);
+        MDC.put(TRACE_ID_MDC_KEY, context.getTraceId());
+        MDC.put(SPAN_ID_MDC_KEY, context.getSpanId());
+    }
+}
@@ -0,0 +1,68 @@
+package io.appform.dropwizard.actors.tracing;
+
+import com.rabbitmq.client.LongString;
+import io.appform.dropwizard.actors.config.TracingConfig;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which messages are traced and creates their contexts. Nothing is allocated for messages that are not
+ * traced.
+ */
+public class Tracer {
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final Tracer DISABLED = new Tracer(new TracingConfig());
+
+    private final boolean enabled;
+    private final double sampleRate;
+
+    public Tracer(TracingConfig config) {
+        this.enabled = config.isEnabled();
+        this.sampleRate = config.getSampleRate();
+    }
+
+    public static Tracer disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return Context to publish a message with, null if the message is not traced
+     */
+    public TraceContext outgoing() {
+        if (!enabled) {
+            return null;
+        }
+        final TraceContext current = TraceScope.current();
+        if (null != current) {
+            return current.child();
+        }
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        return TraceContext.root();
+    }
+
+    /**
+     * @return Span for handling a message with the given headers, null if the message is not traced
+     */
+    public ConsumerSpan incoming(Map<String, Object> headers) {
+        if (!enabled || null == headers) {
+            return null;
+        }
+        final Object traceparent = headers.get(TRACEPARENT_HEADER);
+        if (null == traceparent) {
+            return null;
+        }
+        final TraceContext parent;
+        if (traceparent instanceof LongString) {
+            parent = TraceContext.parse(((LongString) traceparent).getBytes());
+        } else if (traceparent instanceof CharSequence) {
+            parent = TraceContext.parse((CharSequence) traceparent);
+        } else {
+            parent = null;
+        }
+        return null == parent ? null : new ConsumerSpan(parent.child());
+    }
+}
@@ -39,9 +39,22 @@ public class CommonUtils {
         return Strings.isNullOrEmpty(s);
     }
 
+    /**
+     * @deprecated builds no cache and ignores wrapped causes, use {@link #retriableExceptionClassifier(Set)}
+     */
+    @Deprecated
     public static boolean isRetriable(Set<String> retriableExceptions, Throwable exception) {
         return CommonUtils.isEmpty(retriableExceptions)
                 || (null != exception
                 && retriableExceptions.contains(exception.getClass().getSimpleName()));
     }
+
+    /**
+     * Builds a classifier for the configured retriable exceptions. Everything is retriable if none are configured.
+     */
+    public static ExceptionClassifier retriableExceptionClassifier(Set<String> retriableExceptions) {
+        return CommonUtils.isEmpty(retriableExceptions)
+               ? ExceptionClassifier.all()
+               : ExceptionClassifier.byName(retriableExceptions);
+    }
 }
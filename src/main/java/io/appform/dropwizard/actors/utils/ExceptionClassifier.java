@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.appform.dropwizard.actors.utils;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.ClassUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides whether a throwable belongs to a configured set of exception types. The decision for every exception
+ * class is computed once and cached through a {@link ClassValue}, so classification on the failure path is a
+ * lookup per element of the cause chain.
+ */
+public class ExceptionClassifier {
+    private static final int MAX_CAUSE_DEPTH = 32;
+
+    private static final ExceptionClassifier ALL = new ExceptionClassifier(type -> true);
+    private static final ExceptionClassifier NONE = new ExceptionClassifier(type -> false);
+
+    private final ClassValue<Boolean> decisions;
+
+    private ExceptionClassifier(Predicate<Class<?>> matcher) {
+        this.decisions = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return matcher.test(type);
+            }
+        };
+    }
+
+    /**
+     * Matches every throwable
+     */
+    public static ExceptionClassifier all() {
+        return ALL;
+    }
+
+    /**
+     * Matches no throwable
+     */
+    public static ExceptionClassifier none() {
+        return NONE;
+    }
+
+    /**
+     * Matches exceptions whose simple or fully qualified class name is present in the provided names
+     */
+    public static ExceptionClassifier byName(Collection<String> names) {
+        if (CommonUtils.isEmpty(names)) {
+            return NONE;
+        }
+        final Set<String> nameSet = ImmutableSet.copyOf(names);
+        return new ExceptionClassifier(
+                type -> nameSet.contains(type.getSimpleName()) || nameSet.contains(type.getName()));
+    }
+
+    /**
+     * Matches exceptions that are assignable to any of the provided types
+     */
+    public static ExceptionClassifier byType(Collection<Class<?>> types) {
+        if (CommonUtils.isEmpty(types)) {
+            return NONE;
+        }
+        final Set<Class<?>> typeSet = ImmutableSet.copyOf(types);
+        return new ExceptionClassifier(
+                type -> typeSet.stream().anyMatch(exceptionType -> ClassUtils.isAssignable(type, exceptionType)));
+    }
+
+    /**
+     * Checks the throwable and every throwable in its cause chain against the configured types.
+     *
+     * @param throwable Throwable to classify
+     * @return true if the throwable or any of its causes matches
+     */
+    public boolean matches(Throwable throwable) {
+        Throwable current = throwable;
+        for (int depth = 0; null != current && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (decisions.get(current.getClass())) {
+                return true;
+            }
+            final Throwable cause = current.getCause();
+            if (cause == current) {
+                break;
+            }
+            current = cause;
+        }
+        return false;
+    }
+}
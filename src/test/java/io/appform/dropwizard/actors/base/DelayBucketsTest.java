@@ -0,0 +1,127 @@
+package io.appform.dropwizard.actors.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.DelayBucketsConfig;
+import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.actor.UnmanagedBaseActor;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class DelayBucketsTest {
+
+    @Test
+    public void shouldUsePowersOfTwoUpToMaxDelay() {
+        val buckets = DelayBuckets.forActor("test.ACTOR", config(DelayBucketsConfig.builder()
+                                                                         .minDelay(Duration.seconds(1))
+                                                                         .maxDelay(Duration.seconds(10))
+                                                                         .build()));
+        Assert.assertEquals(Arrays.asList(1000L, 2000L, 4000L, 8000L), buckets.getTiers());
+        Assert.assertEquals("test.exchange_TTL", buckets.getExchange());
+        Assert.assertEquals("test.ACTOR_TTL_4000", buckets.bucketQueue(4000));
+    }
+
+    @Test
+    public void shouldRouteToLongestBucketNotOvershootingTheDelay() {
+        val buckets = DelayBuckets.forActor("test.ACTOR", config(DelayBucketsConfig.builder()
+                                                                         .tiers(Arrays.asList(Duration.seconds(10),
+                                                                                              Duration.seconds(1)))
+                                                                         .build()));
+        Assert.assertEquals(new DelayBuckets.Route("test.ACTOR_TTL_10000", null), buckets.route(25_000));
+        Assert.assertEquals(new DelayBuckets.Route("test.ACTOR_TTL_10000", null), buckets.route(9_950));
+        Assert.assertEquals(new DelayBuckets.Route("test.ACTOR_TTL_1000", null), buckets.route(5_000));
+        Assert.assertEquals(new DelayBuckets.Route("test.ACTOR_TTL_1000", "500"), buckets.route(500));
+        Assert.assertNull(buckets.route(100));
+    }
+
+    @Test
+    public void shouldNotUseBucketsUnlessConfiguredForTtlDelays() {
+        Assert.assertNull(DelayBuckets.forActor("test.ACTOR", config(null)));
+        Assert.assertNull(DelayBuckets.forActor("test.ACTOR", ActorConfig.builder()
+                .exchange("test.exchange")
+                .delayed(true)
+                .delayBuckets(DelayBucketsConfig.builder().build())
+                .build()));
+    }
+
+    @Test
+    public void shouldRejectDelayBucketsForShardedActors() {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .shardCount(2)
+                .concurrency(2)
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .delayBuckets(DelayBucketsConfig.builder().build())
+                .build();
+        Assert.assertFalse(config.isValidDelayBuckets());
+        try {
+            DelayBuckets.forActor("test.ACTOR", config);
+            Assert.fail("Sharded actor should have been rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("test.ACTOR"));
+        }
+    }
+
+    @Test
+    public void shouldNotHoldShortDelaysBehindLongOnes() throws Exception {
+        val connection = InMemoryConnections.start("buckets");
+        val handled = new CopyOnWriteArrayList<Long>();
+        final Map<Long, Long> handledAt = new ConcurrentHashMap<>();
+        val latch = new CountDownLatch(2);
+        val actor = new UnmanagedBaseActor<Long>("BUCKETS", ActorConfig.builder()
+                .exchange("buckets.exchange")
+                .concurrency(1)
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .delayBuckets(DelayBucketsConfig.builder()
+                                      .minDelay(Duration.milliseconds(100))
+                                      .maxDelay(Duration.milliseconds(400))
+                                      .tolerance(Duration.milliseconds(20))
+                                      .build())
+                .build(), connection, new ObjectMapper(), new RetryStrategyFactory(),
+                                                 new ExceptionHandlingFactory(), Long.class,
+                                                 (message, metadata) -> {
+                                                     handled.add(message);
+                                                     handledAt.put(message, System.currentTimeMillis());
+                                                     latch.countDown();
+                                                     return true;
+                                                 },
+                                                 (message, metadata) -> true,
+                                                 t -> false);
+        try {
+            actor.start();
+            val start = System.currentTimeMillis();
+            actor.publishWithDelay(1000L, 1000);
+            actor.publishWithDelay(150L, 150);
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Arrays.asList(150L, 1000L), handled);
+            Assert.assertTrue(handledAt.get(150L) - start < 700);
+            Assert.assertTrue(handledAt.get(1000L) - start >= 980);
+        } finally {
+            actor.stop();
+            connection.stop();
+        }
+    }
+
+    private static ActorConfig config(DelayBucketsConfig delayBucketsConfig) {
+        return ActorConfig.builder()
+                .exchange("test.exchange")
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .delayBuckets(delayBucketsConfig)
+                .build();
+    }
+}
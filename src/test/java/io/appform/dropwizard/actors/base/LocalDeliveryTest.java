@@ -0,0 +1,136 @@
+package io.appform.dropwizard.actors.base;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.LocalDeliveryConfig;
+import io.appform.dropwizard.actors.actor.UnmanagedBaseActor;
+import io.appform.dropwizard.actors.base.utils.NamingUtils;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalDeliveryTest {
+    private static final String QUEUE_NAME = "rabbitmq.actors.LOCAL";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger handled = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RMQConnection connection;
+
+    @Before
+    public void setup() throws Exception {
+        connection = InMemoryConnections.start("local");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        connection.stop();
+    }
+
+    @Test
+    public void shouldHandleMessagesWithoutBroker() throws Exception {
+        val actor = actor(1024, false);
+        actor.start();
+        for (int i = 0; i < 100; i++) {
+            actor.publish(i);
+        }
+        actor.stop();
+        Assert.assertEquals(100, handled.get());
+        Assert.assertEquals(100, meter("local.delivered"));
+        Assert.assertEquals(0, meter("local.fallback"));
+        Assert.assertEquals(0, connection.metrics().timer(metric("publish")).getCount());
+    }
+
+    @Test
+    public void shouldPublishToBrokerWhenSaturated() throws Exception {
+        val actor = actor(1, true);
+        actor.start();
+        for (int i = 0; i < 10; i++) {
+            actor.publish(i);
+        }
+        Assert.assertTrue(meter("local.delivered") <= 2);
+        Assert.assertEquals(10, meter("local.delivered") + meter("local.fallback"));
+        Assert.assertEquals(meter("local.fallback"), connection.metrics().timer(metric("publish")).getCount());
+        release.countDown();
+        actor.stop();
+    }
+
+    @Test
+    public void shouldPublishToBrokerWhenConsumerIsStopped() throws Exception {
+        val actor = actor(1024, false);
+        actor.getPublishActor().start();
+        actor.publish(1);
+        Assert.assertEquals(0, meter("local.delivered"));
+        Assert.assertEquals(1, meter("local.fallback"));
+        Assert.assertEquals(1, InMemoryBroker.instance().messageCount(QUEUE_NAME));
+        actor.getPublishActor().stop();
+    }
+
+    @Test
+    public void shouldShareConcurrencyWithBrokerDeliveries() throws Exception {
+        val actor = actor(1, true);
+        actor.start();
+        for (int i = 0; i < 5; i++) {
+            actor.publish(i);
+        }
+        Assert.assertTrue(meter("local.fallback") > 0);
+        Thread.sleep(200);
+        release.countDown();
+        val deadline = System.currentTimeMillis() + 5_000;
+        while (handled.get() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        actor.stop();
+        Assert.assertEquals(5, handled.get());
+        Assert.assertEquals(1, maxActive.get());
+    }
+
+    private UnmanagedBaseActor<Integer> actor(int queueSize, boolean blocking) {
+        val config = ActorConfig.builder()
+                .exchange("local.exchange")
+                .concurrency(1)
+                .localDelivery(LocalDeliveryConfig.builder()
+                                       .queueSize(queueSize)
+                                       .build())
+                .build();
+        return new UnmanagedBaseActor<>("LOCAL", config, connection, mapper, new RetryStrategyFactory(),
+                                        new ExceptionHandlingFactory(), Integer.class,
+                                        (message, metadata) -> {
+                                            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                                            try {
+                                                if (blocking) {
+                                                    release.await(5, TimeUnit.SECONDS);
+                                                }
+                                                handled.incrementAndGet();
+                                                return true;
+                                            } finally {
+                                                active.decrementAndGet();
+                                            }
+                                        },
+                                        (message, metadata) -> true,
+                                        t -> false);
+    }
+
+    private long meter(String name) {
+        return connection.metrics().meter(metric(name)).getCount();
+    }
+
+    private static String metric(String name) {
+        return MetricRegistry.name("rmqactor", NamingUtils.sanitizeMetricName(QUEUE_NAME), name);
+    }
+}
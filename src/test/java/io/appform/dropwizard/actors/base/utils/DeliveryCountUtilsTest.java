@@ -0,0 +1,46 @@
+package io.appform.dropwizard.actors.base.utils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Envelope;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class DeliveryCountUtilsTest {
+
+    @Test
+    public void shouldUseRedeliveredFlagWithoutHeaders() {
+        Assert.assertEquals(1, DeliveryCountUtils.deliveryCount(envelope(false), properties(null)));
+        Assert.assertEquals(2, DeliveryCountUtils.deliveryCount(envelope(true), properties(null)));
+    }
+
+    @Test
+    public void shouldUseQuorumDeliveryCount() {
+        Assert.assertEquals(5, DeliveryCountUtils.deliveryCount(envelope(true),
+                properties(Collections.singletonMap("x-delivery-count", 4L))));
+    }
+
+    @Test
+    public void shouldCountRejectionsButNotExpiries() {
+        val deaths = ImmutableList.of(
+                ImmutableMap.of("reason", "rejected", "count", 3L, "queue", "test.queue"),
+                ImmutableMap.of("reason", "expired", "count", 7L, "queue", "test.queue_TTL"));
+        Assert.assertEquals(4, DeliveryCountUtils.deliveryCount(envelope(false),
+                properties(Collections.singletonMap("x-death", deaths))));
+    }
+
+    private static Envelope envelope(boolean redelivered) {
+        return new Envelope(1, redelivered, "test.exchange", "test.queue");
+    }
+
+    private static AMQP.BasicProperties properties(Map<String, Object> headers) {
+        return new AMQP.BasicProperties.Builder()
+                .headers(headers)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package io.appform.dropwizard.actors.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.RabbitmqActorBundle;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.configuration.ConfigurationValidationException;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import lombok.val;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RabbitmqBenchmarkCommandTest {
+
+    public static class BenchConfiguration extends Configuration {
+        private final RMQConfig rmq = RMQConfig.builder()
+                .threadPoolSize(1)
+                .build();
+    }
+
+    @Test
+    public void shouldReportThroughputAndLatencyAgainstInMemoryBroker() throws Exception {
+        InMemoryBroker.instance().reset();
+        val command = command();
+        Assert.assertEquals(BenchConfiguration.class, command.getConfigurationClass());
+
+        val reportFile = File.createTempFile("rmq-bench", ".json");
+        reportFile.deleteOnExit();
+        val arguments = arguments(reportFile);
+        arguments.put("shards", 2);
+        arguments.put("concurrency", 2);
+        command.run(bootstrap(), new Namespace(arguments), new BenchConfiguration());
+
+        val report = new ObjectMapper().readValue(reportFile, BenchmarkReport.class);
+        Assert.assertEquals("in-memory", report.getBrokers());
+        Assert.assertEquals(2, report.getShardCount());
+        Assert.assertTrue(report.getPublished() > 0);
+        Assert.assertEquals(report.getPublished(), report.getConsumed());
+        Assert.assertTrue(report.getLatencyCount() > 0);
+        Assert.assertTrue(report.getLatencyP99Micros() >= report.getLatencyP50Micros());
+        Assert.assertTrue(InMemoryBroker.instance().queueNames().stream().noneMatch(name -> name.contains("rmqbench")));
+        Assert.assertTrue(InMemoryBroker.instance().exchangeNames().stream()
+                                  .noneMatch(name -> name.startsWith("rmqbench")));
+    }
+
+    @Test(expected = ConfigurationValidationException.class)
+    public void shouldRejectInvalidActorConfig() throws Exception {
+        val reportFile = File.createTempFile("rmq-bench", ".json");
+        reportFile.deleteOnExit();
+        val arguments = arguments(reportFile);
+        arguments.put("shards", 2);
+        arguments.put("concurrency", 3);
+        command().run(bootstrap(), new Namespace(arguments), new BenchConfiguration());
+    }
+
+    private static RabbitmqBenchmarkCommand<BenchConfiguration> command() {
+        val bundle = new RabbitmqActorBundle<BenchConfiguration>() {
+            @Override
+            protected TtlConfig ttlConfig() {
+                return null;
+            }
+
+            @Override
+            protected RMQConfig getConfig(BenchConfiguration configuration) {
+                return configuration.rmq;
+            }
+        };
+        return new RabbitmqBenchmarkCommand<>(bundle, configuration -> configuration.rmq);
+    }
+
+    private static Bootstrap<BenchConfiguration> bootstrap() {
+        return new Bootstrap<>(new Application<BenchConfiguration>() {
+            @Override
+            public void run(BenchConfiguration configuration, Environment environment) {
+                //Nothing to run
+            }
+        });
+    }
+
+    private static Map<String, Object> arguments(File reportFile) {
+        val arguments = new HashMap<String, Object>();
+        arguments.put("actors", 2);
+        arguments.put("publishers", 1);
+        arguments.put("rate", 500);
+        arguments.put("warmup", 0);
+        arguments.put("duration", 1);
+        arguments.put("payloadSize", 64);
+        arguments.put("inMemory", true);
+        arguments.put("report", reportFile.getAbsolutePath());
+        return arguments;
+    }
+}
@@ -0,0 +1,38 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import io.appform.dropwizard.actors.config.RecoveryConfig;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BackoffRecoveryDelayHandlerTest {
+
+    @Test
+    public void shouldBackOffExponentiallyUpToMaxDelay() {
+        val handler = new BackoffRecoveryDelayHandler(RecoveryConfig.builder()
+                .initialDelay(Duration.milliseconds(100))
+                .maxDelay(Duration.seconds(1))
+                .multiplier(2.0)
+                .jitter(0)
+                .build());
+        Assert.assertEquals(100, handler.getDelay(0));
+        Assert.assertEquals(200, handler.getDelay(1));
+        Assert.assertEquals(800, handler.getDelay(3));
+        Assert.assertEquals(1000, handler.getDelay(4));
+        Assert.assertEquals(1000, handler.getDelay(100));
+    }
+
+    @Test
+    public void shouldApplyJitterWithinBounds() {
+        val handler = new BackoffRecoveryDelayHandler(RecoveryConfig.builder()
+                .initialDelay(Duration.milliseconds(1000))
+                .maxDelay(Duration.seconds(10))
+                .jitter(0.5)
+                .build());
+        for (int i = 0; i < 100; i++) {
+            val delay = handler.getDelay(0);
+            Assert.assertTrue(delay >= 500 && delay <= 1000);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.google.common.collect.ImmutableList;
+import com.rabbitmq.client.Address;
+import io.appform.dropwizard.actors.config.Broker;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+public class BrokerAddressResolverTest {
+
+    private static final List<Broker> BROKERS = ImmutableList.of(new Broker("node-a", 5672),
+                                                                 new Broker("node-b", 5672),
+                                                                 new Broker("node-c", 5672, 0));
+
+    @Test
+    public void shouldKeepConfiguredOrder() {
+        val addresses = new BrokerAddressResolver(BROKERS, AddressResolution.CONFIGURED, "test", 0).getAddresses();
+        Assert.assertEquals("node-a", addresses.get(0).getHost());
+        Assert.assertEquals(addresses, new BrokerAddressResolver(BROKERS, AddressResolution.CONFIGURED, "test", 0)
+                .maybeShuffle(addresses));
+    }
+
+    @Test
+    public void shouldSpreadPooledConnectionsInRoundRobin() {
+        val firstNodes = new HashSet<String>();
+        for (int i = 0; i < BROKERS.size(); i++) {
+            val addresses = new BrokerAddressResolver(BROKERS, AddressResolution.ROUND_ROBIN, "test", i)
+                    .getAddresses();
+            Assert.assertEquals(BROKERS.size(), addresses.size());
+            firstNodes.add(addresses.get(0).getHost());
+        }
+        Assert.assertEquals(BROKERS.size(), firstNodes.size());
+    }
+
+    @Test
+    public void shouldUseZeroWeightBrokersOnlyForFailover() {
+        val resolver = new BrokerAddressResolver(BROKERS, AddressResolution.WEIGHTED, "test", 0);
+        for (int i = 0; i < 100; i++) {
+            List<Address> addresses = resolver.getAddresses();
+            Assert.assertEquals(3, addresses.size());
+            Assert.assertEquals("node-c", addresses.get(2).getHost());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.rabbitmq.client.Channel;
+import io.appform.dropwizard.actors.common.RabbitmqActorException;
+import io.appform.dropwizard.actors.config.ChannelPoolConfig;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChannelPoolTest {
+
+    private final AtomicInteger createdChannels = new AtomicInteger();
+
+    @Test
+    public void shouldReuseReleasedChannel() throws Exception {
+        val pool = pool(2);
+        val channel = pool.borrow();
+        pool.release(channel);
+        Assert.assertSame(channel, pool.borrow());
+        Assert.assertEquals(1, createdChannels.get());
+        Assert.assertEquals(1, pool.openChannels());
+        Assert.assertEquals(1, pool.borrowedChannels());
+    }
+
+    @Test
+    public void shouldReplaceClosedChannelOnBorrow() throws Exception {
+        val pool = pool(2);
+        val channel = pool.borrow();
+        pool.release(channel);
+        when(channel.isOpen()).thenReturn(false);
+        Assert.assertNotEquals(channel, pool.borrow());
+        Assert.assertEquals(2, createdChannels.get());
+        Assert.assertEquals(1, pool.openChannels());
+    }
+
+    @Test(expected = RabbitmqActorException.class)
+    public void shouldFailWhenPoolIsExhausted() throws Exception {
+        val pool = pool(1);
+        pool.borrow();
+        pool.borrow();
+    }
+
+    private ChannelPool pool(int maxSize) {
+        return new ChannelPool("test", ChannelPoolConfig.builder()
+                .maxSize(maxSize)
+                .borrowTimeout(Duration.milliseconds(10))
+                .build(), () -> {
+            createdChannels.incrementAndGet();
+            val channel = mock(Channel.class);
+            when(channel.isOpen()).thenReturn(true);
+            return channel;
+        });
+    }
+}
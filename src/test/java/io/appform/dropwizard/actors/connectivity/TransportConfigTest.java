@@ -0,0 +1,46 @@
+package io.appform.dropwizard.actors.connectivity;
+
+import com.rabbitmq.client.ConnectionFactory;
+import io.appform.dropwizard.actors.config.TransportConfig;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.Socket;
+
+public class TransportConfigTest {
+
+    @Test
+    public void shouldConfigureBlockingTransport() throws Exception {
+        val factory = new ConnectionFactory();
+        RMQConnection.configureTransport(factory, TransportConfig.builder()
+                .requestedHeartbeatSeconds(30)
+                .requestedFrameMax(131072)
+                .tcpNoDelay(false)
+                .build());
+        Assert.assertEquals(30, factory.getRequestedHeartbeat());
+        Assert.assertEquals(131072, factory.getRequestedFrameMax());
+        Assert.assertEquals(2047, factory.getRequestedChannelMax());
+        try (val socket = new Socket()) {
+            factory.getSocketConfigurator().configure(socket);
+            Assert.assertFalse(socket.getTcpNoDelay());
+        }
+    }
+
+    @Test
+    public void shouldShareNioExecutorAcrossFactories() {
+        val transportConfig = TransportConfig.builder()
+                .nio(true)
+                .nioThreads(2)
+                .nioWriteQueueCapacity(20000)
+                .build();
+        val first = new ConnectionFactory();
+        val second = new ConnectionFactory();
+        RMQConnection.configureTransport(first, transportConfig);
+        RMQConnection.configureTransport(second, transportConfig);
+        Assert.assertEquals(2, first.getNioParams().getNbIoThreads());
+        Assert.assertEquals(20000, first.getNioParams().getWriteQueueCapacity());
+        Assert.assertNotNull(first.getNioParams().getNioExecutor());
+        Assert.assertSame(first.getNioParams().getNioExecutor(), second.getNioParams().getNioExecutor());
+    }
+}
@@ -2,102 +2,54 @@ package io.appform.dropwizard.actors.connectivity.actor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
-import io.appform.dropwizard.actors.TtlConfig;
 import io.appform.dropwizard.actors.actor.ActorConfig;
 import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
 import io.appform.dropwizard.actors.actor.MessageMetadata;
 import io.appform.dropwizard.actors.base.UnmanagedConsumer;
 import io.appform.dropwizard.actors.base.UnmanagedPublisher;
-import io.appform.dropwizard.actors.config.Broker;
-import io.appform.dropwizard.actors.config.RMQConfig;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
 import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
 import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
 import io.appform.dropwizard.actors.retry.config.CountLimitedFixedWaitRetryConfig;
-import io.appform.testcontainers.rabbitmq.RabbitMQStatusCheck;
-import io.appform.testcontainers.rabbitmq.config.RabbitMQContainerConfiguration;
-import io.dropwizard.testing.junit5.DropwizardAppExtension;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
+import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
-import org.testcontainers.containers.GenericContainer;
 
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class ExpiryMessagesTest {
 
-    public static final DropwizardAppExtension<RabbitMQBundleTestAppConfiguration> app =
-            new DropwizardAppExtension<>(RabbitMQBundleTestApplication.class);
-    private static final int RABBITMQ_MANAGEMENT_PORT = 15672;
-    private static final String RABBITMQ_DOCKER_IMAGE = "rabbitmq:3.8.34-management";
-    private static final String RABBITMQ_USERNAME = "guest";
-    private static final String RABBITMQ_PASSWORD = "guest";
     private static RMQConnection connection;
+    private final List<UnmanagedConsumer<?>> consumers = new ArrayList<>();
 
     @BeforeClass
     @SneakyThrows
     public static void beforeMethod() {
-        System.setProperty("dw." + "server.applicationConnectors[0].port", "0");
-        System.setProperty("dw." + "server.adminConnectors[0].port", "0");
-
-        app.before();
-
-        val rabbitMQContainer = rabbitMQContainer();
-        val config = getRMQConfig(rabbitMQContainer);
-
-        connection = new RMQConnection("test-conn", config,
-                Executors.newSingleThreadExecutor(), app.getEnvironment(), TtlConfig.builder().build());
-        connection.start();
-
+        connection = InMemoryConnections.start("test-conn");
     }
 
     @AfterClass
     @SneakyThrows
     public static void afterMethod() {
-        app.after();
+        connection.stop();
     }
 
-    private static GenericContainer rabbitMQContainer() {
-        val containerConfiguration = new RabbitMQContainerConfiguration();
-        log.info("Starting rabbitMQ server. Docker image: {}", containerConfiguration.getDockerImage());
-
-        GenericContainer rabbitMQ =
-                new GenericContainer(RABBITMQ_DOCKER_IMAGE)
-                        .withEnv("RABBITMQ_DEFAULT_VHOST", containerConfiguration.getVhost())
-                        .withEnv("RABBITMQ_DEFAULT_USER", RABBITMQ_USERNAME)
-                        .withEnv("RABBITMQ_DEFAULT_PASS", RABBITMQ_PASSWORD)
-                        .withExposedPorts(containerConfiguration.getPort(), RABBITMQ_MANAGEMENT_PORT)
-                        .waitingFor(new RabbitMQStatusCheck(containerConfiguration))
-                        .withStartupTimeout(Duration.ofSeconds(45));
-
-        rabbitMQ = rabbitMQ.withStartupCheckStrategy(new IsRunningStartupCheckStrategyWithDelay());
-        rabbitMQ.start();
-        log.info("Started RabbitMQ server");
-        return rabbitMQ;
-    }
-
-    private static RMQConfig getRMQConfig(GenericContainer rabbitmqContainer) {
-        val rmqConfig = new RMQConfig();
-        val mappedPort = rabbitmqContainer.getMappedPort(5672);
-        val host = rabbitmqContainer.getContainerIpAddress();
-        val brokers = new ArrayList<Broker>();
-        brokers.add(new Broker(host, mappedPort));
-        rmqConfig.setBrokers(brokers);
-        rmqConfig.setUserName(RABBITMQ_USERNAME);
-        rmqConfig.setPassword(RABBITMQ_PASSWORD);
-        rmqConfig.setVirtualHost("/");
-        log.info("RabbitMQ connection details: {}", rmqConfig);
-        return rmqConfig;
+    @After
+    public void stopConsumers() throws Exception {
+        for (UnmanagedConsumer<?> consumer : consumers) {
+            consumer.stop();
+        }
     }
 
     /**
@@ -127,6 +79,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, this::handleForNoExpectedMsg, handleExpiredMessage(expiredDeliveryCount), (x) -> true);
+        consumers.add(consumer);
         consumer.start();
 
         Thread.sleep(1000);
@@ -167,6 +120,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, this::handleForNoExpectedMsg, handleExpectedMessageForReDelivery(expiredDeliveryCount), (x) -> true);
+        consumers.add(consumer);
         consumer.start();
 
         Thread.sleep(1000);
@@ -201,6 +155,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, handleDelayedMessageConsumption(normalDeliveryCount), this::handleForNoExpectedMsg, (x) -> true);
+        consumers.add(consumer);
         consumer.start();
 
         Thread.sleep(500);
@@ -233,6 +188,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, handleExpectedMessage(1500, normalDeliveryCount), this::handleForNoExpectedMsg, (x) -> true);
+        consumers.add(consumer);
         consumer.start();
 
         Thread.sleep(500);
@@ -263,6 +219,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, handleExpectedMessage(1000, normalDeliveryCount), this::handleForNoExpectedMsg, (x) -> true);
+        consumers.add(consumer);
         consumer.start();
 
         publisher.publishWithExpiry(message, 1500);
@@ -296,8 +253,9 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, handleExpectedMessageWithDelay(1000, normalDeliveryCount), this::handleForNoExpectedMsg, (x) -> true);
+        consumers.add(consumer);
         consumer.start();
-
+        Thread.sleep(500);
 
         Assertions.assertEquals(1, normalDeliveryCount.get());
     }
@@ -326,6 +284,7 @@ public class ExpiryMessagesTest {
         val consumer = new UnmanagedConsumer<>(
                 queueName, actorConfig, connection, objectMapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
                 Map.class, handleExpectedMessageWithDelay(0, normalDeliveryCount), this::handleForNoExpectedMsg, (x) -> true);
+        consumers.add(consumer);
         consumer.start();
         Thread.sleep(500);
 
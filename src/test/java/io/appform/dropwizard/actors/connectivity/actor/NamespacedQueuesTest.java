@@ -2,95 +2,68 @@ package io.appform.dropwizard.actors.connectivity.actor;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.appform.dropwizard.actors.ConnectionRegistry;
 import io.appform.dropwizard.actors.TtlConfig;
 import io.appform.dropwizard.actors.actor.ActorConfig;
 import io.appform.dropwizard.actors.base.UnmanagedPublisher;
 import io.appform.dropwizard.actors.base.utils.NamingUtils;
-import io.appform.dropwizard.actors.config.Broker;
 import io.appform.dropwizard.actors.config.RMQConfig;
 import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
 import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
 import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
 import io.appform.dropwizard.actors.utils.ActorType;
 import io.appform.dropwizard.actors.utils.AsyncOperationHelper;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
 import io.appform.dropwizard.actors.utils.SidelineTestActor;
 import io.appform.dropwizard.actors.utils.TestMessage;
-import io.appform.testcontainers.rabbitmq.RabbitMQStatusCheck;
-import io.appform.testcontainers.rabbitmq.config.RabbitMQContainerConfiguration;
 import io.dropwizard.Configuration;
 import io.dropwizard.jackson.Jackson;
 import io.dropwizard.setup.Environment;
-import io.dropwizard.testing.junit5.DropwizardAppExtension;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import okhttp3.*;
-import org.junit.*;
-import org.testcontainers.containers.GenericContainer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
 
 import javax.validation.Validation;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 
 @Slf4j
 public class NamespacedQueuesTest {
 
-    private static final int RABBITMQ_MANAGEMENT_PORT = 15672;
-    private static final String RABBITMQ_DOCKER_IMAGE = "rabbitmq:3.8.34-management";
-    private static final String RABBITMQ_USERNAME = "guest";
-    private static final String RABBITMQ_PASSWORD = "guest";
     private static final String NAMESPACE_VALUE = "namespace1";
 
-    public static final DropwizardAppExtension<RabbitMQBundleTestAppConfiguration> app =
-            new DropwizardAppExtension<>(RabbitMQBundleTestApplication.class);
-
-    @BeforeClass
-    @SneakyThrows
-    public static void setupClass() {
-        app.before();
-    }
-
-    @AfterClass
-    @SneakyThrows
-    public static void cleanupClass() {
-        app.after();
-    }
+    private final RMQConfig config = InMemoryConnections.config();
+    private RMQConnection connection;
 
     @Before
     public void setup() {
+        InMemoryBroker.instance().reset();
         System.setProperty(NamingUtils.NAMESPACE_PROPERTY_NAME, NAMESPACE_VALUE);
     }
 
     @After
-    public void cleanup() {
+    public void cleanup() throws Exception {
         System.setProperty(NamingUtils.NAMESPACE_PROPERTY_NAME, "");
+        if (null != connection) {
+            connection.stop();
+        }
     }
-    private RMQConfig config;
 
     /**
      * This test does the following:
      * - Sets the FEATURE_ENV_NAME system property
-     * - Launches a RabbitMQ instance in a Docker container
-     * - Launches a dummy Dropwizard app for fetching its Environment
-     * - Calls /api/queues on the RabbitMQ instance and verifies the names
+     * - Starts a publisher against the in memory broker
+     * - Verifies the names of all queues declared on the broker
      */
     @Test
     public void testQueuesAreNamespacedWhenFeatureEnvIsSet() throws Exception {
-        GenericContainer rabbitMQContainer = rabbitMQContainer();
-        val mappedManagementPort = rabbitMQContainer.getMappedPort(RABBITMQ_MANAGEMENT_PORT);
-        config = getRMQConfig(rabbitMQContainer);
-
-        RMQConnection connection = new RMQConnection("test-conn", config,
-                Executors.newSingleThreadExecutor(), app.getEnvironment(), TtlConfig.builder().build());
-        connection.start();
+        connection = startConnection(TtlConfig.builder().build());
 
         ActorConfig actorConfig = new ActorConfig();
         actorConfig.setExchange("test-exchange-1");
@@ -98,30 +71,17 @@ public class NamespacedQueuesTest {
                 "publisher-1", actorConfig, connection, null);
         publisher.start();
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        Response response = sendRequest("/api/queues", mappedManagementPort);
-        if (response != null) {
-            JsonNode jsonNode = objectMapper.readTree(response.body().string());
-            if (jsonNode.isArray()) {
-                for (JsonNode json : jsonNode) {
-                    String queueName = json.get("name").asText();
-                    Assert.assertTrue(queueName.contains(NAMESPACE_VALUE));
-                }
-            }
-            response.close();
+        val queueNames = InMemoryBroker.instance().queueNames();
+        Assert.assertFalse(queueNames.isEmpty());
+        for (String queueName : queueNames) {
+            Assert.assertTrue(queueName.contains(NAMESPACE_VALUE));
         }
     }
 
     @Test
     public void testQueuesAreNotNamespacedWhenFeatureEnvNotSet() throws Exception {
         System.setProperty(NamingUtils.NAMESPACE_PROPERTY_NAME, "");
-        GenericContainer rabbitMQContainer = rabbitMQContainer();
-        val mappedManagementPort = rabbitMQContainer.getMappedPort(RABBITMQ_MANAGEMENT_PORT);
-        config = getRMQConfig(rabbitMQContainer);
-
-        RMQConnection connection = new RMQConnection("test-conn", config,
-                Executors.newSingleThreadExecutor(), app.getEnvironment(), TtlConfig.builder().build());
-        connection.start();
+        connection = startConnection(TtlConfig.builder().build());
 
         ActorConfig actorConfig = new ActorConfig();
         actorConfig.setExchange("test-exchange-1");
@@ -129,33 +89,20 @@ public class NamespacedQueuesTest {
                 "publisher-1", actorConfig, connection, null);
         publisher.start();
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        Response response = sendRequest("/api/queues", mappedManagementPort);
-        if (response != null) {
-            JsonNode jsonNode = objectMapper.readTree(response.body().string());
-            if (jsonNode.isArray()) {
-                for (JsonNode json : jsonNode) {
-                    String queueName = json.get("name").asText();
-                    Assert.assertFalse(queueName.contains(NAMESPACE_VALUE));
-                }
-            }
-            response.close();
+        val queueNames = InMemoryBroker.instance().queueNames();
+        Assert.assertFalse(queueNames.isEmpty());
+        for (String queueName : queueNames) {
+            Assert.assertFalse(queueName.contains(NAMESPACE_VALUE));
         }
     }
 
     @Test
     public void testQueuesAreRemovedAfterTtl() throws Exception {
-        GenericContainer rabbitMQContainer = rabbitMQContainer();
-        val mappedManagementPort = rabbitMQContainer.getMappedPort(RABBITMQ_MANAGEMENT_PORT);
-        config = getRMQConfig(rabbitMQContainer);
-
         TtlConfig ttlConfig = TtlConfig.builder()
                 .ttlEnabled(true)
-                .ttl(Duration.ofSeconds(5))
+                .ttl(Duration.ofSeconds(1))
                 .build();
-        RMQConnection connection = new RMQConnection("test-conn", config,
-                Executors.newSingleThreadExecutor(), app.getEnvironment(), ttlConfig);
-        connection.start();
+        connection = startConnection(ttlConfig);
 
         ActorConfig actorConfig = new ActorConfig();
         actorConfig.setExchange("test-exchange-1");
@@ -163,26 +110,12 @@ public class NamespacedQueuesTest {
                 "publisher-1", actorConfig, connection, null);
         publisher.start();
 
-        Thread.sleep(10000);
-        Response response = sendRequest("/api/queues", mappedManagementPort);
-        if (response != null) {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(response.body().string());
-            Assert.assertTrue(jsonNode.size() == 0);
-            response.close();
-        }
+        Assert.assertFalse(InMemoryBroker.instance().queueNames().isEmpty());
+        await(() -> InMemoryBroker.instance().queueNames().isEmpty());
     }
 
     @Test
     public void testQueuesSidelineForFailedMessages() throws Exception {
-        GenericContainer rabbitMQContainer = rabbitMQContainer();
-        val mappedManagementPort = rabbitMQContainer.getMappedPort(RABBITMQ_MANAGEMENT_PORT);
-        config = getRMQConfig(rabbitMQContainer);
-
-        RMQConnection connection = new RMQConnection("test-conn", config,
-                Executors.newSingleThreadExecutor(), app.getEnvironment(), null);
-        connection.start();
-
         ActorConfig actorConfig = AsyncOperationHelper.buildActorConfig();
         val objectMapper = Jackson.newObjectMapper();
         Environment environment = new Environment("testing",
@@ -198,100 +131,47 @@ public class NamespacedQueuesTest {
         SidelineTestActor actor = new SidelineTestActor(actorConfig, registry, objectMapper,
                 new RetryStrategyFactory(), new ExceptionHandlingFactory());
         actor.start();
-        TestMessage message = TestMessage.builder()
-                .actorType(ActorType.ALWAYS_FAIL_ACTOR)
-                .name("test_message")
-                .build();
-        actor.publish(message);
-
-        Thread.sleep(10000);
-        String sidelineQueue = NAMESPACE_VALUE + ".test.ALWAYS_FAIL_ACTOR_SIDELINE";
-        String endpoint = "/api/queues/%2F/" + sidelineQueue + "/get";
-
-        Response response = sendPostRequest(endpoint, objectMapper.writeValueAsString(getBody()), mappedManagementPort);
-        Assert.assertNotNull(response);
-
-        JsonNode jsonNode = objectMapper.readTree(response.body().string());
-        Assert.assertEquals( 1, jsonNode.size());
-        JsonNode messageResponse = jsonNode.get(0);
-        Assert.assertEquals("test.exchange_SIDELINE", messageResponse.get("exchange").asText());
-        TestMessage actualMessage = objectMapper.readValue(messageResponse.get("payload").asText(), TestMessage.class);
-        Assert.assertEquals(ActorType.ALWAYS_FAIL_ACTOR, actualMessage.getActorType());
-        Assert.assertEquals("test_message", actualMessage.getName());
-        response.close();
-    }
-
-    private RMQFetchMessages getBody() {
-        return new RMQFetchMessages();
-    }
-
-    private Response sendRequest(String endpoint, int mappedManagementPort) {
-        OkHttpClient client = new OkHttpClient();
-        String credential = Credentials.basic(config.getUserName(), config.getPassword());
-        Request request = new Request.Builder()
-                .url("http://" + config.getBrokers().get(0).getHost() + ":" + mappedManagementPort + endpoint)
-                .header("Accept", "application/json")
-                .header("Authorization", credential)
-                .build();
-
         try {
-            return client.newCall(request).execute();
-        } catch (IOException e) {
-            log.error("Error while making API call to RabbitMQ", e);
+            TestMessage message = TestMessage.builder()
+                    .actorType(ActorType.ALWAYS_FAIL_ACTOR)
+                    .name("test_message")
+                    .build();
+            actor.publish(message);
+
+            String sidelineQueue = NAMESPACE_VALUE + ".test.ALWAYS_FAIL_ACTOR_SIDELINE";
+            await(() -> messageCount(sidelineQueue) == 1);
+
+            val response = registry.createOrGet("sideline-check").withChannel(
+                    channel -> channel.basicGet(sidelineQueue, true));
+            Assert.assertNotNull(response);
+            Assert.assertEquals("test.exchange_SIDELINE", response.getEnvelope().getExchange());
+            TestMessage actualMessage = objectMapper.readValue(response.getBody(), TestMessage.class);
+            Assert.assertEquals(ActorType.ALWAYS_FAIL_ACTOR, actualMessage.getActorType());
+            Assert.assertEquals("test_message", actualMessage.getName());
+        } finally {
+            actor.stop();
+            registry.stop();
         }
-        return null;
     }
 
-    private Response sendPostRequest(String endpoint, String body, int mappedManagementPort) {
-        OkHttpClient client = new OkHttpClient();
-        String credential = Credentials.basic(config.getUserName(), config.getPassword());
-        Request request = new Request.Builder()
-                .url("http://" + config.getBrokers().get(0).getHost() + ":" + mappedManagementPort + endpoint)
-                .header("Accept", "application/json")
-                .header("Authorization", credential)
-                .post(RequestBody.create(body.getBytes(StandardCharsets.UTF_8)))
-                .build();
+    private RMQConnection startConnection(TtlConfig ttlConfig) throws Exception {
+        return InMemoryConnections.start("test-conn", ttlConfig);
+    }
 
+    private static long messageCount(String queueName) {
         try {
-            return client.newCall(request).execute();
-        } catch (IOException e) {
-            log.error("Error while making API call to RabbitMQ", e);
+            return InMemoryBroker.instance().messageCount(queueName);
+        } catch (Exception e) {
+            return -1;
         }
-        return null;
     }
 
-    private static GenericContainer rabbitMQContainer() {
-        RabbitMQContainerConfiguration containerConfiguration = new RabbitMQContainerConfiguration();
-        containerConfiguration.setDockerImage(RABBITMQ_DOCKER_IMAGE);
-        log.info("Starting rabbitMQ server. Docker image: {}", containerConfiguration.getDockerImage());
-
-        GenericContainer rabbitMQ =
-                new GenericContainer(RABBITMQ_DOCKER_IMAGE)
-                        .withEnv("RABBITMQ_DEFAULT_VHOST", containerConfiguration.getVhost())
-                        .withEnv("RABBITMQ_DEFAULT_USER", RABBITMQ_USERNAME)
-                        .withEnv("RABBITMQ_DEFAULT_PASS", RABBITMQ_PASSWORD)
-                        .withExposedPorts(containerConfiguration.getPort(), RABBITMQ_MANAGEMENT_PORT)
-                        .waitingFor(new RabbitMQStatusCheck(containerConfiguration))
-                        .withStartupTimeout(Duration.ofSeconds(30));
-
-        rabbitMQ = rabbitMQ.withStartupCheckStrategy(new IsRunningStartupCheckStrategyWithDelay());
-        rabbitMQ.start();
-        log.info("Started RabbitMQ server");
-        return rabbitMQ;
-    }
-
-    private static RMQConfig getRMQConfig(GenericContainer rabbitmqContainer) {
-        RMQConfig rmqConfig = new RMQConfig();
-        Integer mappedPort = rabbitmqContainer.getMappedPort(5672);
-        String host = rabbitmqContainer.getContainerIpAddress();
-        List<Broker> brokers = new ArrayList<Broker>();
-        brokers.add(new Broker(host, mappedPort));
-        rmqConfig.setBrokers(brokers);
-        rmqConfig.setUserName(RABBITMQ_USERNAME);
-        rmqConfig.setPassword(RABBITMQ_PASSWORD);
-        rmqConfig.setVirtualHost("/");
-        log.info("RabbitMQ connection details: {}", rmqConfig);
-        return rmqConfig;
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        val deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
     }
 
 }
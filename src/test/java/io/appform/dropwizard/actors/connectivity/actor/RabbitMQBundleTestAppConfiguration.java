@@ -1,6 +0,0 @@
-package io.appform.dropwizard.actors.connectivity.actor;
-
-import io.dropwizard.Configuration;
-
-public class RabbitMQBundleTestAppConfiguration extends Configuration {
-}
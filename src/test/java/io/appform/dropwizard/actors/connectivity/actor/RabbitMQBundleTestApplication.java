@@ -1,13 +0,0 @@
-package io.appform.dropwizard.actors.connectivity.actor;
-
-import io.dropwizard.Application;
-import io.dropwizard.setup.Environment;
-
-
-public class RabbitMQBundleTestApplication extends Application<RabbitMQBundleTestAppConfiguration> {
-
-    @Override
-    public void run(final RabbitMQBundleTestAppConfiguration configuration,
-                    final Environment environment) {
-    }
-}
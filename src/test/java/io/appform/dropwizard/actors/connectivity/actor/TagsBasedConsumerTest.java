@@ -8,6 +8,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Consumer;
@@ -114,6 +115,7 @@ public class TagsBasedConsumerTest {
         when(actorConfig.getShardCount()).thenReturn(1);
         when(actorConfig.getConsumer()).thenReturn(ConsumerConfig.builder().tagPrefix(tagPrefix).build());
         when(rmqConnection.newChannel()).thenReturn(channel);
+        when(rmqConnection.metrics()).thenReturn(new MetricRegistry());
 
         when(retryStrategyFactory.create(any())).thenReturn(retryStrategy);
         when(exceptionHandlingFactory.create(any())).thenReturn(exceptionHandler);
@@ -0,0 +1,197 @@
+package io.appform.dropwizard.actors.connectivity.inmemory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.AMQP;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.actor.MessageHandlingFunction;
+import io.appform.dropwizard.actors.base.UnmanagedConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.config.TransportConfig;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.topology.Topology;
+import io.dropwizard.setup.Environment;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+public class InMemoryBrokerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<UnmanagedConsumer<Map>> consumers = new ArrayList<>();
+    private RMQConnection connection;
+
+    @Before
+    public void setup() throws Exception {
+        InMemoryBroker.instance().reset();
+        val config = RMQConfig.builder()
+                .threadPoolSize(1)
+                .transport(TransportConfig.builder()
+                                   .inMemory(true)
+                                   .build())
+                .build();
+        connection = new RMQConnection("inmemory", config, Executors.newSingleThreadExecutor(),
+                                       new Environment("inmemory"), TtlConfig.builder().build());
+        connection.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (UnmanagedConsumer<Map> consumer : consumers) {
+            consumer.stop();
+        }
+        connection.stop();
+    }
+
+    @Test
+    public void shouldDeliverToAllShards() throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .shardCount(2)
+                .concurrency(2)
+                .build();
+        val handled = new AtomicInteger();
+        val consumer = start("SHARDED", config, (message, metadata) -> handled.incrementAndGet() > 0);
+        for (int i = 0; i < 10; i++) {
+            consumer.publish(ImmutableMap.of("index", i));
+        }
+        await(() -> handled.get() == 10);
+        Assert.assertEquals(0, consumer.pendingMessagesCount());
+    }
+
+    @Test
+    public void shouldSidelineRejectedMessages() throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .concurrency(1)
+                .build();
+        val publisher = start("SIDELINED", config, (message, metadata) -> false);
+        publisher.publish(ImmutableMap.of("key", "value"));
+        await(() -> publisher.pendingSidelineMessagesCount() == 1);
+        Assert.assertEquals(0, publisher.pendingMessagesCount());
+    }
+
+    @Test
+    public void shouldDelayThroughTtlQueue() throws Exception {
+        assertDelayed(DelayType.TTL);
+    }
+
+    @Test
+    public void shouldDelayThroughDelayedExchange() throws Exception {
+        assertDelayed(DelayType.DELAYED);
+    }
+
+    @Test
+    public void shouldDeclareOnlyOwnTopologyOnStart() throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .build();
+        val first = new UnmanagedPublisher<Map>("FIRST", config, connection, mapper);
+        new UnmanagedPublisher<Map>("SECOND", config, connection, mapper);
+        first.start();
+        Assert.assertEquals(0, messageCount("rabbitmq.actors.FIRST"));
+        Assert.assertEquals(-1, messageCount("rabbitmq.actors.SECOND"));
+        connection.declarePlanned();
+        Assert.assertEquals(0, messageCount("rabbitmq.actors.SECOND"));
+        Assert.assertEquals(0, messageCount("rabbitmq.actors.SECOND_SIDELINE"));
+    }
+
+    @Test
+    public void shouldKeepPlannedTopologyWhenDeclarationFails() throws Exception {
+        connection.plan("BROKEN", new Topology().exchange("test.topic", "topic", Collections.emptyMap()));
+        for (int i = 0; i < 2; i++) {
+            try {
+                connection.declarePlanned();
+                Assert.fail("Declaration should have failed");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("topic"));
+            }
+        }
+    }
+
+    @Test
+    public void shouldExpireOnlyFromHead() throws Exception {
+        val broker = InMemoryBroker.instance();
+        connection.withChannel(channel -> {
+            channel.exchangeDeclare("test.dlx", "direct");
+            channel.queueDeclare("test.dead", true, false, false, null);
+            channel.queueBind("test.dead", "test.dlx", "test.ttl");
+            channel.queueDeclare("test.ttl", true, false, false, ImmutableMap.of("x-dead-letter-exchange", "test.dlx"));
+            channel.basicPublish("", "test.ttl", new AMQP.BasicProperties.Builder().expiration("400").build(),
+                                 new byte[0]);
+            channel.basicPublish("", "test.ttl", new AMQP.BasicProperties.Builder().expiration("10").build(),
+                                 new byte[0]);
+            return null;
+        });
+        Thread.sleep(100);
+        Assert.assertEquals(2, broker.messageCount("test.ttl"));
+        await(() -> messageCount("test.dead") == 2);
+        Assert.assertEquals(0, broker.messageCount("test.ttl"));
+    }
+
+    private void assertDelayed(DelayType delayType) throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange." + delayType)
+                .delayed(true)
+                .delayType(delayType)
+                .concurrency(1)
+                .build();
+        val handledAt = new AtomicLong();
+        val publisher = start("DELAYED_" + delayType, config, (message, metadata) -> {
+            handledAt.set(System.currentTimeMillis());
+            return true;
+        });
+        val publishedAt = System.currentTimeMillis();
+        publisher.publishWithDelay(ImmutableMap.of("key", "value"), 300);
+        await(() -> handledAt.get() > 0);
+        Assert.assertTrue(handledAt.get() - publishedAt >= 300);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private UnmanagedPublisher<Map> start(String name,
+                                          ActorConfig config,
+                                          MessageHandlingFunction<Map, Boolean> handler) throws Exception {
+        val publisher = new UnmanagedPublisher<Map>(name, config, connection, mapper);
+        publisher.start();
+        val consumer = new UnmanagedConsumer<>(name, config, connection, mapper, new RetryStrategyFactory(),
+                                               new ExceptionHandlingFactory(), Map.class, handler,
+                                               (message, metadata) -> true, t -> false);
+        consumers.add(consumer);
+        consumer.start();
+        return publisher;
+    }
+
+    private static long messageCount(String queueName) {
+        try {
+            return InMemoryBroker.instance().messageCount(queueName);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        val deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package io.appform.dropwizard.actors.dedup;
+
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.HashSet;
+
+public class DeduplicationStoreTest {
+
+    @Test
+    public void shouldRememberKeysInHeapStore() {
+        verifyRemembersKeys(new HeapDeduplicationStore(config(DeduplicationStoreType.HEAP, 1000, null)));
+    }
+
+    @Test
+    public void shouldRememberKeysInOffHeapStore() {
+        verifyRemembersKeys(new OffHeapDeduplicationStore(config(DeduplicationStoreType.OFF_HEAP, 1000, null)));
+    }
+
+    @Test
+    public void shouldBoundOffHeapStore() {
+        val store = new OffHeapDeduplicationStore(config(DeduplicationStoreType.OFF_HEAP, 64, null));
+        for (int i = 0; i < 10_000; i++) {
+            store.record("key-" + i);
+        }
+        Assert.assertEquals(64, store.size());
+        Assert.assertTrue(store.contains("key-9999"));
+    }
+
+    @Test
+    public void shouldForgetExpiredKeys() throws Exception {
+        val store = new OffHeapDeduplicationStore(DeduplicationConfig.builder()
+                                                          .store(DeduplicationStoreType.OFF_HEAP)
+                                                          .ttl(Duration.milliseconds(20))
+                                                          .build());
+        store.record("key");
+        Thread.sleep(50);
+        Assert.assertFalse(store.contains("key"));
+    }
+
+    @Test
+    public void shouldRememberKeysAcrossRestartsWithFile() throws Exception {
+        val path = Files.createTempFile("dedup", ".bin");
+        path.toFile().deleteOnExit();
+        val file = path.toString();
+        val config = config(DeduplicationStoreType.OFF_HEAP, 1000, file);
+        val store = new OffHeapDeduplicationStore(config);
+        store.record("key");
+        store.close();
+        val reopened = new OffHeapDeduplicationStore(config);
+        Assert.assertTrue(reopened.contains("key"));
+        Assert.assertEquals(1, reopened.size());
+    }
+
+    @Test
+    public void shouldGenerateCompactUniqueIds() {
+        val ids = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            val id = MessageIds.next();
+            Assert.assertTrue(id.length() < 20);
+            ids.add(id);
+        }
+        Assert.assertEquals(1000, ids.size());
+    }
+
+    private static void verifyRemembersKeys(DeduplicationStore store) {
+        Assert.assertFalse(store.contains("key-1"));
+        store.record("key-1");
+        Assert.assertTrue(store.contains("key-1"));
+        Assert.assertFalse(store.contains("key-2"));
+        Assert.assertEquals(1, store.size());
+    }
+
+    private static DeduplicationConfig config(DeduplicationStoreType type, int maxEntries, String file) {
+        return DeduplicationConfig.builder()
+                .store(type)
+                .maxEntries(maxEntries)
+                .file(file)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package io.appform.dropwizard.actors.dedup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.UnmanagedBaseActor;
+import io.appform.dropwizard.actors.base.UnmanagedConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.common.RabbitmqActorException;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeduplicationTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private RMQConnection connection;
+    private UnmanagedBaseActor<Integer> actor;
+
+    @Before
+    public void setup() throws Exception {
+        connection = InMemoryConnections.start("dedup");
+        actor = new UnmanagedBaseActor<>("DEDUP", ActorConfig.builder()
+                .exchange("dedup.exchange")
+                .concurrency(2)
+                .deduplication(DeduplicationConfig.builder().build())
+                .build(), connection, new ObjectMapper(), new RetryStrategyFactory(), new ExceptionHandlingFactory(),
+                                         Integer.class,
+                                         (message, metadata) -> {
+                                             handled.incrementAndGet();
+                                             return true;
+                                         },
+                                         (message, metadata) -> true,
+                                         t -> false);
+        actor.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        actor.stop();
+        connection.stop();
+    }
+
+    @Test
+    public void shouldAckDuplicatesWithoutHandling() throws Exception {
+        val properties = new AMQP.BasicProperties.Builder()
+                .messageId("message-1")
+                .build();
+        actor.publish(1, properties);
+        awaitHandled(1);
+        actor.publish(1, properties);
+        actor.publish(2);
+        awaitHandled(2);
+        Thread.sleep(100);
+        Assert.assertEquals(2, handled.get());
+        Assert.assertEquals(1, connection.metrics().meter("rmqactor.rabbitmqactorsdedup.dedup.hits").getCount());
+        Assert.assertEquals(0, InMemoryBroker.instance().messageCount("rabbitmq.actors.DEDUP"));
+    }
+
+    @Test
+    public void shouldAssignMessageIds() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            actor.publish(i);
+        }
+        awaitHandled(10);
+        Assert.assertEquals(0, connection.metrics().meter("rmqactor.rabbitmqactorsdedup.dedup.hits").getCount());
+        Assert.assertEquals(10, connection.metrics().meter("rmqactor.rabbitmqactorsdedup.dedup.misses").getCount());
+    }
+
+    @Test
+    public void shouldAnswerDuplicateRequestsWithAnError() throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("dedup.exchange.REPLYING")
+                .concurrency(1)
+                .deduplication(DeduplicationConfig.builder().build())
+                .build();
+        val mapper = new ObjectMapper();
+        val publisher = new UnmanagedPublisher<Integer>("REPLYING", config, connection, mapper);
+        publisher.start();
+        val consumer = UnmanagedConsumer.<Integer, Integer>replying("REPLYING", config, connection, mapper,
+                                                                   new RetryStrategyFactory(),
+                                                                   new ExceptionHandlingFactory(), Integer.class,
+                                                                   (number, metadata) -> number * number,
+                                                                   t -> false);
+        consumer.start();
+        try {
+            val properties = new AMQP.BasicProperties.Builder()
+                    .messageId("request-1")
+                    .build();
+            Assert.assertEquals(Integer.valueOf(9), request(properties).get(5, TimeUnit.SECONDS));
+            try {
+                request(properties).get(5, TimeUnit.SECONDS);
+                Assert.fail("Duplicate request should have failed");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RabbitmqActorException);
+            }
+        } finally {
+            consumer.stop();
+        }
+    }
+
+    private CompletableFuture<Integer> request(AMQP.BasicProperties properties) throws Exception {
+        return connection.replyClient().request("dedup.exchange.REPLYING", "rabbitmq.actors.REPLYING", properties,
+                                                new ObjectMapper().writeValueAsBytes(3),
+                                                body -> new ObjectMapper().readValue(body, Integer.class),
+                                                5, TimeUnit.SECONDS);
+    }
+
+    private void awaitHandled(int count) throws InterruptedException {
+        val deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (acked() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, handled.get());
+    }
+
+    private long acked() {
+        return connection.metrics().counter("rmqactor.rabbitmqactorsdedup.acked").getCount();
+    }
+}
@@ -0,0 +1,51 @@
+package io.appform.dropwizard.actors.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ActorEventsTest {
+
+    @Test
+    public void shouldNotRecordEventsByDefault() {
+        Assert.assertFalse(new PublishEvent().isEnabled());
+    }
+
+    @Test
+    public void shouldRecordEventsWithBundledSettings() throws Exception {
+        final Configuration configuration;
+        try (val reader = new InputStreamReader(
+                getClass().getClassLoader().getResourceAsStream(ActorEvents.SETTINGS_RESOURCE),
+                StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        val file = Files.createTempFile("rmq-actors", ".jfr");
+        try (val recording = new Recording(configuration)) {
+            recording.start();
+            val event = new PublishEvent();
+            event.begin();
+            event.actor = "test.ACTOR";
+            event.shard = -1;
+            event.payloadSize = 42;
+            event.outcome = ActorEvents.PUBLISHED;
+            event.commit();
+            recording.stop();
+            recording.dump(file);
+        }
+        val events = RecordingFile.readAllEvents(file);
+        val published = events.stream()
+                .filter(recorded -> recorded.getEventType().getName().equals(ActorEvents.PREFIX + "Publish"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        Assert.assertEquals("test.ACTOR", published.getString("actor"));
+        Assert.assertEquals(42, published.getInt("payloadSize"));
+        Files.deleteIfExists(file);
+    }
+}
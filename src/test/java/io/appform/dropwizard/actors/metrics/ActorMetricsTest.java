@@ -0,0 +1,54 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ActorMetricsTest {
+
+    @Test
+    public void shouldShareMetricsOfSameActor() {
+        val registry = new MetricRegistry();
+        val publisherMetrics = new ActorMetrics(registry, "test.prefix.ACTOR_ONE", 2);
+        val consumerMetrics = new ActorMetrics(registry, "test.prefix.ACTOR_ONE", 2);
+        publisherMetrics.published(1, TimeUnit.MILLISECONDS.toNanos(2), 128);
+        consumerMetrics.consumed(1, 25);
+        consumerMetrics.acked();
+
+        Assert.assertEquals(1, registry.timer("rmqactor.testprefixactorone.publish").getCount());
+        Assert.assertEquals(128, registry.histogram("rmqactor.testprefixactorone.payloadSize")
+                .getSnapshot().getMax());
+        Assert.assertEquals(1, registry.meter("rmqactor.testprefixactorone.shard.1.publish").getCount());
+        Assert.assertEquals(1, registry.meter("rmqactor.testprefixactorone.shard.1.consume").getCount());
+        Assert.assertEquals(25, registry.histogram("rmqactor.testprefixactorone.endToEndDelayMs")
+                .getSnapshot().getMax());
+        Assert.assertEquals(1, registry.counter("rmqactor.testprefixactorone.acked").getCount());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownDelay() {
+        val registry = new MetricRegistry();
+        val metrics = new ActorMetrics(registry, "ACTOR", 0);
+        metrics.consumed(-1, -1);
+        Assert.assertEquals(1, registry.meter("rmqactor.actor.consume").getCount());
+        Assert.assertEquals(0, registry.histogram("rmqactor.actor.endToEndDelayMs").getCount());
+    }
+
+    @Test
+    public void shouldSummarizeRecordedValues() {
+        val registry = new MetricRegistry();
+        val metrics = new ActorMetrics(registry, "ACTOR", 0);
+        for (int size = 1; size <= 1000; size++) {
+            metrics.published(-1, TimeUnit.MILLISECONDS.toNanos(1), size);
+        }
+        val snapshot = registry.histogram("rmqactor.actor.payloadSize").getSnapshot();
+        Assert.assertEquals(500, snapshot.getMedian(), 5);
+        Assert.assertEquals(990, snapshot.get99thPercentile(), 10);
+        Assert.assertEquals(1, snapshot.getMin());
+        Assert.assertEquals(1000, snapshot.getMax(), 10);
+        Assert.assertEquals(1000, snapshot.size());
+    }
+}
@@ -0,0 +1,98 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.rabbitmq.client.Channel;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class InFlightRegistryTest {
+
+    private final Channel channel = (Channel) Proxy.newProxyInstance(
+            Channel.class.getClassLoader(), new Class[]{Channel.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getChannelNumber":
+                        return 7;
+                    case "isOpen":
+                        return true;
+                    default:
+                        return null;
+                }
+            });
+
+    private final InFlightSlot first = InFlightRegistry.register("test.first", 0, 10, channel, () -> "tag-1",
+                                                                 () -> false);
+    private final InFlightSlot second = InFlightRegistry.register("test.second", -1, 5, channel, () -> "tag-2",
+                                                                  () -> true);
+
+    @After
+    public void tearDown() {
+        InFlightRegistry.deregister(first);
+        InFlightRegistry.deregister(second);
+    }
+
+    @Test
+    public void shouldListOnlyDeliveriesBeingHandled() {
+        Assert.assertNull(first.inFlight());
+        first.started(42);
+        val delivery = first.inFlight();
+        Assert.assertNotNull(delivery);
+        Assert.assertEquals("test.first", delivery.getActor());
+        Assert.assertEquals(42, delivery.getDeliveryTag());
+        Assert.assertEquals(Thread.currentThread().getName(), delivery.getThread());
+        first.finished();
+        Assert.assertNull(first.inFlight());
+    }
+
+    @Test
+    public void shouldListOldestFirst() throws Exception {
+        second.started(1);
+        Thread.sleep(5);
+        first.started(2);
+        List<InFlightDelivery> oldest = InFlightRegistry.oldest(10);
+        Assert.assertEquals(2, oldest.size());
+        Assert.assertEquals("test.second", oldest.get(0).getActor());
+        Assert.assertEquals(1, InFlightRegistry.oldest(1).size());
+        first.finished();
+        second.finished();
+        Assert.assertTrue(InFlightRegistry.oldest(10).isEmpty());
+    }
+
+    @Test
+    public void shouldReportChannelState() {
+        first.started(3);
+        val output = new StringWriter();
+        new InFlightTask().execute(Map.<String, List<String>>of("limit", Collections.singletonList("5")),
+                                   new PrintWriter(output));
+        first.finished();
+        val report = output.toString();
+        Assert.assertTrue(report.contains("test.first"));
+        Assert.assertTrue(report.contains("tag-1"));
+        Assert.assertTrue(report.contains("tag-2"));
+        Assert.assertTrue(report.contains("true"));
+        Assert.assertTrue(report.contains("blocked"));
+    }
+
+    @Test
+    public void shouldCountUnackedDeliveries() {
+        first.started(4);
+        first.finished();
+        first.started(5);
+        first.finished();
+        Assert.assertEquals(2, first.unacked());
+        Assert.assertEquals("flowing", first.flowState());
+        first.settled();
+        Assert.assertEquals(1, first.unacked());
+        first.settled();
+        Assert.assertEquals(0, first.unacked());
+        Assert.assertEquals("blocked", second.flowState());
+    }
+}
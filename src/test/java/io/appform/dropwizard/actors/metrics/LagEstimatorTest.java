@@ -0,0 +1,50 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LagEstimatorTest {
+
+    @Test
+    public void shouldEstimateTimeToDrainForShrinkingBacklog() {
+        val estimator = new LagEstimator(new MetricRegistry(), "rmqactor.test", 0);
+        long depth = 10_000;
+        for (int i = 0; i <= 60; i++) {
+            estimator.update(depth(depth, i * 10_000L));
+            depth -= 1_000;
+            if (depth <= 0) {
+                break;
+            }
+        }
+        Assert.assertTrue(estimator.netGrowthRate() < -50);
+        Assert.assertTrue(estimator.timeToDrainSeconds() > 0);
+    }
+
+    @Test
+    public void shouldReportNotDrainingForGrowingShard() {
+        val registry = new MetricRegistry();
+        val estimator = new LagEstimator(registry, "rmqactor.test", 2);
+        estimator.update(new QueueDepth(100, Arrays.asList(50L, 50L), 0, 2, 0));
+        estimator.update(new QueueDepth(120, Arrays.asList(40L, 80L), 0, 2, 10_000));
+        Assert.assertTrue(estimator.netGrowthRate(0) < 0);
+        Assert.assertTrue(estimator.netGrowthRate(1) > 0);
+        Assert.assertEquals(-1.0, estimator.timeToDrainSeconds(1), 0.0);
+        Assert.assertEquals(-1.0, registry.getGauges().get("rmqactor.test.lag.shard.1.timeToDrainSeconds").getValue());
+    }
+
+    @Test
+    public void shouldReportZeroForEmptyQueue() {
+        val estimator = new LagEstimator(new MetricRegistry(), "rmqactor.test", 0);
+        estimator.update(depth(0, 0));
+        Assert.assertEquals(0.0, estimator.timeToDrainSeconds(), 0.0);
+    }
+
+    private static QueueDepth depth(long messages, long sampledAt) {
+        return new QueueDepth(messages, Collections.emptyList(), 0, 1, sampledAt);
+    }
+}
@@ -0,0 +1,67 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import io.appform.dropwizard.actors.actor.LatencyTrackingConfig;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void shouldFlagBreachedSloAfterRotation() {
+        val registry = new MetricRegistry();
+        val tracker = new LatencyTrackers(registry).forActor("test.LATENCY_ACTOR", LatencyTrackingConfig.builder()
+                .interval(Duration.hours(1))
+                .handlerLatency(Duration.milliseconds(50))
+                .build());
+        for (int i = 1; i <= 100; i++) {
+            tracker.getHandler().record(i, TimeUnit.MILLISECONDS);
+        }
+        val gauge = registry.getGauges().get("rmqactor.testlatencyactor.slo.handler.breached");
+        Assert.assertEquals(0, gauge.getValue());
+
+        tracker.rotate();
+
+        val snapshot = tracker.getHandler().snapshot();
+        Assert.assertEquals(100, snapshot.getCount());
+        Assert.assertEquals(100_000, snapshot.getMax(), 1_000);
+        Assert.assertTrue(tracker.getHandler().isSloBreached());
+        Assert.assertFalse(tracker.getPublish().isSloBreached());
+        Assert.assertEquals(1, gauge.getValue());
+        Assert.assertEquals(1, registry.getGauges().get("rmqactor.testlatencyactor.slo.breached").getValue());
+
+        tracker.rotate();
+        Assert.assertEquals(0, tracker.getHandler().snapshot().getCount());
+        Assert.assertFalse(tracker.isSloBreached());
+    }
+
+    @Test
+    public void shouldReportAllTrackedActors() {
+        val trackers = new LatencyTrackers(new MetricRegistry());
+        trackers.forActor("test.REPORTED_ACTOR", new LatencyTrackingConfig());
+        val output = new StringWriter();
+        new LatencyReportTask(trackers::all).execute(Collections.emptyMap(), new PrintWriter(output));
+        Assert.assertTrue(output.toString().contains("test.REPORTED_ACTOR"));
+    }
+
+    @Test
+    public void shouldRemoveTrackersOnStop() {
+        val registry = new MetricRegistry();
+        val trackers = new LatencyTrackers(registry);
+        val tracker = trackers.forActor("test.STOPPED_ACTOR", new LatencyTrackingConfig());
+        Assert.assertTrue(registry.getGauges().containsKey("rmqactor.teststoppedactor.slo.breached"));
+
+        trackers.stop();
+
+        Assert.assertTrue(trackers.all().isEmpty());
+        Assert.assertTrue(registry.getGauges().isEmpty());
+        Assert.assertNotSame(tracker, trackers.forActor("test.STOPPED_ACTOR", new LatencyTrackingConfig()));
+    }
+}
@@ -0,0 +1,68 @@
+package io.appform.dropwizard.actors.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.impl.AMQImpl;
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.ChannelPool;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+
+public class QueueDepthSamplerTest {
+
+    private static final Map<String, Integer> DEPTHS = ImmutableMap.of("test.ACTOR_0", 3,
+                                                                       "test.ACTOR_1", 5,
+                                                                       "test.ACTOR_SIDELINE", 7);
+
+    @Test
+    public void shouldSampleShardAndSidelineDepths() {
+        val registry = new MetricRegistry();
+        val sampler = new QueueDepthSampler(new StubConnection(), "test.ACTOR", ActorConfig.builder()
+                .exchange("test.exchange")
+                .shardCount(2)
+                .concurrency(2)
+                .queueDepthSamplingInterval(Duration.seconds(10))
+                .build(), registry);
+        Assert.assertNull(sampler.depth());
+
+        sampler.sample();
+
+        val depth = sampler.depth();
+        Assert.assertEquals(8, depth.getMessages());
+        Assert.assertEquals(Arrays.asList(3L, 5L), depth.getShardMessages());
+        Assert.assertEquals(7, depth.getSidelineMessages());
+        Assert.assertEquals(2, depth.getConsumers());
+        Assert.assertEquals(8L, registry.getGauges().get("rmqactor.testactor.depth.messages").getValue());
+        Assert.assertEquals(5L, registry.getGauges().get("rmqactor.testactor.depth.shard.1").getValue());
+    }
+
+    private static class StubConnection extends RMQConnection {
+        private final Channel channel = (Channel) Proxy.newProxyInstance(
+                Channel.class.getClassLoader(), new Class[]{Channel.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("queueDeclarePassive")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    val queue = (String) args[0];
+                    return new AMQImpl.Queue.DeclareOk(queue, DEPTHS.get(queue), queue.endsWith("SIDELINE") ? 0 : 1);
+                });
+
+        StubConnection() {
+            super("test", new RMQConfig(), null, null, TtlConfig.builder().build());
+        }
+
+        @Override
+        public <T> T withChannel(ChannelPool.ChannelFunction<T> function) throws Exception {
+            return function.apply(channel);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.appform.dropwizard.actors.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.base.UnmanagedConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.common.RabbitmqActorException;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class DirectReplyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RMQConnection connection;
+
+    @Before
+    public void setup() throws Exception {
+        connection = InMemoryConnections.start("rpc");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.stop();
+    }
+
+    @Test
+    public void shouldCompleteOutstandingRequestsWithTheirReplies() throws Exception {
+        val publisher = actor("SQUARE", number -> number * number);
+        val replies = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < 2000; i++) {
+            replies.add(publisher.ask(i, Integer.class, 5_000));
+        }
+        for (int i = 0; i < replies.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(i * i), replies.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(0, connection.replyClient().outstanding());
+    }
+
+    @Test
+    public void shouldFailRequestWhenHandlerFails() throws Exception {
+        val publisher = actor("FAILING", number -> {
+            throw new IllegalArgumentException("Bad number " + number);
+        });
+        try {
+            publisher.ask(7, Integer.class, 5_000).get(5, TimeUnit.SECONDS);
+            Assert.fail("Request should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RabbitmqActorException);
+            Assert.assertEquals("Bad number 7", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWithoutConsumer() throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("rpc.exchange.NOBODY")
+                .build();
+        val publisher = new UnmanagedPublisher<Integer>("NOBODY", config, connection, mapper);
+        publisher.start();
+        try {
+            publisher.ask(1, Integer.class, 100).get(5, TimeUnit.SECONDS);
+            Assert.fail("Request should have timed out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertEquals(0, connection.replyClient().outstanding());
+    }
+
+    private UnmanagedPublisher<Integer> actor(String name, ThrowingFunction function) throws Exception {
+        val config = ActorConfig.builder()
+                .exchange("rpc.exchange." + name)
+                .concurrency(2)
+                .prefetchCount(50)
+                .build();
+        val publisher = new UnmanagedPublisher<Integer>(name, config, connection, mapper);
+        publisher.start();
+        UnmanagedConsumer.<Integer, Integer>replying(name, config, connection, mapper, new RetryStrategyFactory(),
+                                                     new ExceptionHandlingFactory(), Integer.class,
+                                                     (number, metadata) -> function.apply(number), t -> false)
+                .start();
+        return publisher;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingFunction {
+        Integer apply(Integer number) throws Exception;
+    }
+}
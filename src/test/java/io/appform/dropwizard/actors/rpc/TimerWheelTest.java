@@ -0,0 +1,44 @@
+package io.appform.dropwizard.actors.rpc;
+
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimerWheelTest {
+
+    private final TimerWheel wheel = new TimerWheel("test-wheel", 5, 8);
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    public void shouldFireAfterDelayIncludingMultipleRounds() throws Exception {
+        val latch = new CountDownLatch(1);
+        val firedAt = new AtomicLong();
+        val start = System.nanoTime();
+        wheel.schedule(() -> {
+            firedAt.set(System.nanoTime());
+            latch.countDown();
+        }, 120, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt.get() - start) >= 120);
+    }
+
+    @Test
+    public void shouldNotFireCancelledTimeouts() throws Exception {
+        val fired = new AtomicBoolean();
+        wheel.schedule(() -> fired.set(true), 20, TimeUnit.MILLISECONDS).cancel();
+        val latch = new CountDownLatch(1);
+        wheel.schedule(latch::countDown, 60, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertFalse(fired.get());
+    }
+}
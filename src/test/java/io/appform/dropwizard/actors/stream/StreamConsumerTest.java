@@ -0,0 +1,156 @@
+package io.appform.dropwizard.actors.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.QueueType;
+import io.appform.dropwizard.actors.base.StreamConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedConsumer;
+import io.appform.dropwizard.actors.base.UnmanagedPublisher;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.exceptionhandler.ExceptionHandlingFactory;
+import io.appform.dropwizard.actors.retry.RetryStrategyFactory;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class StreamConsumerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RMQConnection connection;
+    private UnmanagedPublisher<Integer> publisher;
+
+    @Before
+    public void setup() throws Exception {
+        connection = InMemoryConnections.start("stream");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != publisher) {
+            publisher.stop();
+        }
+        connection.stop();
+    }
+
+    @Test
+    public void shouldResumeFromStoredOffsetAndReplayForNewGroups() throws Exception {
+        val config = actorConfig(null);
+        publish(config, 0, 10);
+
+        val first = new CopyOnWriteArrayList<Long>();
+        val consumer = consumer(config, "billing", StreamOffsetType.FIRST, first);
+        consumer.start();
+        await(first, 10);
+        consumer.stop();
+        Assert.assertEquals(Long.valueOf(0), first.get(0));
+        Assert.assertEquals(Long.valueOf(9), first.get(9));
+
+        publish(config, 10, 5);
+        val resumed = new CopyOnWriteArrayList<Long>();
+        val resumedConsumer = consumer(config, "billing", StreamOffsetType.FIRST, resumed);
+        resumedConsumer.start();
+        await(resumed, 5);
+        resumedConsumer.stop();
+        Assert.assertEquals(Long.valueOf(10), resumed.get(0));
+
+        val replayed = new CopyOnWriteArrayList<Long>();
+        val replayConsumer = consumer(config, "audit", StreamOffsetType.FIRST, replayed);
+        replayConsumer.start();
+        await(replayed, 15);
+        replayConsumer.stop();
+    }
+
+    @Test
+    public void shouldConsumeTheStreamOfEveryShard() throws Exception {
+        val config = actorConfig(2);
+        publish(config, 0, 20);
+        val offsets = new CopyOnWriteArrayList<Long>();
+        val consumer = consumer(config, "billing", StreamOffsetType.FIRST, offsets);
+        consumer.start();
+        await(offsets, 20);
+        consumer.stop();
+        val store = new BrokerOffsetStore(connection);
+        val stored = store.load("billing.rabbitmq.actors.STREAM_0").orElse(-1)
+                + store.load("billing.rabbitmq.actors.STREAM_1").orElse(-1);
+        Assert.assertEquals(18, stored);
+    }
+
+    @Test
+    public void shouldSkipExistingMessagesFromNext() throws Exception {
+        val config = actorConfig(null);
+        publish(config, 0, 5);
+        val offsets = new CopyOnWriteArrayList<Long>();
+        val consumer = consumer(config, "live", StreamOffsetType.NEXT, offsets);
+        consumer.start();
+        publish(config, 5, 1);
+        await(offsets, 1);
+        consumer.stop();
+        Assert.assertEquals(Long.valueOf(5), offsets.get(0));
+    }
+
+    @Test
+    public void shouldKeepLatestOffsetOnBroker() throws Exception {
+        val store = new BrokerOffsetStore(connection);
+        Assert.assertFalse(store.load("group.stream").isPresent());
+        store.store("group.stream", 41);
+        store.store("group.stream", 42);
+        Assert.assertEquals(42, store.load("group.stream").getAsLong());
+        Assert.assertEquals(42, store.load("group.stream").getAsLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectClassicConsumerForStream() {
+        new UnmanagedConsumer<>("STREAM", actorConfig(null), connection, mapper, new RetryStrategyFactory(),
+                                new ExceptionHandlingFactory(), Integer.class, (message, metadata) -> true,
+                                (message, metadata) -> true, t -> false);
+    }
+
+    private ActorConfig actorConfig(Integer shardCount) {
+        return ActorConfig.builder()
+                .exchange("stream.exchange")
+                .queueType(QueueType.STREAM)
+                .prefetchCount(10)
+                .shardCount(shardCount)
+                .concurrency(null == shardCount ? 1 : shardCount)
+                .build();
+    }
+
+    private void publish(ActorConfig config, int from, int count) throws Exception {
+        if (null == publisher) {
+            publisher = new UnmanagedPublisher<>("STREAM", config, connection, mapper);
+            publisher.start();
+        }
+        for (int i = from; i < from + count; i++) {
+            publisher.publish(i);
+        }
+    }
+
+    private StreamConsumer<Integer> consumer(ActorConfig config,
+                                             String group,
+                                             StreamOffsetType startFrom,
+                                             List<Long> offsets) {
+        return new StreamConsumer<>("STREAM", config, StreamConsumerConfig.builder()
+                .consumerGroup(group)
+                .startFrom(startFrom)
+                .build(), connection, mapper, new RetryStrategyFactory(), new ExceptionHandlingFactory(),
+                                    Integer.class,
+                                    (message, metadata) -> offsets.add(metadata.getStreamOffset()),
+                                    t -> false);
+    }
+
+    private static void await(List<Long> offsets, int count) throws InterruptedException {
+        val deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (offsets.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        Assert.assertEquals(count, offsets.size());
+    }
+}
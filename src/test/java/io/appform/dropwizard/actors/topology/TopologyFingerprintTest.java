@@ -0,0 +1,112 @@
+package io.appform.dropwizard.actors.topology;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.appform.dropwizard.actors.utils.InMemoryConnections;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TopologyFingerprintTest {
+
+    @Test
+    public void shouldIgnoreDeclarationOrder() {
+        val first = new Topology()
+                .exchange("test.exchange", "direct", ImmutableMap.of("a", 1, "b", 2))
+                .queue("test.queue", ImmutableMap.of())
+                .binding("test.queue", "test.exchange", "test.queue");
+        val second = new Topology()
+                .binding("test.queue", "test.exchange", "test.queue")
+                .queue("test.queue", ImmutableMap.of())
+                .exchange("test.exchange", "direct", ImmutableMap.of("b", 2, "a", 1));
+        Assert.assertEquals(TopologyFingerprint.of(first), TopologyFingerprint.of(second));
+    }
+
+    @Test
+    public void shouldChangeWithArguments() {
+        val first = new Topology().queue("test.queue", ImmutableMap.of("x-max-priority", 10));
+        val second = new Topology().queue("test.queue", ImmutableMap.of("x-max-priority", 5));
+        Assert.assertNotEquals(TopologyFingerprint.of(first), TopologyFingerprint.of(second));
+    }
+
+    @Test
+    public void shouldPersistFingerprintsToFile() throws Exception {
+        val file = Files.createTempDirectory("fingerprints").resolve("topology.properties");
+        val store = FileTopologyFingerprintStore.forFile(file.toString());
+        Assert.assertFalse(store.matches("test.queue", "abcd"));
+        store.store("test.queue", "abcd");
+        Assert.assertTrue(store.matches("test.queue", "abcd"));
+        Assert.assertTrue(Files.readAllLines(file).contains("test.queue=abcd"));
+    }
+
+    @Test
+    public void shouldKeepOnlyLatestFingerprintOnBroker() throws Exception {
+        val connection = InMemoryConnections.start("fingerprints");
+        try {
+            val store = new BrokerTopologyFingerprintStore(connection.getChannelPool());
+            Assert.assertFalse(store.matches("test.queue", "abcd"));
+            store.store("test.queue", "abcd");
+            store.store("test.queue", "efgh");
+            Assert.assertFalse(store.matches("test.queue", "abcd"));
+            Assert.assertTrue(store.matches("test.queue", "efgh"));
+            Assert.assertEquals(1, InMemoryBroker.instance().messageCount("rmq.actors.topology.test.queue"));
+        } finally {
+            connection.stop();
+        }
+    }
+
+    @Test
+    public void shouldLookUpFingerprintsInParallel() throws Exception {
+        val connection = InMemoryConnections.start("fingerprints");
+        try {
+            val store = new SlowFingerprintStore();
+            final Map<String, Topology> topologies = new LinkedHashMap<>();
+            for (int i = 0; i < 8; i++) {
+                topologies.put("test.queue" + i, new Topology().queue("test.queue" + i, ImmutableMap.of()));
+            }
+            declarer(connection, store).declare(topologies);
+            Assert.assertEquals(8, store.stored.size());
+            store.maxConcurrentLookups.set(0);
+            declarer(connection, store).declare(topologies);
+            Assert.assertTrue(store.maxConcurrentLookups.get() > 1);
+            Assert.assertEquals(8, store.stored.size());
+        } finally {
+            connection.stop();
+        }
+    }
+
+    private static TopologyDeclarer declarer(RMQConnection connection, TopologyFingerprintStore store) {
+        return new TopologyDeclarer("fingerprints", connection.getChannelPool(), 4, FastStartMode.PASSIVE, store,
+                                    new MetricRegistry(), "fingerprints");
+    }
+
+    private static class SlowFingerprintStore implements TopologyFingerprintStore {
+        private final Map<String, String> stored = new ConcurrentHashMap<>();
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final AtomicInteger maxConcurrentLookups = new AtomicInteger();
+
+        @Override
+        public boolean matches(String key, String fingerprint) throws Exception {
+            maxConcurrentLookups.accumulateAndGet(lookups.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return fingerprint.equals(stored.get(key));
+            } finally {
+                lookups.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void store(String key, String fingerprint) {
+            stored.put(key, fingerprint);
+        }
+    }
+}
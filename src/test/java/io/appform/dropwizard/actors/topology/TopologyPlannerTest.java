@@ -0,0 +1,169 @@
+package io.appform.dropwizard.actors.topology;
+
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.actor.ActorConfig;
+import io.appform.dropwizard.actors.actor.DelayBucketsConfig;
+import io.appform.dropwizard.actors.actor.DelayType;
+import io.appform.dropwizard.actors.actor.QueueType;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.dropwizard.util.Duration;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TopologyPlannerTest {
+
+    private final RMQConnection connection = new RMQConnection("test", new RMQConfig(), null, null,
+                                                               TtlConfig.builder().build());
+
+    @Test
+    public void shouldDeduplicateSharedExchanges() {
+        val topology = new TopologyPlanner(connection)
+                .add("ACTOR_ONE", ActorConfig.builder().exchange("test.exchange").build())
+                .add("ACTOR_TWO", ActorConfig.builder().exchange("test.exchange").build())
+                .topology();
+        Assert.assertEquals(2, topology.getExchanges().size());
+        Assert.assertEquals(4, topology.getQueues().size());
+        Assert.assertEquals(4, topology.getBindings().size());
+    }
+
+    @Test
+    public void shouldPlanShardedAndTtlQueues() {
+        val topology = TopologyPlanner.plan(connection, "test.ACTOR", ActorConfig.builder()
+                .exchange("test.exchange")
+                .shardCount(2)
+                .concurrency(2)
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .build());
+        Assert.assertEquals(3, topology.getExchanges().size());
+        Assert.assertTrue(topology.getQueues().stream().anyMatch(queue -> queue.getName().equals("test.ACTOR_1")));
+        Assert.assertTrue(topology.getQueues().stream().anyMatch(queue -> queue.getName().equals("test.ACTOR_TTL")));
+        Assert.assertTrue(topology.getBindings()
+                                  .contains(new BindingSpec("test.ACTOR_SIDELINE", "test.exchange_SIDELINE",
+                                                            "test.ACTOR_1")));
+        Assert.assertEquals(4, topology.getQueues().size());
+    }
+
+    @Test
+    public void shouldPlanDelayBucketsInsteadOfTtlQueue() {
+        val topology = TopologyPlanner.plan(connection, "test.ACTOR", ActorConfig.builder()
+                .exchange("test.exchange")
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .delayBuckets(DelayBucketsConfig.builder()
+                                      .minDelay(Duration.seconds(1))
+                                      .maxDelay(Duration.seconds(4))
+                                      .build())
+                .build());
+        Assert.assertFalse(topology.getQueues().stream().anyMatch(queue -> queue.getName().equals("test.ACTOR_TTL")));
+        Assert.assertEquals(5, topology.getQueues().size());
+        val bucket = topology.getQueues().stream()
+                .filter(queue -> queue.getName().equals("test.ACTOR_TTL_2000"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        Assert.assertEquals(2000L, bucket.getArguments().get("x-message-ttl"));
+        Assert.assertEquals("test.exchange", bucket.getArguments().get("x-dead-letter-exchange"));
+        Assert.assertEquals("test.ACTOR", bucket.getArguments().get("x-dead-letter-routing-key"));
+        Assert.assertTrue(topology.getBindings()
+                                  .contains(new BindingSpec("test.ACTOR_TTL_2000", "test.exchange_TTL",
+                                                            "test.ACTOR_TTL_2000")));
+    }
+
+    @Test
+    public void shouldKeepClassicQueueArguments() {
+        val queue = mainQueue(ActorConfig.builder()
+                                      .exchange("test.exchange")
+                                      .build());
+        Assert.assertEquals("all", queue.getArguments().get("x-ha-policy"));
+        Assert.assertEquals("test.exchange_SIDELINE", queue.getArguments().get("x-dead-letter-exchange"));
+        Assert.assertFalse(queue.getArguments().containsKey("x-queue-type"));
+    }
+
+    @Test
+    public void shouldApplyClassicQueueModes() {
+        val queue = mainQueue(ActorConfig.builder()
+                                      .exchange("test.exchange")
+                                      .lazy(true)
+                                      .classicQueueVersion(2)
+                                      .build());
+        Assert.assertEquals("lazy", queue.getArguments().get("x-queue-mode"));
+        Assert.assertEquals(2, queue.getArguments().get("x-queue-version"));
+    }
+
+    @Test
+    public void shouldPlanQuorumQueues() {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .queueType(QueueType.QUORUM)
+                .quorumDeliveryLimit(5)
+                .quorumInitialGroupSize(3)
+                .delayed(true)
+                .delayType(DelayType.TTL)
+                .build();
+        val topology = TopologyPlanner.plan(connection, "test.ACTOR", config);
+        Assert.assertTrue(topology.getQueues().stream()
+                                  .allMatch(queue -> "quorum".equals(queue.getArguments().get("x-queue-type"))
+                                          && !queue.getArguments().containsKey("x-ha-policy")
+                                          && Integer.valueOf(5).equals(queue.getArguments().get("x-delivery-limit"))
+                                          && Integer.valueOf(3).equals(
+                                          queue.getArguments().get("x-quorum-initial-group-size"))));
+        Assert.assertEquals("test.exchange_SIDELINE", mainQueue(config).getArguments().get("x-dead-letter-exchange"));
+        Assert.assertTrue(config.isValidQuorumQueueOptions());
+        Assert.assertTrue(config.isValidClassicQueueOptions());
+    }
+
+    @Test
+    public void shouldPlanStreamsWithoutDeadLettering() {
+        val config = ActorConfig.builder()
+                .exchange("test.exchange")
+                .queueType(QueueType.STREAM)
+                .shardCount(2)
+                .concurrency(2)
+                .build();
+        val topology = TopologyPlanner.plan(connection, "test.ACTOR", config);
+        Assert.assertEquals(2, topology.getQueues().size());
+        Assert.assertTrue(topology.getQueues().stream()
+                                  .allMatch(queue -> "stream".equals(queue.getArguments().get("x-queue-type"))
+                                          && !queue.getArguments().containsKey("x-dead-letter-exchange")));
+        Assert.assertEquals(1, topology.getExchanges().size());
+        Assert.assertTrue(topology.getBindings().stream()
+                                  .noneMatch(binding -> binding.getExchange().equals("test.exchange_SIDELINE")));
+    }
+
+    @Test
+    public void shouldRejectOptionsOfOtherQueueTypes() {
+        Assert.assertFalse(ActorConfig.builder()
+                                   .exchange("test.exchange")
+                                   .queueType(QueueType.QUORUM)
+                                   .priorityQueue(true)
+                                   .build()
+                                   .isValidClassicQueueOptions());
+        Assert.assertFalse(ActorConfig.builder()
+                                   .exchange("test.exchange")
+                                   .quorumDeliveryLimit(3)
+                                   .build()
+                                   .isValidQuorumQueueOptions());
+        Assert.assertFalse(ActorConfig.builder()
+                                   .exchange("test.exchange")
+                                   .queueType(QueueType.STREAM)
+                                   .delayed(true)
+                                   .delayType(DelayType.TTL)
+                                   .build()
+                                   .isValidStreamQueueOptions());
+        Assert.assertFalse(ActorConfig.builder()
+                                   .exchange("test.exchange")
+                                   .queueType(QueueType.STREAM)
+                                   .delayType(DelayType.TTL)
+                                   .build()
+                                   .isValidStreamQueueOptions());
+    }
+
+    private QueueSpec mainQueue(ActorConfig config) {
+        return TopologyPlanner.plan(connection, "test.ACTOR", config).getQueues().stream()
+                .filter(queue -> queue.getName().equals("test.ACTOR"))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+}
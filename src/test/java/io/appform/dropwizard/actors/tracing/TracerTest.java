@@ -0,0 +1,70 @@
+package io.appform.dropwizard.actors.tracing;
+
+import com.rabbitmq.client.impl.LongStringHelper;
+import io.appform.dropwizard.actors.config.TracingConfig;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.Collections;
+
+public class TracerTest {
+
+    @Test
+    public void shouldRoundTripTraceparent() {
+        val context = TraceContext.root();
+        val parsed = TraceContext.parse(context.traceparent());
+        Assert.assertEquals(context.getTraceId(), parsed.getTraceId());
+        Assert.assertEquals(context.getSpanId(), parsed.getSpanId());
+        Assert.assertEquals(32, context.getTraceId().length());
+        Assert.assertEquals(16, context.getSpanId().length());
+    }
+
+    @Test
+    public void shouldRejectMalformedAndUnsampledTraceparent() {
+        Assert.assertNull(TraceContext.parse("garbage"));
+        Assert.assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00"));
+        Assert.assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        Assert.assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e473g-00f067aa0ba902b7-01"));
+        Assert.assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-0x"));
+        Assert.assertNotNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+    }
+
+    @Test
+    public void shouldContinueCurrentTraceWhilePublishing() {
+        val tracer = new Tracer(TracingConfig.builder().enabled(true).sampleRate(0).build());
+        Assert.assertNull(tracer.outgoing());
+        val span = tracer.incoming(Collections.singletonMap(
+                Tracer.TRACEPARENT_HEADER, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        Assert.assertEquals("00f067aa0ba902b7", span.getContext().getParentSpanId());
+        try (TraceScope ignored = TraceScope.open(span.getContext())) {
+            Assert.assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", MDC.get(TraceScope.TRACE_ID_MDC_KEY));
+            val outgoing = tracer.outgoing();
+            Assert.assertEquals(span.getContext().getTraceId(), outgoing.getTraceId());
+            Assert.assertEquals(span.getContext().getSpanId(), outgoing.getParentSpanId());
+        }
+        Assert.assertNull(TraceScope.current());
+        Assert.assertNull(MDC.get(TraceScope.TRACE_ID_MDC_KEY));
+    }
+
+    @Test
+    public void shouldContinueTraceFromBrokerHeader() {
+        val tracer = new Tracer(TracingConfig.builder().enabled(true).build());
+        Assert.assertNull(tracer.incoming(Collections.singletonMap(
+                Tracer.TRACEPARENT_HEADER,
+                LongStringHelper.asLongString("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00"))));
+        val span = tracer.incoming(Collections.singletonMap(
+                Tracer.TRACEPARENT_HEADER,
+                LongStringHelper.asLongString("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")));
+        Assert.assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", span.getContext().getTraceId());
+        Assert.assertEquals("00f067aa0ba902b7", span.getContext().getParentSpanId());
+    }
+
+    @Test
+    public void shouldNotTraceWhenDisabled() {
+        Assert.assertNull(Tracer.disabled().outgoing());
+        Assert.assertNull(Tracer.disabled().incoming(Collections.singletonMap(
+                Tracer.TRACEPARENT_HEADER, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")));
+    }
+}
@@ -0,0 +1,45 @@
+package io.appform.dropwizard.actors.utils;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+
+public class ExceptionClassifierTest {
+
+    @Test
+    public void shouldMatchConfiguredNames() {
+        val classifier = ExceptionClassifier.byName(ImmutableSet.of("IOException", "java.lang.IllegalStateException"));
+        Assert.assertTrue(classifier.matches(new IOException()));
+        Assert.assertTrue(classifier.matches(new IllegalStateException()));
+        Assert.assertFalse(classifier.matches(new SocketTimeoutException()));
+        Assert.assertFalse(classifier.matches(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void shouldMatchWrappedCauses() {
+        val classifier = ExceptionClassifier.byName(ImmutableSet.of("IOException"));
+        Assert.assertTrue(classifier.matches(new RuntimeException(new IllegalStateException(new IOException()))));
+        Assert.assertFalse(classifier.matches(new RuntimeException(new IllegalStateException())));
+    }
+
+    @Test
+    public void shouldMatchAssignableTypes() {
+        val classifier = ExceptionClassifier.byType(ImmutableSet.of(IOException.class));
+        Assert.assertTrue(classifier.matches(new SocketTimeoutException()));
+        Assert.assertTrue(classifier.matches(new RuntimeException(new SocketTimeoutException())));
+        Assert.assertFalse(classifier.matches(new IllegalStateException()));
+    }
+
+    @Test
+    public void shouldTreatEverythingAsRetriableWhenNothingConfigured() {
+        Assert.assertTrue(CommonUtils.retriableExceptionClassifier(null).matches(new IOException()));
+        Assert.assertTrue(CommonUtils.retriableExceptionClassifier(Collections.emptySet())
+                                  .matches(new IllegalStateException()));
+        Assert.assertFalse(ExceptionClassifier.byType(null).matches(new IOException()));
+    }
+}
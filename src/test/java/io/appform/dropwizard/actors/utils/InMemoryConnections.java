@@ -0,0 +1,59 @@
+package io.appform.dropwizard.actors.utils;
+
+import io.appform.dropwizard.actors.TtlConfig;
+import io.appform.dropwizard.actors.config.RMQConfig;
+import io.appform.dropwizard.actors.config.TransportConfig;
+import io.appform.dropwizard.actors.connectivity.RMQConnection;
+import io.appform.dropwizard.actors.connectivity.inmemory.InMemoryBroker;
+import io.dropwizard.setup.Environment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Connections to a freshly reset in memory broker. Stopping a connection also shuts its executor down.
+ */
+public class InMemoryConnections {
+
+    private InMemoryConnections() {
+    }
+
+    public static RMQConfig config() {
+        return RMQConfig.builder()
+                .threadPoolSize(1)
+                .transport(TransportConfig.builder()
+                                   .inMemory(true)
+                                   .build())
+                .build();
+    }
+
+    public static RMQConnection start(String name) throws Exception {
+        return start(name, TtlConfig.builder().build());
+    }
+
+    public static RMQConnection start(String name, TtlConfig ttlConfig) throws Exception {
+        InMemoryBroker.instance().reset();
+        final RMQConnection connection = new ExecutorOwningConnection(name, ttlConfig,
+                                                                      Executors.newSingleThreadExecutor());
+        connection.start();
+        return connection;
+    }
+
+    private static class ExecutorOwningConnection extends RMQConnection {
+        private final ExecutorService executorService;
+
+        ExecutorOwningConnection(String name, TtlConfig ttlConfig, ExecutorService executorService) {
+            super(name, config(), executorService, new Environment(name), ttlConfig);
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void stop() throws Exception {
+            try {
+                super.stop();
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+}